@@ -0,0 +1,132 @@
+/*
+ * Licensed to BaaSFlow Corporation "BaaSFlow" under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  BaaSFlow licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this  file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.baasFlow.com/licenses/Apache_LICENSE-2.0
+ * or the root of this project.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baasflow.commons.events;
+
+import com.baasflow.commons.events.internal.EventBuilder;
+import com.baasflow.commons.events.internal.EventMetrics;
+import com.baasflow.commons.events.internal.MockKafka;
+import com.baasflow.commons.events.internal.StackTraceEncoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventServiceBenchmark {
+    private static final RuntimeException FAILURE = new IllegalStateException("benchmark failure");
+
+    private static final int BATCH_SIZE = 10;
+
+    /**
+     * With transactional channels, failed audited events and batches are sent in a Kafka transaction.
+     */
+    @Param({"false", "true"})
+    private boolean transactional;
+
+    private MockKafka mockKafka;
+    private EventService eventService;
+    private List<Event> batch;
+
+    @Setup
+    public void setup() {
+        mockKafka = new MockKafka(transactional);
+        eventService = new EventService();
+        eventService.builder = new EventBuilder();
+        eventService.kafkaSender = mockKafka.getKafkaSender();
+        eventService.eventMetrics = new EventMetrics();
+        eventService.eventSampler = mockKafka.getEventSampler();
+        eventService.stackTraceEncoder = new StackTraceEncoder();
+
+        batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch.add(EventBuilder.createEventBuilder()
+                    .setEventType(EventType.business)
+                    .setEventStatus(EventStatus.success)
+                    .setSourceModule("benchmark")
+                    .setEvent("payment-initiated")
+                    .setPayload("{\"amount\":100}")
+                    .setPayloadType("json")
+                    .build());
+        }
+    }
+
+    @Benchmark
+    public void sendEvent() {
+        eventService.sendEvent(event -> event
+                .setEventType(EventType.business)
+                .setEventStatus(EventStatus.success)
+                .setSourceModule("benchmark")
+                .setEvent("payment-initiated")
+                .setPayload("{\"amount\":100}")
+                .setPayloadType("json"));
+        mockKafka.sent();
+    }
+
+    @Benchmark
+    public String auditedEventSuccess() {
+        String result = eventService.auditedEvent(event -> event
+                .setSourceModule("benchmark")
+                .setEvent("user-login"), event -> "done");
+        mockKafka.sent();
+        return result;
+    }
+
+    @Benchmark
+    public Exception auditedEventFailure() {
+        try {
+            return eventService.auditedEvent(event -> event
+                    .setSourceModule("benchmark")
+                    .setEvent("user-login"), event -> {
+                throw FAILURE;
+            });
+        } catch (RuntimeException e) {
+            return e;
+        } finally {
+            mockKafka.sent();
+            mockKafka.sent();
+        }
+    }
+
+    @Benchmark
+    public List<EventSendResult> sendEventsBatch() throws Exception {
+        var results = transactional ? eventService.sendEventsTransactional(batch).get() : eventService.sendEvents(batch).get();
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            mockKafka.sent();
+        }
+        return results;
+    }
+}
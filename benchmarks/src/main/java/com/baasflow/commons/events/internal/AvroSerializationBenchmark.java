@@ -0,0 +1,78 @@
+/*
+ * Licensed to BaaSFlow Corporation "BaaSFlow" under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  BaaSFlow licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this  file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.baasFlow.com/licenses/Apache_LICENSE-2.0
+ * or the root of this project.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baasflow.commons.events.internal;
+
+import com.baasflow.commons.events.Event;
+import com.baasflow.commons.events.EventStatus;
+import com.baasflow.commons.events.EventType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AvroSerializationBenchmark {
+
+    @Param({"0", "256", "4096", "65536"})
+    private int payloadSize;
+
+    private Event event;
+    private EventAvroSerializer serializer;
+
+    @Setup
+    public void setup() {
+        event = EventBuilder.createEventBuilder()
+                .setEventType(EventType.business)
+                .setEventStatus(EventStatus.success)
+                .setSourceModule("benchmark")
+                .setEvent("payment-initiated")
+                .setPayload("x".repeat(payloadSize))
+                .setPayloadType("string")
+                .build();
+        serializer = new EventAvroSerializer(topic -> EventAvroSerializer.confluentHeader(1));
+    }
+
+    @Benchmark
+    public ByteBuffer toByteBuffer() throws IOException {
+        return event.toByteBuffer();
+    }
+
+    @Benchmark
+    public byte[] builtinSerializer() {
+        return serializer.serialize(MockKafka.TOPIC, event);
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Licensed to BaaSFlow Corporation "BaaSFlow" under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  BaaSFlow licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this  file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.baasFlow.com/licenses/Apache_LICENSE-2.0
+ * or the root of this project.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baasflow.commons.events.internal;
+
+import com.baasflow.commons.events.Event;
+import com.baasflow.commons.events.EventIdGenerator;
+import com.baasflow.commons.events.EventStatus;
+import com.baasflow.commons.events.EventType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Clock;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventBuilderBenchmark {
+    private final EventBuilder builder = new EventBuilder();
+    private final Map<String, String> correlationIds = Map.of("transactionId", "f3b1c2d4-0000-4000-8000-000000000001");
+
+    @Param({"RANDOM", "TIME_ORDERED"})
+    private EventsConfigProperties.IdGenerator idGenerator;
+
+    @Param({"0", "1"})
+    private long clockResolutionMs;
+
+    @Setup
+    public void setup() {
+        Clock clock = clockResolutionMs > 0 ? new CoarseClock(clockResolutionMs) : Clock.systemUTC();
+        EventBuilder.configure(idGenerator == EventsConfigProperties.IdGenerator.TIME_ORDERED
+                ? EventIdGenerator.timeOrdered(clock)
+                : EventIdGenerator.random(), clock);
+    }
+
+    @TearDown
+    public void tearDown() {
+        EventBuilder.configure(EventIdGenerator.random(), Clock.systemUTC());
+    }
+
+    @Benchmark
+    public Event.Builder createEventBuilder() {
+        return EventBuilder.createEventBuilder();
+    }
+
+    @Benchmark
+    public Event auditlogEvent() {
+        return builder.auditlogEvent("benchmark", "user-login", EventStatus.success, correlationIds);
+    }
+
+    @Benchmark
+    public Event event() {
+        return builder.event("benchmark", "payment-initiated", EventType.business, EventStatus.success,
+                "{\"amount\":100}", "json", correlationIds);
+    }
+
+    @Benchmark
+    public Event eventWithPayloadFormat() {
+        return builder.event("benchmark", "payment-initiated", EventType.business, EventStatus.success,
+                "{\"amount\":100}", "application/json", "json", correlationIds);
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Licensed to BaaSFlow Corporation "BaaSFlow" under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  BaaSFlow licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this  file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.baasFlow.com/licenses/Apache_LICENSE-2.0
+ * or the root of this project.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baasflow.commons.events.internal;
+
+import com.baasflow.commons.events.Event;
+import com.baasflow.commons.events.EventStatus;
+import com.baasflow.commons.events.EventType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.kafka.support.SendResult;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KafkaSenderBenchmark {
+    private MockKafka mockKafka;
+    private Event event;
+
+    @Setup
+    public void setup() {
+        mockKafka = new MockKafka();
+        event = EventBuilder.createEventBuilder()
+                .setEventType(EventType.business)
+                .setEventStatus(EventStatus.success)
+                .setSourceModule("benchmark")
+                .setEvent("payment-initiated")
+                .build();
+    }
+
+    @Benchmark
+    public CompletableFuture<SendResult<String, Event>> send() throws IOException {
+        var future = mockKafka.getKafkaSender().send(event);
+        mockKafka.sent();
+        return future;
+    }
+}
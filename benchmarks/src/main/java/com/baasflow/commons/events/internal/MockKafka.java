@@ -0,0 +1,126 @@
+/*
+ * Licensed to BaaSFlow Corporation "BaaSFlow" under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  BaaSFlow licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this  file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.baasFlow.com/licenses/Apache_LICENSE-2.0
+ * or the root of this project.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baasflow.commons.events.internal;
+
+import com.baasflow.commons.events.Event;
+import com.baasflow.commons.events.EventType;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.mock.MockProducerFactory;
+
+import java.time.Duration;
+import java.util.HashMap;
+
+/**
+ * A {@link KafkaSender} wired the way {@code KafkaSetup} does it, but on top of Kafka's {@link MockProducer} with the
+ * built-in serializer, so that the benchmarks measure the library instead of a broker or a schema registry.
+ */
+public class MockKafka {
+    public static final String TOPIC = "events";
+
+    /**
+     * MockProducer keeps every record it was sent; it is cleared after this many sends to keep the heap flat.
+     */
+    private static final int CLEAR_INTERVAL = 10_000;
+
+    private final MockProducer<String, Event> producer = new SharedMockProducer();
+    private final KafkaSender kafkaSender = new KafkaSender();
+    private final EventSampler eventSampler = new EventSampler();
+    private int sends;
+
+    public MockKafka() {
+        this(false);
+    }
+
+    /**
+     * @param transactional whether the channels use a transactional producer, as with {@code kafka.transaction-id-prefix}
+     */
+    public MockKafka(boolean transactional) {
+        KafkaTemplate<String, Event> kafkaTemplate;
+        if (transactional) {
+            producer.initTransactions();
+            kafkaTemplate = new KafkaTemplate<>(new MockProducerFactory<>((transactionCapable, transactionIdPrefix) -> producer, "benchmark-"));
+            kafkaTemplate.setAllowNonTransactional(true);
+        } else {
+            kafkaTemplate = new KafkaTemplate<>(new MockProducerFactory<>(() -> producer));
+        }
+        var channels = new HashMap<String, EventsConfigProperties.Event>();
+        for (EventType eventType : EventType.values()) {
+            var channel = new EventsConfigProperties.Event();
+            channel.setTopic(TOPIC);
+            channel.getKafka().setKafkaTemplate(kafkaTemplate);
+            channels.put(eventType.name(), channel);
+        }
+        var properties = new EventsConfigProperties();
+        properties.setChannels(channels);
+
+        var eventSpool = new EventSpool();
+        eventSpool.eventsConfigProperties = properties;
+
+        kafkaSender.eventsConfigProperties = properties;
+        kafkaSender.eventSpool = eventSpool;
+        kafkaSender.eventMetrics = new EventMetrics();
+        kafkaSender.kafkaHealthIndicator = new KafkaHealthIndicator();
+        kafkaSender.kafkaHealthIndicator.eventsConfigProperties = properties;
+        kafkaSender.init();
+
+        eventSampler.eventsConfigProperties = properties;
+        eventSampler.kafkaSender = kafkaSender;
+        eventSampler.eventBuilder = new EventBuilder();
+        eventSampler.init();
+    }
+
+    public KafkaSender getKafkaSender() {
+        return kafkaSender;
+    }
+
+    public EventSampler getEventSampler() {
+        return eventSampler;
+    }
+
+    /**
+     * To be called after every send of a benchmark method.
+     */
+    public void sent() {
+        if (++sends % CLEAR_INTERVAL == 0) {
+            producer.clear();
+        }
+    }
+
+    /**
+     * KafkaTemplate closes non-transactional producers after every send, relying on the producer factory to hand out
+     * close-safe producers the way {@code DefaultKafkaProducerFactory} does.
+     */
+    private static class SharedMockProducer extends MockProducer<String, Event> {
+        SharedMockProducer() {
+            super(true, new StringSerializer(), new EventAvroSerializer(topic -> EventAvroSerializer.confluentHeader(1)));
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public void close(Duration timeout) {
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Licensed to BaaSFlow Corporation "BaaSFlow" under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  BaaSFlow licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this  file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.baasFlow.com/licenses/Apache_LICENSE-2.0
+ * or the root of this project.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baasflow.commons.audit.method;
+
+import com.baasflow.commons.events.EventLogLevel;
+import com.baasflow.commons.events.EventType;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Publishes an audit event for every call of the annotated method of a Spring bean, e.g. a scheduled job, a
+ * {@code @KafkaListener} handler or a service method; enabled with {@link EnableAuditedMethods}. Parameters annotated
+ * with {@link com.baasflow.commons.audit.rest.Audit} become correlation ids, as do the
+ * {@link com.baasflow.commons.audit.rest.ICorrelationDataProvider#correlationParams()} of the result.
+ * <p>
+ * Not to be combined with {@link com.baasflow.commons.audit.rest.AuditSecurityEvent} on the same method, which would
+ * publish the call twice.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Audited {
+
+    /**
+     * The {@code event} of the audit event, {@code SimpleClassName.methodName} if not given.
+     */
+    String operationId() default "";
+
+    /**
+     * Defaults to {@code app.audit.logging.module-name}.
+     */
+    String sourceModule() default "";
+
+    String domains() default "";
+
+    EventType eventType() default EventType.audit;
+
+    EventLogLevel eventLogLevel() default EventLogLevel.INFO;
+}
@@ -0,0 +1,158 @@
+/*
+ * Licensed to BaaSFlow Corporation "BaaSFlow" under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  BaaSFlow licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this  file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.baasFlow.com/licenses/Apache_LICENSE-2.0
+ * or the root of this project.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baasflow.commons.audit.method;
+
+import com.baasflow.commons.audit.rest.AuditEventPublisher;
+import com.baasflow.commons.audit.rest.AuditEventPublisher.SecurityEventType;
+import com.baasflow.commons.audit.rest.ICorrelationDataProvider;
+import com.baasflow.commons.events.EventStatus;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.slf4j.MDC;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.util.ClassUtils;
+
+import javax.annotation.Nullable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+
+import static com.baasflow.commons.audit.rest.interceptor.AuditSecurityEventMapper.UNKNOWN;
+import static com.baasflow.commons.audit.rest.interceptor.AuditSecurityInterceptor.REQUEST_X_TRACKING_ID;
+import static com.baasflow.commons.audit.rest.interceptor.AuditSecurityInterceptor.TENANT_ID;
+
+/**
+ * Publishes the audit events of {@link Audited} methods through {@link AuditEventPublisher}. Everything the event needs
+ * is taken from the call itself and the MDC of the calling thread, so no request scope is involved. Methods returning a
+ * {@link CompletionStage}, or a {@code Mono} or {@code Flux} with Reactor on the classpath, are audited once their
+ * result completes; the calling thread never waits for it.
+ */
+@Slf4j
+@Aspect
+@RequiredArgsConstructor
+public class AuditedMethodAspect {
+
+    static final String ERROR = "error";
+    private static final boolean REACTOR_PRESENT = ClassUtils.isPresent("reactor.core.publisher.Mono", AuditedMethodAspect.class.getClassLoader());
+
+    private final String defaultSourceModule;
+    private final AuditEventPublisher auditEventPublisher;
+
+    @Around("@annotation(com.baasflow.commons.audit.method.Audited)")
+    public Object handleAuditedMethodCall(final ProceedingJoinPoint joinPoint) throws Throwable {
+        if (!(joinPoint.getSignature() instanceof final MethodSignature methodSignature)) {
+            return joinPoint.proceed();
+        }
+        var descriptor = AuditedMethodDescriptor.of(methodSignature.getMethod());
+        if (!descriptor.isAudited() && null != joinPoint.getTarget()) {
+            // a JDK proxy exposes the interface method, the annotation is on the implementation
+            descriptor = AuditedMethodDescriptor.of(AopUtils.getMostSpecificMethod(methodSignature.getMethod(), AopUtils.getTargetClass(joinPoint.getTarget())));
+        }
+        if (!descriptor.isAudited()) {
+            return joinPoint.proceed();
+        }
+
+        final var args = joinPoint.getArgs();
+        final var params = new HashMap<String, String>();
+        final var previousMdc = descriptor.isAddingToMDC() ? MDC.getCopyOfContextMap() : null;
+        for (int i = 0; i < descriptor.getParamCount(); i++) {
+            final var arg = args[descriptor.getParamIndex(i)];
+            if (null == arg) {
+                continue;
+            }
+            final var value = String.valueOf(arg);
+            params.put(descriptor.getParamName(i), value);
+            if (descriptor.isParamAddToMDC(i)) {
+                MDC.put(descriptor.getParamName(i), value);
+            }
+        }
+        final var mdc = MDC.getCopyOfContextMap();
+
+        final Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (final Throwable e) {
+            publish(descriptor, params, mdc, null, e);
+            throw e;
+        } finally {
+            if (descriptor.isAddingToMDC()) {
+                restoreMDC(previousMdc);
+            }
+        }
+
+        final var audited = descriptor;
+        if (result instanceof final CompletionStage<?> stage) {
+            stage.whenComplete((value, e) -> publish(audited, params, mdc, value, e));
+            return result;
+        }
+        if (REACTOR_PRESENT && ReactiveAuditedResults.isReactive(result)) {
+            return ReactiveAuditedResults.onCompletion(result, (value, e) -> publish(audited, params, mdc, value, e));
+        }
+        publish(descriptor, params, mdc, result, null);
+        return result;
+    }
+
+    private void publish(final AuditedMethodDescriptor descriptor, final Map<String, String> methodParams,
+                         @Nullable final Map<String, String> mdc, @Nullable final Object result, @Nullable final Throwable failure) {
+        final var params = new HashMap<>(methodParams);
+        final var trackingId = null == mdc ? null : mdc.get(REQUEST_X_TRACKING_ID);
+        if (null != trackingId) {
+            params.put(REQUEST_X_TRACKING_ID, trackingId);
+        }
+        if (result instanceof final ICorrelationDataProvider correlationDataProvider && null != correlationDataProvider.correlationParams()) {
+            correlationDataProvider.correlationParams().forEach((key, value) -> {
+                if (null != value) {
+                    params.put(key, value);
+                }
+            });
+        }
+        if (null != failure) {
+            final var cause = failure instanceof CompletionException && null != failure.getCause() ? failure.getCause() : failure;
+            params.put(ERROR, cause.getClass().getName());
+        }
+
+        final var securityEventType = new SecurityEventType()
+                .setTenantId(StringUtils.defaultIfBlank(null == mdc ? null : mdc.get(TENANT_ID), UNKNOWN))
+                .setOperationId(descriptor.getOperationId())
+                .setDomains(StringUtils.defaultIfBlank(descriptor.getDomains(), UNKNOWN))
+                .setEventType(descriptor.getEventType())
+                .setSourceModule(StringUtils.firstNonBlank(descriptor.getSourceModule(), defaultSourceModule, UNKNOWN))
+                .setEventLogLevel(descriptor.getEventLogLevel())
+                .setEventStatus(null == failure ? EventStatus.success : EventStatus.failure)
+                .setParams(params);
+        log.trace("audited call of {}: {}", descriptor.getOperationId(), securityEventType);
+        auditEventPublisher.publish(securityEventType, mdc);
+    }
+
+    private static void restoreMDC(@Nullable final Map<String, String> previousMdc) {
+        if (null == previousMdc) {
+            MDC.clear();
+        } else {
+            MDC.setContextMap(previousMdc);
+        }
+    }
+}
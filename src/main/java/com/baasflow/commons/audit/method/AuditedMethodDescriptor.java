@@ -0,0 +1,150 @@
+/*
+ * Licensed to BaaSFlow Corporation "BaaSFlow" under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  BaaSFlow licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this  file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.baasFlow.com/licenses/Apache_LICENSE-2.0
+ * or the root of this project.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baasflow.commons.audit.method;
+
+import com.baasflow.commons.audit.rest.Audit;
+import com.baasflow.commons.events.EventLogLevel;
+import com.baasflow.commons.events.EventType;
+import lombok.AccessLevel;
+import lombok.Getter;
+import org.apache.commons.lang3.StringUtils;
+
+import javax.annotation.CheckForNull;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The {@link Audited} metadata of a method, resolved once per method, the counterpart of
+ * {@link com.baasflow.commons.audit.rest.interceptor.AuditHandlerDescriptor} for non-REST methods.
+ */
+@Getter
+public final class AuditedMethodDescriptor {
+
+    private static final AuditedMethodDescriptor NOT_AUDITED = new AuditedMethodDescriptor();
+    private static final Map<Method, AuditedMethodDescriptor> CACHE = new ConcurrentHashMap<>();
+
+    private final boolean audited;
+    @CheckForNull
+    private final String operationId;
+    @CheckForNull
+    private final String sourceModule;
+    @CheckForNull
+    private final String domains;
+    @CheckForNull
+    private final EventType eventType;
+    @CheckForNull
+    private final EventLogLevel eventLogLevel;
+    /**
+     * Indices of the method parameters annotated with {@link Audit}.
+     */
+    @Getter(AccessLevel.NONE)
+    private final int[] paramIndices;
+    /**
+     * Audit parameter names, in the order of {@link #paramIndices}.
+     */
+    @Getter(AccessLevel.NONE)
+    private final String[] paramNames;
+    /**
+     * {@link Audit#addToMDC()} flags, in the order of {@link #paramIndices}.
+     */
+    @Getter(AccessLevel.NONE)
+    private final boolean[] paramAddToMDC;
+    /**
+     * Whether any parameter is {@link Audit#addToMDC() added to the MDC}.
+     */
+    private final boolean addingToMDC;
+
+    private AuditedMethodDescriptor() {
+        this.audited = false;
+        this.operationId = null;
+        this.sourceModule = null;
+        this.domains = null;
+        this.eventType = null;
+        this.eventLogLevel = null;
+        this.paramIndices = new int[0];
+        this.paramNames = new String[0];
+        this.paramAddToMDC = new boolean[0];
+        this.addingToMDC = false;
+    }
+
+    private AuditedMethodDescriptor(final Method method, final Audited audited) {
+        this.audited = true;
+        this.operationId = StringUtils.defaultIfBlank(audited.operationId(), method.getDeclaringClass().getSimpleName() + "." + method.getName());
+        this.sourceModule = StringUtils.trimToNull(audited.sourceModule());
+        this.domains = StringUtils.trimToNull(audited.domains());
+        this.eventType = audited.eventType();
+        this.eventLogLevel = audited.eventLogLevel();
+
+        final var parameters = method.getParameters();
+        final List<Integer> indices = new ArrayList<>();
+        for (int index = 0; index < parameters.length; index++) {
+            if (null != parameters[index].getAnnotation(Audit.class)) {
+                indices.add(index);
+            }
+        }
+        this.paramIndices = indices.stream().mapToInt(Integer::intValue).toArray();
+        this.paramNames = new String[paramIndices.length];
+        this.paramAddToMDC = new boolean[paramIndices.length];
+        var anyAddToMDC = false;
+        for (int i = 0; i < paramIndices.length; i++) {
+            final var parameter = parameters[paramIndices[i]];
+            final var audit = parameter.getAnnotation(Audit.class);
+            this.paramNames[i] = StringUtils.defaultIfBlank(audit.value(), parameter.getName());
+            this.paramAddToMDC[i] = audit.addToMDC();
+            anyAddToMDC |= audit.addToMDC();
+        }
+        this.addingToMDC = anyAddToMDC;
+    }
+
+    /**
+     * Returns the cached descriptor of the method, resolving it on first use.
+     *
+     * @param method the invoked method
+     * @return the descriptor, not {@link #isAudited() audited} if the method has no {@link Audited} annotation
+     */
+    public static AuditedMethodDescriptor of(final Method method) {
+        return CACHE.computeIfAbsent(method, AuditedMethodDescriptor::resolve);
+    }
+
+    private static AuditedMethodDescriptor resolve(final Method method) {
+        final var audited = method.getAnnotation(Audited.class);
+        return null == audited ? NOT_AUDITED : new AuditedMethodDescriptor(method, audited);
+    }
+
+    public int getParamCount() {
+        return paramIndices.length;
+    }
+
+    public int getParamIndex(final int i) {
+        return paramIndices[i];
+    }
+
+    public String getParamName(final int i) {
+        return paramNames[i];
+    }
+
+    public boolean isParamAddToMDC(final int i) {
+        return paramAddToMDC[i];
+    }
+}
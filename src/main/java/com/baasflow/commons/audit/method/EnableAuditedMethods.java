@@ -0,0 +1,40 @@
+/*
+ * Licensed to BaaSFlow Corporation "BaaSFlow" under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  BaaSFlow licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this  file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.baasFlow.com/licenses/Apache_LICENSE-2.0
+ * or the root of this project.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baasflow.commons.audit.method;
+
+import com.baasflow.commons.audit.rest.AuditEventPublisherConfig;
+import org.springframework.context.annotation.Import;
+
+import java.lang.annotation.*;
+
+/**
+ * Annotation to enable auditing the calls of {@link Audited} methods.
+ * <p>
+ * Usage: Add this annotation to any @Configuration annotated class. It can be combined with
+ * {@link com.baasflow.commons.audit.rest.EnableAuditEvent}, and needs neither a web application nor a request scope.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+@Documented
+@Import({AuditedMethodConfig.class, AuditEventPublisherConfig.class})
+public @interface EnableAuditedMethods {
+
+}
@@ -0,0 +1,57 @@
+/*
+ * Licensed to BaaSFlow Corporation "BaaSFlow" under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  BaaSFlow licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this  file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.baasFlow.com/licenses/Apache_LICENSE-2.0
+ * or the root of this project.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baasflow.commons.audit.method;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.function.BiConsumer;
+
+/**
+ * Reactor support of {@link AuditedMethodAspect}, only loaded when Reactor is on the classpath.
+ */
+final class ReactiveAuditedResults {
+
+    private ReactiveAuditedResults() {
+    }
+
+    static boolean isReactive(final Object result) {
+        return result instanceof Mono || result instanceof Flux;
+    }
+
+    /**
+     * @param result     a {@link Mono} or {@link Flux}
+     * @param completion called with the value of a Mono, or with the error, when the result completes; not called when
+     *                   the subscription is cancelled
+     * @return the result with the completion callback attached
+     */
+    @SuppressWarnings("unchecked")
+    static Object onCompletion(final Object result, final BiConsumer<Object, Throwable> completion) {
+        if (result instanceof Mono) {
+            return ((Mono<Object>) result)
+                    .doOnSuccess(value -> completion.accept(value, null))
+                    .doOnError(e -> completion.accept(null, e));
+        }
+        return ((Flux<Object>) result)
+                .doOnComplete(() -> completion.accept(null, null))
+                .doOnError(e -> completion.accept(null, e));
+    }
+}
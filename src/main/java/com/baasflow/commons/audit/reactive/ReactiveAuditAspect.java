@@ -0,0 +1,99 @@
+/*
+ * Licensed to BaaSFlow Corporation "BaaSFlow" under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  BaaSFlow licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this  file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.baasFlow.com/licenses/Apache_LICENSE-2.0
+ * or the root of this project.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baasflow.commons.audit.reactive;
+
+import com.baasflow.commons.audit.rest.interceptor.AuditHandlerDescriptor;
+import com.baasflow.commons.audit.rest.interceptor.AuditSecurityEventMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Collects the method parameters and the result of {@link com.baasflow.commons.audit.rest.AuditSecurityEvent}
+ * handlers returning a {@link Mono} or {@link Flux} into the {@link ReactiveAuditContext} of the subscribing
+ * exchange. Nothing runs before the result is subscribed, so the handler never blocks.
+ */
+@Slf4j
+@Aspect
+@RequiredArgsConstructor
+public class ReactiveAuditAspect {
+
+    private final AuditSecurityEventMapper mapper;
+
+    @Around("@annotation(com.baasflow.commons.audit.rest.AuditSecurityEvent)")
+    @SuppressWarnings("unchecked")
+    public Object handleAnnotatedMethodCall(final ProceedingJoinPoint joinPoint) throws Throwable {
+        final var result = joinPoint.proceed();
+        if (!(joinPoint.getSignature() instanceof final MethodSignature methodSignature)) {
+            return result;
+        }
+
+        final var descriptor = AuditHandlerDescriptor.of(methodSignature.getMethod());
+        final var args = joinPoint.getArgs();
+        if (result instanceof Mono) {
+            final var mono = (Mono<Object>) result;
+            return Mono.deferContextual(contextView -> {
+                final var audit = ReactiveAuditContext.from(contextView);
+                if (null == audit) {
+                    return mono;
+                }
+                populate(audit, descriptor, args);
+                return mono
+                        .doOnSuccess(value -> audit.getContext().collectCorrelationIDsFromResult(value))
+                        .doOnError(e -> audit.getContext().extractProblemDetail(e));
+            });
+        }
+        if (result instanceof Flux) {
+            final var flux = (Flux<Object>) result;
+            return Flux.deferContextual(contextView -> {
+                final var audit = ReactiveAuditContext.from(contextView);
+                if (null == audit) {
+                    return flux;
+                }
+                populate(audit, descriptor, args);
+                return flux
+                        .doOnComplete(() -> audit.getContext().setPostHandled(true))
+                        .doOnError(e -> audit.getContext().extractProblemDetail(e));
+            });
+        }
+        log.trace("not a reactive result, audited from the handler metadata only: {}", methodSignature);
+        return result;
+    }
+
+    private void populate(final ReactiveAuditContext audit, final AuditHandlerDescriptor descriptor, final Object[] args) {
+        audit.setDescriptor(descriptor);
+        final var context = audit.getContext();
+        mapper.toAuditSecurityEventContext(descriptor, context);
+        for (int i = 0; i < descriptor.getParamCount(); i++) {
+            final var auditParamName = descriptor.getParamName(i);
+            final var value = String.valueOf(args[descriptor.getParamIndex(i)]);
+            context.appendParamIfValueIsNotNull(auditParamName, value);
+            if (descriptor.isParamAddToMDC(i)) {
+                audit.getMdc().put(auditParamName, value);
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Licensed to BaaSFlow Corporation "BaaSFlow" under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  BaaSFlow licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this  file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.baasFlow.com/licenses/Apache_LICENSE-2.0
+ * or the root of this project.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baasflow.commons.audit.reactive;
+
+import com.baasflow.commons.audit.rest.AuditEventPublisher;
+import com.baasflow.commons.audit.rest.interceptor.AuditSecurityEventMapper;
+import jakarta.annotation.Nullable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class ReactiveAuditConfig {
+
+    @Bean
+    public ReactiveAuditWebFilter reactiveAuditWebFilter(@Value("${app.audit.logging.module-name:}") final String defaultSourceModule,
+                                                         @Nullable @Value("${app.audit.logging.http-header-name:#{null}}") final String auditHttpHeaderName,
+                                                         @Value("${app.tenant.http-header-name:X-baasflow-tenant-id}") final String tenantHttpHeaderName,
+                                                         final AuditEventPublisher auditEventPublisher,
+                                                         final AuditSecurityEventMapper mapper) {
+        return new ReactiveAuditWebFilter(defaultSourceModule, auditHttpHeaderName, tenantHttpHeaderName, auditEventPublisher, mapper);
+    }
+
+    @Bean
+    public ReactiveAuditAspect reactiveAuditAspect(final AuditSecurityEventMapper mapper) {
+        return new ReactiveAuditAspect(mapper);
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Licensed to BaaSFlow Corporation "BaaSFlow" under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  BaaSFlow licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this  file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.baasFlow.com/licenses/Apache_LICENSE-2.0
+ * or the root of this project.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baasflow.commons.audit.reactive;
+
+import com.baasflow.commons.audit.rest.interceptor.AuditHandlerDescriptor;
+import com.baasflow.commons.audit.rest.interceptor.AuditSecurityEventContext;
+import lombok.Getter;
+import reactor.core.publisher.Mono;
+import reactor.util.context.ContextView;
+
+import javax.annotation.CheckForNull;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Audit state of a single reactive exchange, carried in the Reactor {@link reactor.util.context.Context} under
+ * {@link #KEY} by {@link ReactiveAuditWebFilter}. It takes the place of the request scoped
+ * {@link AuditSecurityEventContext} and of the MDC of the servlet stack.
+ */
+@Getter
+public class ReactiveAuditContext {
+
+    public static final String KEY = ReactiveAuditContext.class.getName();
+
+    private final AuditSecurityEventContext context;
+    /**
+     * Tracking ids and {@code @Audit(addToMDC = true)} parameters, the MDC of the exchange.
+     */
+    private final Map<String, String> mdc = new ConcurrentHashMap<>();
+    @CheckForNull
+    private volatile AuditHandlerDescriptor descriptor;
+
+    public ReactiveAuditContext(final String defaultSourceModule) {
+        this.context = new AuditSecurityEventContext(defaultSourceModule);
+    }
+
+    void setDescriptor(final AuditHandlerDescriptor descriptor) {
+        this.descriptor = descriptor;
+    }
+
+    public boolean isAudited() {
+        final var descriptor = this.descriptor;
+        return null != descriptor && descriptor.isAudited();
+    }
+
+    @CheckForNull
+    public static ReactiveAuditContext from(final ContextView contextView) {
+        return contextView.getOrDefault(KEY, null);
+    }
+
+    /**
+     * @return the MDC entries of the current exchange, empty outside an audited exchange
+     */
+    public static Mono<Map<String, String>> currentMdc() {
+        return Mono.deferContextual(contextView -> Mono.justOrEmpty(from(contextView)).map(ReactiveAuditContext::getMdc));
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Licensed to BaaSFlow Corporation "BaaSFlow" under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  BaaSFlow licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this  file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.baasFlow.com/licenses/Apache_LICENSE-2.0
+ * or the root of this project.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baasflow.commons.audit.reactive;
+
+import com.baasflow.commons.audit.rest.AuditEventPublisher;
+import com.baasflow.commons.audit.rest.interceptor.AuditHandlerDescriptor;
+import com.baasflow.commons.audit.rest.interceptor.AuditSecurityEventMapper;
+import jakarta.annotation.Nullable;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.HashMap;
+import java.util.UUID;
+
+import static com.baasflow.commons.audit.rest.interceptor.AuditSecurityInterceptor.REQUEST_SESSION_ID;
+import static com.baasflow.commons.audit.rest.interceptor.AuditSecurityInterceptor.REQUEST_X_TRACKING_ID;
+import static com.baasflow.commons.audit.rest.interceptor.AuditSecurityInterceptor.TENANT_ID;
+import static com.baasflow.commons.audit.rest.interceptor.AuditSecurityInterceptor.X_TRACKING_ID;
+
+/**
+ * The reactive counterpart of {@link com.baasflow.commons.audit.rest.interceptor.AuditSecurityInterceptor}. It puts
+ * a {@link ReactiveAuditContext} into the Reactor context of the exchange, and once the exchange completes publishes
+ * the audit event if the handler was annotated with {@link com.baasflow.commons.audit.rest.AuditSecurityEvent}.
+ * Method parameters and results of handlers returning a {@link Mono} or {@link reactor.core.publisher.Flux} are
+ * collected by {@link ReactiveAuditAspect}.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class ReactiveAuditWebFilter implements WebFilter, Ordered {
+
+    private final String defaultSourceModule;
+    @Nullable
+    private final String auditHttpHeaderName;
+    @Nullable
+    private final String tenantHttpHeaderName;
+    private final AuditEventPublisher auditEventPublisher;
+    private final AuditSecurityEventMapper mapper;
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+
+    @Override
+    public Mono<Void> filter(final ServerWebExchange exchange, final WebFilterChain chain) {
+        final var audit = new ReactiveAuditContext(defaultSourceModule);
+        return chain.filter(exchange)
+                .doOnError(e -> audit.getContext().extractProblemDetail(e))
+                .doFinally(signal -> afterCompletion(exchange, audit, signal))
+                .contextWrite(context -> context.put(ReactiveAuditContext.KEY, audit));
+    }
+
+    private void afterCompletion(final ServerWebExchange exchange, final ReactiveAuditContext audit, final SignalType signal) {
+        if (!audit.isAudited()) {
+            // handlers not returning a Mono or Flux are not seen by the aspect
+            final var handler = exchange.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE);
+            if (handler instanceof final HandlerMethod handlerMethod) {
+                audit.setDescriptor(AuditHandlerDescriptor.of(handlerMethod.getMethod()));
+            }
+            if (!audit.isAudited()) {
+                return;
+            }
+        }
+        final var descriptor = audit.getDescriptor();
+
+        final var context = audit.getContext();
+        if (null == context.getOperationId()) {
+            mapper.toAuditSecurityEventContext(descriptor, context);
+        }
+        final var headers = exchange.getRequest().getHeaders();
+        initializeAuditIDs(headers, audit);
+        for (final var headerName : descriptor.getHeaderNames()) {
+            context.appendParamIfValueIsNotNull(headerName, headers.getFirst(headerName));
+        }
+
+        final var statusCode = exchange.getResponse().getStatusCode();
+        if (null != context.getProblemDetail()) {
+            context.setSuccess(false);
+        } else if (SignalType.ON_ERROR == signal) {
+            // the error is turned into a response by the WebExceptionHandlers after this filter
+            context.setStatusCode(HttpStatus.INTERNAL_SERVER_ERROR.value());
+            context.setSuccess(false);
+        } else {
+            if (null != statusCode) {
+                context.setStatusCode(statusCode.value());
+            }
+            context.setSuccess(SignalType.ON_COMPLETE == signal && (null == statusCode || !statusCode.isError()));
+        }
+
+        final var securityEventType = new AuditEventPublisher.SecurityEventType();
+        mapper.toSecurityEventType(context, securityEventType);
+        auditEventPublisher.publish(securityEventType, new HashMap<>(audit.getMdc()));
+    }
+
+    private void initializeAuditIDs(final HttpHeaders headers, final ReactiveAuditContext audit) {
+        final var context = audit.getContext();
+        var trackingId = headers.getFirst(X_TRACKING_ID);
+        if (null == trackingId && null != auditHttpHeaderName) {
+            trackingId = headers.getFirst(auditHttpHeaderName);
+        }
+        if (null == trackingId) {
+            trackingId = headers.getFirst("postman-token");
+        }
+        if (null == trackingId) {
+            trackingId = UUID.randomUUID().toString();
+        }
+        audit.getMdc().put(REQUEST_X_TRACKING_ID, trackingId);
+        context.appendParamIfValueIsNotNull(REQUEST_X_TRACKING_ID, trackingId);
+
+        if (null != auditHttpHeaderName) {
+            final var sessionId = headers.getFirst(auditHttpHeaderName);
+            if (null != sessionId) {
+                audit.getMdc().put(REQUEST_SESSION_ID, sessionId);
+                context.appendParamIfValueIsNotNull(REQUEST_SESSION_ID, sessionId);
+            }
+        }
+
+        if (null != tenantHttpHeaderName) {
+            final var tenantId = headers.getFirst(tenantHttpHeaderName);
+            context.setTenant(null == tenantId ? "default" : tenantId);
+            audit.getMdc().put(TENANT_ID, context.getTenant());
+        }
+    }
+}
@@ -23,6 +23,7 @@ package com.baasflow.commons.audit.rest;
 import com.baasflow.commons.events.EventLogLevel;
 import com.baasflow.commons.events.EventStatus;
 import com.baasflow.commons.events.EventType;
+import jakarta.annotation.Nullable;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.RequiredArgsConstructor;
@@ -30,7 +31,6 @@ import lombok.experimental.Accessors;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.MDC;
 import org.springframework.context.ApplicationEventPublisher;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
 
 import java.util.HashMap;
@@ -42,12 +42,22 @@ import java.util.Map;
 public class AuditEventPublisher {
 
     private final ApplicationEventPublisher applicationEventPublisher;
+    private final AuditEventPublisherExecutor auditEventPublisherExecutor;
 
-    @Async
-    public void publish(final SecurityEventType securityEventType, final Map<String, String> mdcContextMap) {
-        MDC.setContextMap(mdcContextMap);
-        log.info("Publishing security event: {}", securityEventType);
-        applicationEventPublisher.publishEvent(securityEventType);
+    /**
+     * Publishes the event on the audit publisher executor, see {@link AuditEventPublisherConfig}.
+     *
+     * @param securityEventType the event to publish
+     * @param mdcContextMap     the MDC to publish the event with, the executor restores its own MDC afterwards
+     */
+    public void publish(final SecurityEventType securityEventType, @Nullable final Map<String, String> mdcContextMap) {
+        auditEventPublisherExecutor.execute(() -> {
+            if (null != mdcContextMap) {
+                MDC.setContextMap(mdcContextMap);
+            }
+            log.info("Publishing security event: {}", securityEventType);
+            applicationEventPublisher.publishEvent(securityEventType);
+        });
     }
 
     @Data
@@ -0,0 +1,131 @@
+/*
+ * Licensed to BaaSFlow Corporation "BaaSFlow" under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  BaaSFlow licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this  file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.baasFlow.com/licenses/Apache_LICENSE-2.0
+ * or the root of this project.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baasflow.commons.audit.rest;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * The executor {@link AuditEventPublisher} publishes on, owned by the starter instead of the host application's
+ * {@code @Async} executor. Its queue is bounded by {@code app.audit.publisher.queue-capacity}; what happens to events
+ * beyond that is selected by {@code app.audit.publisher.rejection-policy}. The bean is an
+ * {@link AuditEventPublisherExecutor}, not an {@link java.util.concurrent.Executor}, so the host application keeps its own.
+ */
+@Slf4j
+@Configuration
+public class AuditEventPublisherConfig {
+
+    public static final String EXECUTOR_NAME = "auditEventPublisherExecutor";
+
+    /**
+     * What to do with an audit event when the publisher queue is full.
+     */
+    public enum RejectionPolicy {
+        /**
+         * Publish on the submitting thread, slowing the request down instead of losing the event.
+         */
+        CALLER_RUNS,
+        /**
+         * Drop the event.
+         */
+        DISCARD,
+        /**
+         * Drop the oldest queued event.
+         */
+        DISCARD_OLDEST,
+        /**
+         * Throw a {@link java.util.concurrent.RejectedExecutionException} to the submitting thread.
+         */
+        ABORT
+    }
+
+    @Bean(name = EXECUTOR_NAME)
+    public AuditEventPublisherExecutor auditEventPublisherExecutor(@Value("${app.audit.publisher.core-pool-size:2}") final int corePoolSize,
+                                                                   @Value("${app.audit.publisher.max-pool-size:4}") final int maxPoolSize,
+                                                                   @Value("${app.audit.publisher.queue-capacity:1000}") final int queueCapacity,
+                                                                   @Value("${app.audit.publisher.rejection-policy:CALLER_RUNS}") final RejectionPolicy rejectionPolicy,
+                                                                   @Value("${app.audit.publisher.virtual-threads:false}") final boolean virtualThreads,
+                                                                   final ObjectProvider<MeterRegistry> meterRegistry) {
+        final var registry = meterRegistry.getIfAvailable();
+        final var executor = new ThreadPoolTaskExecutor();
+        executor.setBeanName(EXECUTOR_NAME);
+        executor.setThreadNamePrefix("baasflow-audit-");
+        executor.setCorePoolSize(corePoolSize);
+        executor.setMaxPoolSize(Math.max(corePoolSize, maxPoolSize));
+        executor.setQueueCapacity(queueCapacity);
+        executor.setRejectedExecutionHandler(rejectedExecutionHandler(rejectionPolicy, registry));
+        executor.setTaskDecorator(new AuditTaskDecorator(registry, EXECUTOR_NAME));
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        if (virtualThreads) {
+            // throws UnsupportedOperationException before Java 21
+            executor.setThreadFactory(new VirtualThreadTaskExecutor("baasflow-audit-").getVirtualThreadFactory());
+        }
+        executor.initialize();
+
+        if (null != registry) {
+            Gauge.builder("baasflow.audit.publisher.queue.size", executor, e -> e.getThreadPoolExecutor().getQueue().size())
+                    .description("Audit events waiting to be published")
+                    .tag("executor", EXECUTOR_NAME)
+                    .register(registry);
+            Gauge.builder("baasflow.audit.publisher.active", executor, ThreadPoolTaskExecutor::getActiveCount)
+                    .description("Audit events being published")
+                    .tag("executor", EXECUTOR_NAME)
+                    .register(registry);
+        }
+        log.info("audit event publisher: {}-{} {} threads, queue capacity {}, {} when full", corePoolSize, executor.getMaxPoolSize(),
+                virtualThreads ? "virtual" : "platform", queueCapacity, rejectionPolicy);
+        return new AuditEventPublisherExecutor(executor);
+    }
+
+    private static RejectedExecutionHandler rejectedExecutionHandler(final RejectionPolicy rejectionPolicy, final MeterRegistry registry) {
+        final RejectedExecutionHandler delegate = switch (rejectionPolicy) {
+            case CALLER_RUNS -> new ThreadPoolExecutor.CallerRunsPolicy();
+            case DISCARD -> new ThreadPoolExecutor.DiscardPolicy();
+            case DISCARD_OLDEST -> new ThreadPoolExecutor.DiscardOldestPolicy();
+            case ABORT -> new ThreadPoolExecutor.AbortPolicy();
+        };
+        final var rejected = null == registry ? null : Counter.builder("baasflow.audit.publisher.rejected")
+                .description("Audit events that found the publisher queue full")
+                .tags("executor", EXECUTOR_NAME, "policy", rejectionPolicy.name())
+                .register(registry);
+        return (runnable, executor) -> {
+            if (null != rejected) {
+                rejected.increment();
+            }
+            if (RejectionPolicy.DISCARD == rejectionPolicy || RejectionPolicy.DISCARD_OLDEST == rejectionPolicy) {
+                log.warn("audit publisher queue is full, an audit event is dropped");
+            }
+            delegate.rejectedExecution(runnable, executor);
+        };
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Licensed to BaaSFlow Corporation "BaaSFlow" under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  BaaSFlow licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this  file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.baasFlow.com/licenses/Apache_LICENSE-2.0
+ * or the root of this project.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baasflow.commons.audit.rest;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Owns the thread pool {@link AuditEventPublisher} publishes on. It deliberately does not implement
+ * {@link java.util.concurrent.Executor}: as a bean of that type the pool would replace Spring Boot's
+ * {@code applicationTaskExecutor}, and the host application's {@code @Async} methods and MVC async requests would run
+ * on the audit threads.
+ */
+public final class AuditEventPublisherExecutor implements DisposableBean {
+
+    private final ThreadPoolTaskExecutor executor;
+
+    AuditEventPublisherExecutor(final ThreadPoolTaskExecutor executor) {
+        this.executor = executor;
+    }
+
+    public void execute(final Runnable task) {
+        executor.execute(task);
+    }
+
+    /**
+     * Waits up to the configured termination timeout for queued audit events to be published.
+     */
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Licensed to BaaSFlow Corporation "BaaSFlow" under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  BaaSFlow licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this  file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.baasFlow.com/licenses/Apache_LICENSE-2.0
+ * or the root of this project.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baasflow.commons.audit.rest;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.Nullable;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.MDC;
+import org.springframework.core.task.TaskDecorator;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs audit publishing tasks with the MDC of the submitting thread and restores the MDC of the worker thread
+ * afterwards, so pooled threads do not leak MDC entries between tasks. Records the time from submission to completion
+ * when a meter registry is available.
+ */
+@RequiredArgsConstructor
+class AuditTaskDecorator implements TaskDecorator {
+
+    @Nullable
+    private final Timer latency;
+
+    AuditTaskDecorator(@Nullable final MeterRegistry meterRegistry, final String executorName) {
+        this(null == meterRegistry ? null : Timer.builder("baasflow.audit.publisher.latency")
+                .description("Time from submitting an audit event until it has been published")
+                .tag("executor", executorName)
+                .register(meterRegistry));
+    }
+
+    @Override
+    public Runnable decorate(final Runnable runnable) {
+        final var submitted = System.nanoTime();
+        final var callerMdc = MDC.getCopyOfContextMap();
+        return () -> {
+            final var previousMdc = MDC.getCopyOfContextMap();
+            setContextMap(callerMdc);
+            try {
+                runnable.run();
+            } finally {
+                setContextMap(previousMdc);
+                if (null != latency) {
+                    latency.record(System.nanoTime() - submitted, TimeUnit.NANOSECONDS);
+                }
+            }
+        };
+    }
+
+    private static void setContextMap(@Nullable final Map<String, String> contextMap) {
+        if (null == contextMap) {
+            MDC.clear();
+        } else {
+            MDC.setContextMap(contextMap);
+        }
+    }
+}
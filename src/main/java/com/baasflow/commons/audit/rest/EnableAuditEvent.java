@@ -33,7 +33,7 @@ import java.lang.annotation.*;
 @Retention(RetentionPolicy.RUNTIME)
 @Target(ElementType.TYPE)
 @Documented
-@Import(AuditRestInterceptorConfig.class)
+@Import({AuditRestInterceptorConfig.class, AuditEventPublisherConfig.class})
 public @interface EnableAuditEvent {
 
 }
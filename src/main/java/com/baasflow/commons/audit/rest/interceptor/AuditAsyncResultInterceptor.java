@@ -0,0 +1,65 @@
+/*
+ * Licensed to BaaSFlow Corporation "BaaSFlow" under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  BaaSFlow licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this  file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.baasFlow.com/licenses/Apache_LICENSE-2.0
+ * or the root of this project.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baasflow.commons.audit.rest.interceptor;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.context.request.async.DeferredResultProcessingInterceptor;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Collects the outcome of an audited controller that returned a {@link java.util.concurrent.CompletableFuture},
+ * {@link DeferredResult}, {@link Callable} or {@link org.springframework.web.context.request.async.WebAsyncTask}
+ * when its result is produced, instead of blocking the servlet thread in the around advice. The event itself is
+ * published by {@link AuditSecurityInterceptor#afterCompletion} of the async dispatch.
+ * <p>
+ * Runs on the thread producing the result, where the request scope is not active, so it holds the context target
+ * instead of the request scoped proxy.
+ */
+@Slf4j
+@RequiredArgsConstructor
+class AuditAsyncResultInterceptor implements CallableProcessingInterceptor, DeferredResultProcessingInterceptor {
+
+    private final AuditSecurityEventContext context;
+
+    @Override
+    public <T> void postProcess(final NativeWebRequest request, final Callable<T> task, final Object concurrentResult) {
+        collect(concurrentResult);
+    }
+
+    @Override
+    public <T> void postProcess(final NativeWebRequest request, final DeferredResult<T> deferredResult, final Object concurrentResult) {
+        collect(concurrentResult);
+    }
+
+    private void collect(final Object concurrentResult) {
+        log.trace("async result: {}", concurrentResult);
+        if (concurrentResult instanceof final Throwable e) {
+            context.extractProblemDetail(e);
+        } else {
+            context.collectCorrelationIDsFromResult(concurrentResult);
+        }
+    }
+}
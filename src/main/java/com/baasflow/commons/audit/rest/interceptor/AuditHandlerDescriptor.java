@@ -0,0 +1,160 @@
+/*
+ * Licensed to BaaSFlow Corporation "BaaSFlow" under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  BaaSFlow licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this  file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.baasFlow.com/licenses/Apache_LICENSE-2.0
+ * or the root of this project.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baasflow.commons.audit.rest.interceptor;
+
+import com.baasflow.commons.audit.rest.Audit;
+import com.baasflow.commons.audit.rest.AuditSecurityEvent;
+import com.baasflow.commons.events.EventLogLevel;
+import com.baasflow.commons.events.EventType;
+import io.swagger.v3.oas.annotations.Operation;
+import lombok.AccessLevel;
+import lombok.Getter;
+import org.apache.commons.lang3.ObjectUtils;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import javax.annotation.CheckForNull;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Immutable audit metadata of a handler method, resolved once from its annotations and cached per {@link Method} so
+ * that the request path does not use reflection.
+ */
+@Getter
+public final class AuditHandlerDescriptor {
+
+    private static final AuditHandlerDescriptor NOT_AUDITED = new AuditHandlerDescriptor();
+    private static final Map<Method, AuditHandlerDescriptor> CACHE = new ConcurrentHashMap<>();
+
+    private final boolean audited;
+    @CheckForNull
+    private final String operationId;
+    @CheckForNull
+    private final String sourceModule;
+    @CheckForNull
+    private final String domains;
+    @CheckForNull
+    private final EventType eventType;
+    @CheckForNull
+    private final EventLogLevel eventLogLevel;
+    private final String[] headerNames;
+    /**
+     * Indices of the method parameters annotated with {@link Audit}.
+     */
+    @Getter(AccessLevel.NONE)
+    private final int[] paramIndices;
+    /**
+     * Audit parameter names, in the order of {@link #paramIndices}.
+     */
+    @Getter(AccessLevel.NONE)
+    private final String[] paramNames;
+    /**
+     * {@link Audit#addToMDC()} flags, in the order of {@link #paramIndices}.
+     */
+    @Getter(AccessLevel.NONE)
+    private final boolean[] paramAddToMDC;
+
+    private AuditHandlerDescriptor() {
+        this.audited = false;
+        this.operationId = null;
+        this.sourceModule = null;
+        this.domains = null;
+        this.eventType = null;
+        this.eventLogLevel = null;
+        this.headerNames = new String[0];
+        this.paramIndices = new int[0];
+        this.paramNames = new String[0];
+        this.paramAddToMDC = new boolean[0];
+    }
+
+    private AuditHandlerDescriptor(final Method method, final AuditSecurityEvent auditSecurityEvent) {
+        this.audited = true;
+        this.operationId = AuditSecurityEventMapper.determineOperationId(auditSecurityEvent, method.getAnnotation(Operation.class));
+        this.sourceModule = auditSecurityEvent.sourceModule();
+        this.domains = auditSecurityEvent.domains();
+        this.eventType = auditSecurityEvent.eventType();
+        this.eventLogLevel = auditSecurityEvent.eventLogLevel();
+        this.headerNames = auditSecurityEvent.headerNames();
+
+        final var parameters = method.getParameters();
+        final List<Integer> indices = new ArrayList<>();
+        for (int index = 0; index < parameters.length; index++) {
+            if (null != parameters[index].getAnnotation(Audit.class)) {
+                indices.add(index);
+            }
+        }
+        this.paramIndices = indices.stream().mapToInt(Integer::intValue).toArray();
+        this.paramNames = new String[paramIndices.length];
+        this.paramAddToMDC = new boolean[paramIndices.length];
+        for (int i = 0; i < paramIndices.length; i++) {
+            final var parameter = parameters[paramIndices[i]];
+            this.paramNames[i] = getAuditParamName(parameter);
+            this.paramAddToMDC[i] = parameter.getAnnotation(Audit.class).addToMDC();
+        }
+    }
+
+    /**
+     * Returns the cached descriptor of the method, resolving it on first use.
+     *
+     * @param method the handler method
+     * @return the descriptor, not {@link #isAudited() audited} if the method has no {@link AuditSecurityEvent} annotation
+     */
+    public static AuditHandlerDescriptor of(final Method method) {
+        return CACHE.computeIfAbsent(method, AuditHandlerDescriptor::resolve);
+    }
+
+    private static AuditHandlerDescriptor resolve(final Method method) {
+        final var auditSecurityEvent = method.getAnnotation(AuditSecurityEvent.class);
+        return null == auditSecurityEvent ? NOT_AUDITED : new AuditHandlerDescriptor(method, auditSecurityEvent);
+    }
+
+    private static String getAuditParamName(final Parameter parameter) {
+        final var auditVariable = parameter.getAnnotation(Audit.class).value();
+        final var pathVariable = parameter.isAnnotationPresent(PathVariable.class) ? parameter.getAnnotation(PathVariable.class).name() : null;
+        final var requestParam = parameter.isAnnotationPresent(RequestParam.class) ? parameter.getAnnotation(RequestParam.class).name() : null;
+        final var requestHeader = parameter.isAnnotationPresent(RequestHeader.class) ? parameter.getAnnotation(RequestHeader.class).name() : null;
+        final var paramName = parameter.getName();
+        // find the first non null value
+        return ObjectUtils.firstNonNull(auditVariable, pathVariable, requestParam, requestHeader, paramName);
+    }
+
+    public int getParamCount() {
+        return paramIndices.length;
+    }
+
+    public int getParamIndex(final int i) {
+        return paramIndices[i];
+    }
+
+    public String getParamName(final int i) {
+        return paramNames[i];
+    }
+
+    public boolean isParamAddToMDC(final int i) {
+        return paramAddToMDC[i];
+    }
+}
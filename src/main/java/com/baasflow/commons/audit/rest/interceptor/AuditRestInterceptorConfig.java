@@ -21,13 +21,21 @@
 package com.baasflow.commons.audit.rest.interceptor;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.core.Ordered;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
 
 @RequiredArgsConstructor
 @Configuration
+@Slf4j
 public class AuditRestInterceptorConfig implements WebMvcConfigurer {
 
     private final AuditSecurityInterceptor logInterceptor;
@@ -37,4 +45,32 @@ public class AuditRestInterceptorConfig implements WebMvcConfigurer {
         final var interceptorRegistration = registry.addInterceptor(logInterceptor);
         interceptorRegistration.order(Ordered.HIGHEST_PRECEDENCE);
     }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.audit.logging.tracking-filter.enabled", matchIfMissing = true)
+    public FilterRegistrationBean<AuditTrackingFilter> auditTrackingFilter(final AuditTracking auditTracking) {
+        final var registration = new FilterRegistrationBean<>(new AuditTrackingFilter(auditTracking));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    /**
+     * Resolves the audit metadata of every mapped handler at startup, so that the first request of an endpoint does
+     * not pay for it and non-audited endpoints are recognized by a single cache lookup.
+     */
+    @EventListener
+    public void resolveAuditedHandlers(final ContextRefreshedEvent event) {
+        final var handlerMappings = event.getApplicationContext().getBeansOfType(RequestMappingHandlerMapping.class);
+        var audited = 0;
+        var total = 0;
+        for (final var handlerMapping : handlerMappings.values()) {
+            for (final var handlerMethod : handlerMapping.getHandlerMethods().values()) {
+                total++;
+                if (AuditHandlerDescriptor.of(handlerMethod.getMethod()).isAudited()) {
+                    audited++;
+                }
+            }
+        }
+        log.info("{} of {} request handlers are audited", audited, total);
+    }
 }
@@ -20,7 +20,6 @@
 
 package com.baasflow.commons.audit.rest.interceptor;
 
-import com.baasflow.commons.audit.rest.Audit;
 import com.baasflow.commons.audit.rest.ICorrelationDataProvider;
 import com.baasflow.commons.events.EventLogLevel;
 import com.baasflow.commons.events.EventType;
@@ -36,18 +35,11 @@ import org.springframework.http.ProblemDetail;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 import org.springframework.web.ErrorResponse;
-import org.springframework.web.bind.annotation.PathVariable;
-import org.springframework.web.bind.annotation.RequestHeader;
-import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.context.annotation.RequestScope;
 
 import javax.annotation.CheckForNull;
 import java.lang.reflect.Method;
-import java.lang.reflect.Parameter;
 import java.util.*;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutionException;
-import java.util.stream.IntStream;
 
 @Slf4j
 @Component
@@ -85,35 +77,22 @@ public class AuditSecurityEventContext {
     }
 
     public void populateAuditInfoFromMethodParams(final Method method, final Object[] args) {
-        // Args from REST method calling
-        final var parameters = method.getParameters();
-
-        final var corrParameters = this.params;
-        IntStream.range(0, parameters.length)
-                .filter(index -> null != parameters[index].getAnnotation(Audit.class))
-                .forEach(index -> {
-                    final var parameter = parameters[index];
-                    final var auditParamName = getAuditParamName(parameter);
-                    final var value = String.valueOf(args[index]);
-                    appendParamIfValueIsNotNull(auditParamName, value);
-                    final var addToMDC = Optional.ofNullable(parameter.getAnnotation(Audit.class)).map(Audit::addToMDC).orElse(false);
-                    if (addToMDC) {
-                        MDC.put(auditParamName, value);
-                    }
-                });
+        populateAuditInfoFromMethodParams(AuditHandlerDescriptor.of(method), args);
     }
 
-    private String getAuditParamName(final Parameter parameter) {
-        final var auditVariable = Optional.ofNullable(parameter.getAnnotation(Audit.class)).map(Audit::value).orElse(null);
-        final var pathVariable = Optional.ofNullable(parameter.getAnnotation(PathVariable.class)).map(PathVariable::name).orElse(null);
-        final var requestParam = Optional.ofNullable(parameter.getAnnotation(RequestParam.class)).map(RequestParam::name).orElse(null);
-        final var requestHeader = Optional.ofNullable(parameter.getAnnotation(RequestHeader.class)).map(RequestHeader::name).orElse(null);
-        final var paramName = parameter.getName();
-        // find the first non null value
-        return ObjectUtils.firstNonNull(auditVariable, pathVariable, requestParam, requestHeader, paramName);
+    public void populateAuditInfoFromMethodParams(final AuditHandlerDescriptor descriptor, final Object[] args) {
+        // Args from REST method calling
+        for (int i = 0; i < descriptor.getParamCount(); i++) {
+            final var auditParamName = descriptor.getParamName(i);
+            final var value = String.valueOf(args[descriptor.getParamIndex(i)]);
+            appendParamIfValueIsNotNull(auditParamName, value);
+            if (descriptor.isParamAddToMDC(i)) {
+                MDC.put(auditParamName, value);
+            }
+        }
     }
 
-    public void collectCorrelationIDsFromResult(@Nullable final Object methodCallResult) throws Exception {
+    public void collectCorrelationIDsFromResult(@Nullable final Object methodCallResult) {
         this.postHandled = true;
         final var resultObject = extractResultObject(methodCallResult);
         if (null == resultObject) {
@@ -131,25 +110,7 @@ public class AuditSecurityEventContext {
     }
 
     @CheckForNull
-    private Object extractResultObject(final Object methodCallResult) throws Exception {
-        final Object proceed;
-        if (methodCallResult instanceof final CompletableFuture completableFuture) {
-            try {
-                proceed = completableFuture.get();
-            } catch (final Exception e) {
-                if (e instanceof ExecutionException) {
-                    var cause = e.getCause();
-                    extractProblemDetail(cause);
-                    throw (Exception) cause;
-                } else {
-                    extractProblemDetail(e);
-                    throw e;
-                }
-            }
-        } else {
-            proceed = methodCallResult;
-        }
-
+    private Object extractResultObject(@Nullable final Object proceed) {
         final Object resultObject;
         // Set additional infos from response
         if (proceed instanceof final ResponseEntity responseEntity) {
@@ -51,7 +51,15 @@ public class AuditSecurityEventMapper {
         to.setEventLogLevel(from.eventLogLevel());
     }
 
-    private static String determineOperationId(final AuditSecurityEvent from, @Nullable final Operation openApiOperation) {
+    public void toAuditSecurityEventContext(final AuditHandlerDescriptor from, final AuditSecurityEventContext to) {
+        to.setOperationId(from.getOperationId());
+        to.setDomains(from.getDomains());
+        to.setEventType(from.getEventType());
+        to.setSourceModule(from.getSourceModule());
+        to.setEventLogLevel(from.getEventLogLevel());
+    }
+
+    static String determineOperationId(final AuditSecurityEvent from, @Nullable final Operation openApiOperation) {
         final var auditOperationId = StringUtils.trimToNull(from.operationId());
         final var openApiOperationId = (null == openApiOperation) ? null : StringUtils.trimToNull(openApiOperation.operationId());
         final var operationId = ObjectUtils.firstNonNull(auditOperationId, openApiOperationId, UNKNOWN);
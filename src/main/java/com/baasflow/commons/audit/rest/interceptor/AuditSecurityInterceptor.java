@@ -21,9 +21,7 @@
 package com.baasflow.commons.audit.rest.interceptor;
 
 import com.baasflow.commons.audit.rest.AuditEventPublisher;
-import com.baasflow.commons.audit.rest.AuditSecurityEvent;
 import jakarta.annotation.Nullable;
-import jakarta.annotation.PostConstruct;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
@@ -35,19 +33,24 @@ import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.reflect.MethodSignature;
 import org.slf4j.MDC;
 import org.springframework.aop.aspectj.MethodInvocationProceedingJoinPoint;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.aop.scope.ScopedObject;
 import org.springframework.core.MethodParameter;
 import org.springframework.http.MediaType;
 import org.springframework.http.ProblemDetail;
 import org.springframework.http.server.ServerHttpRequest;
 import org.springframework.http.server.ServerHttpResponse;
 import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.context.request.async.WebAsyncUtils;
 import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.servlet.HandlerInterceptor;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
 
 import javax.annotation.CheckForNull;
-import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionStage;
 
 /**
  * An interceptor that handles auditing and security events for REST calls.
@@ -56,7 +59,8 @@ import java.util.*;
  * <ul>
  * <li>{@link #preHandle} populate http request headers</li>
  * <li>{@link #handleAnnotatedMethodCall} AOP around the method, populate info from about method and method params and result, also can
- * process some cases the {@link ProblemDetail}</li>
+ * process some cases the {@link ProblemDetail}; results of async controllers are collected by {@link AuditAsyncResultInterceptor}
+ * when they are produced</li>
  * <li>{@link #supports} some cases will handle the {@link ProblemDetail} via {@link #beforeBodyWrite}</li>
  * <li>{@link #beforeBodyWrite} some cases will handle the {@link ProblemDetail}</li>
  * <li>{@link #preHandle} if somehow it's not called yet, then will be processed the http request headers</li>
@@ -73,52 +77,33 @@ public class AuditSecurityInterceptor implements HandlerInterceptor, ResponseBod
     public static final String REQUEST_X_TRACKING_ID = "request.TrackingId";
     public static final String REQUEST_SESSION_ID = "request.sessionId";
     public static final String TENANT_ID = "tenantId";
-    private final List<String> TRACKING_ID_HEADERS = new ArrayList<>(Arrays.asList(X_TRACKING_ID, "postman-token"));
-    @Nullable
-    @Value("${app.audit.logging.http-header-name:#{null}}")
-    private final String auditHttpHeaderName;
-    @Value("${app.tenant.http-header-name:X-baasflow-tenant-id}")
-    private final String tenantHttpHeaderName;
 
+    private final AuditTracking auditTracking;
     private final AuditSecurityEventContext context;
 
     private final AuditEventPublisher auditEventPublisher;
     private final AuditSecurityEventMapper mapper;
 
-    @PostConstruct
-    public void init() {
-        if (null != auditHttpHeaderName) {
-            TRACKING_ID_HEADERS.add(1, auditHttpHeaderName);
-        }
-    }
-
     @Override
     public boolean preHandle(final HttpServletRequest request, final HttpServletResponse response, final Object object) {
         log.trace("START: preHandle: {}", object);
-        if (context.isPreHandled()) {
-            log.trace("END: preHandle: already preHandled");
+        // fast path: the request scoped context is only touched for audited handlers
+        if (!isAudited(object)) {
+            log.trace("END: preHandle: not annotated with AuditSecurityEvent");
             return true;
         }
-
-        initializeMDCAndAuditIDs(request);
-
-        // if it's not a `HandlerMethod`, then ignore
-        if (!(object instanceof final HandlerMethod handlerMethod)) {
-            log.trace("END: preHandle: not a HandlerMethod");
+        if (context.isPreHandled()) {
+            log.trace("END: preHandle: already preHandled");
             return true;
         }
 
-        final var method = handlerMethod.getMethod();
-        final var auditSecurityAnnotation = method.getAnnotation(AuditSecurityEvent.class);
-        // if it's not annotated with `AuditSecurityEvent`, then ignore
-        if (null == auditSecurityAnnotation) {
-            log.trace("END: preHandle: not annotated with AuditSecurityEvent");
-            return true;
-        }
+        initializeAuditIDs(request);
+        final var descriptor = AuditHandlerDescriptor.of(((HandlerMethod) object).getMethod());
         context.setPreHandled(true);
         request.setAttribute(AuditSecurityEventContext.class.getName(), context);
+        registerAsyncResultInterceptor(request);
 
-        populateAuditHeaders(request, auditSecurityAnnotation.headerNames());
+        populateAuditHeaders(request, descriptor.getHeaderNames());
 
         log.trace("request: {}", request);
         log.trace("response: {}", response);
@@ -132,6 +117,10 @@ public class AuditSecurityInterceptor implements HandlerInterceptor, ResponseBod
     @Around("@annotation(com.baasflow.commons.audit.rest.AuditSecurityEvent)")
     public Object handleAnnotatedMethodCall(final ProceedingJoinPoint joinPoint) throws Throwable {
         log.trace("START: handleAnnotatedMethodCall");
+        if (null == RequestContextHolder.getRequestAttributes()) {
+            // not a servlet request, e.g. a WebFlux handler audited by ReactiveAuditAspect
+            return joinPoint.proceed();
+        }
 
         final var methodSignature = getMethodSignature(joinPoint);
         handleMethodCall(joinPoint, methodSignature);
@@ -145,6 +134,11 @@ public class AuditSecurityInterceptor implements HandlerInterceptor, ResponseBod
             throw e;
         }
 
+        if (isAsyncResult(jointPointResult)) {
+            // collected by AuditAsyncResultInterceptor once the result is produced
+            log.trace("END: handleAnnotatedMethodCall: async result");
+            return jointPointResult;
+        }
         context.collectCorrelationIDsFromResult(jointPointResult);
 
         log.trace("END: handleAnnotatedMethodCall");
@@ -187,6 +181,11 @@ public class AuditSecurityInterceptor implements HandlerInterceptor, ResponseBod
     public void afterCompletion(final HttpServletRequest request, final HttpServletResponse response, final Object object,
                                 @Nullable final Exception methodException) {
         log.trace("START: afterCompletion: {}", object);
+        // the handler of an async dispatch is not the audited method, so rely on the attribute set by preHandle
+        if (null == request.getAttribute(AuditSecurityEventContext.class.getName())) {
+            return;
+        }
+        request.removeAttribute(AuditSecurityEventContext.class.getName());
 
         context.setStatusCode(response.getStatus());
         log.trace("Status: {}", context.getStatusCode());
@@ -216,17 +215,15 @@ public class AuditSecurityInterceptor implements HandlerInterceptor, ResponseBod
             return;
         }
 
-        final var method = methodSignature.getMethod();
-        final var auditSecurityEventAnnotation = method.getAnnotation(AuditSecurityEvent.class);
+        final var descriptor = AuditHandlerDescriptor.of(methodSignature.getMethod());
         // BTW If not exists how called???
-        if (null == auditSecurityEventAnnotation) {
+        if (!descriptor.isAudited()) {
             return;
         }
-        final var openApiOperation = method.getAnnotation(io.swagger.v3.oas.annotations.Operation.class);
-        mapper.toAuditSecurityEventContext(auditSecurityEventAnnotation, openApiOperation, context);
+        mapper.toAuditSecurityEventContext(descriptor, context);
 
         final var args = joinPoint.getArgs();
-        context.populateAuditInfoFromMethodParams(method, args);
+        context.populateAuditInfoFromMethodParams(descriptor, args);
     }
 
     @CheckForNull
@@ -271,40 +268,35 @@ public class AuditSecurityInterceptor implements HandlerInterceptor, ResponseBod
         }
     }
 
-    private void initializeMDCAndAuditIDs(final HttpServletRequest request) {
-        //MDC.clear();
-        final var trackingId = getTrackingId(request);
-        putToMDCIfValueIsNotNull(REQUEST_X_TRACKING_ID, trackingId);
-        context.appendParamIfValueIsNotNull(REQUEST_X_TRACKING_ID, trackingId);
-        log.trace("trackingId: {}", trackingId);
-
-        if (null != auditHttpHeaderName) {
-            final var sessionId = request.getHeader(auditHttpHeaderName);
-            putToMDCIfValueIsNotNull(REQUEST_SESSION_ID, sessionId);
-            context.appendParamIfValueIsNotNull(REQUEST_SESSION_ID, sessionId);
-            log.trace("sessionId: {}", sessionId);
+    private void initializeAuditIDs(final HttpServletRequest request) {
+        final var ids = auditTracking.resolve(request);
+        context.appendParamIfValueIsNotNull(REQUEST_X_TRACKING_ID, ids.trackingId());
+        context.appendParamIfValueIsNotNull(REQUEST_SESSION_ID, ids.sessionId());
+        if (null != ids.tenantId()) {
+            context.setTenant(ids.tenantId());
         }
+    }
 
-        if (null != tenantHttpHeaderName) {
-            final var tenantId = Optional.ofNullable(request.getHeader(tenantHttpHeaderName)).orElse("default");
-            context.setTenant(tenantId);
-            putToMDCIfValueIsNotNull(TENANT_ID, tenantId);
-            log.trace("tenantId: {}", tenantId);
-        }
+    /**
+     * Registers the collector of async controller results. It runs outside the request scope, so it gets the context
+     * target instead of the proxy.
+     */
+    private void registerAsyncResultInterceptor(final HttpServletRequest request) {
+        final var target = context instanceof final ScopedObject scopedObject
+                ? (AuditSecurityEventContext) scopedObject.getTargetObject()
+                : context;
+        final var interceptor = new AuditAsyncResultInterceptor(target);
+        final var asyncManager = WebAsyncUtils.getAsyncManager(request);
+        asyncManager.registerCallableInterceptor(AuditAsyncResultInterceptor.class.getName(), interceptor);
+        asyncManager.registerDeferredResultInterceptor(AuditAsyncResultInterceptor.class.getName(), interceptor);
     }
 
-    private String getTrackingId(final HttpServletRequest httpServletRequest) {
-        return TRACKING_ID_HEADERS.stream()
-                .map(httpServletRequest::getHeader)
-                .filter(Objects::nonNull)
-                .findFirst()
-                .orElse(UUID.randomUUID().toString());
+    private static boolean isAsyncResult(@Nullable final Object result) {
+        return result instanceof CompletionStage || result instanceof DeferredResult
+                || result instanceof Callable || result instanceof WebAsyncTask;
     }
 
-    private void putToMDCIfValueIsNotNull(final String key, @Nullable final String value) {
-        if (null == value) {
-            return;
-        }
-        MDC.put(key, value);
+    private static boolean isAudited(final Object handler) {
+        return handler instanceof final HandlerMethod handlerMethod && AuditHandlerDescriptor.of(handlerMethod.getMethod()).isAudited();
     }
 }
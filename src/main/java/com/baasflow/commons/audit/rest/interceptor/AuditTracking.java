@@ -0,0 +1,137 @@
+/*
+ * Licensed to BaaSFlow Corporation "BaaSFlow" under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  BaaSFlow licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this  file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.baasFlow.com/licenses/Apache_LICENSE-2.0
+ * or the root of this project.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baasflow.commons.audit.rest.interceptor;
+
+import jakarta.annotation.Nullable;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static com.baasflow.commons.audit.rest.interceptor.AuditSecurityInterceptor.REQUEST_SESSION_ID;
+import static com.baasflow.commons.audit.rest.interceptor.AuditSecurityInterceptor.REQUEST_X_TRACKING_ID;
+import static com.baasflow.commons.audit.rest.interceptor.AuditSecurityInterceptor.TENANT_ID;
+import static com.baasflow.commons.audit.rest.interceptor.AuditSecurityInterceptor.X_TRACKING_ID;
+
+/**
+ * Resolves the tracking id, session id and tenant id of a request and puts them into the MDC, once per request.
+ * Used by {@link AuditTrackingFilter} for every request and by {@link AuditSecurityInterceptor} for audited requests.
+ */
+@RequiredArgsConstructor
+@Component
+@Slf4j
+public class AuditTracking {
+
+    private static final String ATTRIBUTE = AuditTracking.class.getName();
+
+    private final List<String> TRACKING_ID_HEADERS = new ArrayList<>(Arrays.asList(X_TRACKING_ID, "postman-token"));
+    @Nullable
+    @Value("${app.audit.logging.http-header-name:#{null}}")
+    private final String auditHttpHeaderName;
+    @Value("${app.tenant.http-header-name:X-baasflow-tenant-id}")
+    private final String tenantHttpHeaderName;
+
+    @PostConstruct
+    public void init() {
+        if (null != auditHttpHeaderName) {
+            TRACKING_ID_HEADERS.add(1, auditHttpHeaderName);
+        }
+    }
+
+    /**
+     * Returns the ids of the request, resolving them and filling the MDC on first call.
+     *
+     * @param request The HTTP servlet request.
+     * @return the ids of the request
+     */
+    public Ids resolve(final HttpServletRequest request) {
+        if (request.getAttribute(ATTRIBUTE) instanceof final Ids ids) {
+            return ids;
+        }
+
+        final var trackingId = getTrackingId(request);
+        putToMDCIfValueIsNotNull(REQUEST_X_TRACKING_ID, trackingId);
+        log.trace("trackingId: {}", trackingId);
+
+        String sessionId = null;
+        if (null != auditHttpHeaderName) {
+            sessionId = request.getHeader(auditHttpHeaderName);
+            putToMDCIfValueIsNotNull(REQUEST_SESSION_ID, sessionId);
+            log.trace("sessionId: {}", sessionId);
+        }
+
+        String tenantId = null;
+        if (null != tenantHttpHeaderName) {
+            tenantId = request.getHeader(tenantHttpHeaderName);
+            if (null == tenantId) {
+                tenantId = "default";
+            }
+            putToMDCIfValueIsNotNull(TENANT_ID, tenantId);
+            log.trace("tenantId: {}", tenantId);
+        }
+
+        final var ids = new Ids(trackingId, sessionId, tenantId);
+        request.setAttribute(ATTRIBUTE, ids);
+        return ids;
+    }
+
+    /**
+     * Removes the ids put by {@link #resolve} from the MDC.
+     */
+    public void clear() {
+        MDC.remove(REQUEST_X_TRACKING_ID);
+        MDC.remove(REQUEST_SESSION_ID);
+        MDC.remove(TENANT_ID);
+    }
+
+    private String getTrackingId(final HttpServletRequest httpServletRequest) {
+        for (final var header : TRACKING_ID_HEADERS) {
+            final var value = httpServletRequest.getHeader(header);
+            if (null != value) {
+                return value;
+            }
+        }
+        return UUID.randomUUID().toString();
+    }
+
+    private static void putToMDCIfValueIsNotNull(final String key, @Nullable final String value) {
+        if (null == value) {
+            return;
+        }
+        MDC.put(key, value);
+    }
+
+    /**
+     * @param trackingId the tracking id, generated if the request has none
+     * @param sessionId  the session id, if a session header is configured and present
+     * @param tenantId   the tenant id, {@code default} if the request has none
+     */
+    public record Ids(String trackingId, @Nullable String sessionId, @Nullable String tenantId) {
+    }
+}
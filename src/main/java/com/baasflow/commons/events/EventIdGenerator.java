@@ -0,0 +1,64 @@
+/*
+ * Licensed to BaaSFlow Corporation "BaaSFlow" under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  BaaSFlow licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this  file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.baasFlow.com/licenses/Apache_LICENSE-2.0
+ * or the root of this project.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baasflow.commons.events;
+
+import com.baasflow.commons.events.internal.TimeOrderedEventIdGenerator;
+
+import java.time.Clock;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Generates the ids of new events. Select a built-in generator with {@code baasflow.events.id-generator}, or provide
+ * a bean of this type to replace it.
+ */
+@FunctionalInterface
+public interface EventIdGenerator {
+
+    UUID nextId();
+
+    /**
+     * @return random (version 4) UUIDs, drawn from the shared {@link java.security.SecureRandom} of {@link UUID}
+     */
+    static EventIdGenerator random() {
+        return UUID::randomUUID;
+    }
+
+    /**
+     * @param clock the clock providing the millisecond timestamp of the ids
+     * @return time-ordered (version 7) UUIDs, monotonic per thread and generated without shared state
+     */
+    static EventIdGenerator timeOrdered(Clock clock) {
+        return new TimeOrderedEventIdGenerator(clock);
+    }
+
+    /**
+     * @param supplier provides an id decided outside the library, e.g. taken from the current request; may return null
+     * @param fallback generates the id when the supplier has none
+     * @return a generator using externally supplied ids
+     */
+    static EventIdGenerator supplied(Supplier<UUID> supplier, EventIdGenerator fallback) {
+        return () -> {
+            UUID id = supplier.get();
+            return id != null ? id : fallback.nextId();
+        };
+    }
+}
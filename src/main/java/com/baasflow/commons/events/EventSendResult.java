@@ -0,0 +1,48 @@
+/*
+ * Licensed to BaaSFlow Corporation "BaaSFlow" under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  BaaSFlow licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this  file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.baasFlow.com/licenses/Apache_LICENSE-2.0
+ * or the root of this project.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baasflow.commons.events;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+import org.springframework.kafka.support.SendResult;
+
+import javax.annotation.CheckForNull;
+
+/**
+ * The outcome of a single event within a batch sent by {@link EventService#sendEvents}.
+ */
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class EventSendResult {
+    private final Event event;
+
+    @CheckForNull
+    private final SendResult<String, Event> sendResult;
+
+    @CheckForNull
+    private final Throwable exception;
+
+    public boolean isSuccess() {
+        return exception == null;
+    }
+}
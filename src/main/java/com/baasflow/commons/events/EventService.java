@@ -21,18 +21,36 @@
 package com.baasflow.commons.events;
 
 import com.baasflow.commons.events.internal.EventBuilder;
+import com.baasflow.commons.events.internal.EventMetrics;
+import com.baasflow.commons.events.internal.EventSampler;
 import com.baasflow.commons.events.internal.KafkaSender;
+import com.baasflow.commons.events.internal.StackTraceEncoder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.Nullable;
+
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 /**
  * This class represents the EventService, which is a service responsible for sending event messages.
@@ -48,6 +66,15 @@ public class EventService {
     @Autowired
     KafkaSender kafkaSender;
 
+    @Autowired
+    EventMetrics eventMetrics;
+
+    @Autowired
+    EventSampler eventSampler;
+
+    @Autowired
+    StackTraceEncoder stackTraceEncoder;
+
 
     /**
      * Sends an audit log for the specified source module, event, and event status.
@@ -70,7 +97,10 @@ public class EventService {
      * @param correlationIds a map of correlation IDs associated with the event
      */
     public void sendAuditlog(String sourceModule, String event, EventStatus eventStatus, Map<String, String> correlationIds) {
-        Event eventMessage = builder.auditlogEvent(sourceModule, event, eventStatus, correlationIds);
+        if (isDropped(sourceModule, event, EventType.audit)) {
+            return;
+        }
+        Event eventMessage = build(() -> builder.auditlogEvent(sourceModule, event, eventStatus, correlationIds));
         send(eventMessage);
     }
 
@@ -80,8 +110,34 @@ public class EventService {
      * @param eventBuilder the builder function used to build the event message
      */
     public void sendEvent(Function<Event.Builder, Event.Builder> eventBuilder) {
-        Event eventMessage = eventBuilder.apply(EventBuilder.createEventBuilder()).build();
-        send(eventMessage);
+        Event eventMessage = build(() -> eventBuilder.apply(builder.newEventBuilder()).build());
+        sendSampled(eventMessage);
+    }
+
+    /**
+     * Sends an event message built by the supplier, unless no channel accepts events of the given level. A filtered
+     * event is never built, so the supplier should do all the work needed for the event only.
+     * <p>
+     * The supplier may start from {@link Event#newBuilder()}: a missing id and timestamp are assigned, and the level is
+     * set if the builder has none.
+     *
+     * @param eventLogLevel the log level of the event
+     * @param eventBuilder  supplies the builder of the event message
+     */
+    public void sendEvent(EventLogLevel eventLogLevel, Supplier<Event.Builder> eventBuilder) {
+        sendEventAsync(null, eventLogLevel, eventBuilder);
+    }
+
+    /**
+     * Sends an event message built by the supplier, unless no channel of the event type accepts events of the given
+     * level, see {@link #sendEvent(EventLogLevel, Supplier)}.
+     *
+     * @param eventType     the type of the event, set if the builder has none
+     * @param eventLogLevel the log level of the event
+     * @param eventBuilder  supplies the builder of the event message
+     */
+    public void sendEvent(EventType eventType, EventLogLevel eventLogLevel, Supplier<Event.Builder> eventBuilder) {
+        sendEventAsync(eventType, eventLogLevel, eventBuilder);
     }
 
     /**
@@ -110,7 +166,10 @@ public class EventService {
      * @param correlationIds the correlation IDs to associate with the event
      */
     public void sendEvent(String sourceModule, String event, EventType eventType, EventStatus eventStatus, String payload, String payloadType, Map<String, String> correlationIds) {
-        Event eventMessage = builder.event(sourceModule, event, eventType, eventStatus, payload, payloadType, correlationIds);
+        if (isDropped(sourceModule, event, eventType)) {
+            return;
+        }
+        Event eventMessage = build(() -> builder.event(sourceModule, event, eventType, eventStatus, payload, payloadType, correlationIds));
         send(eventMessage);
     }
 
@@ -127,12 +186,175 @@ public class EventService {
      * @param correlationIds the correlation IDs to associate with the event
      */
     public void sendEvent(String sourceModule, String event, EventType eventType, EventStatus eventStatus, String payload, String payloadFormat, String payloadType, Map<String, String> correlationIds) {
-        Event eventMessage = builder.event(sourceModule, event, eventType, eventStatus, payload, payloadFormat, payloadType, correlationIds);
+        if (isDropped(sourceModule, event, eventType)) {
+            return;
+        }
+        Event eventMessage = build(() -> builder.event(sourceModule, event, eventType, eventStatus, payload, payloadFormat, payloadType, correlationIds));
         send(eventMessage);
     }
 
+    /**
+     * Sends an event message using an Event.Builder without waiting for the Kafka acknowledgement.
+     *
+     * @param eventBuilder the builder function used to build the event message
+     * @return a future completed with the send result once the event is acknowledged by Kafka
+     */
+    public CompletableFuture<SendResult<String, Event>> sendEventAsync(Function<Event.Builder, Event.Builder> eventBuilder) {
+        Event eventMessage = build(() -> eventBuilder.apply(builder.newEventBuilder()).build());
+        return sendSampled(eventMessage);
+    }
+
+    /**
+     * Sends an event message using the provided parameters without waiting for the Kafka acknowledgement.
+     *
+     * @param sourceModule   the source module of the event
+     * @param event          the name of the event
+     * @param eventType      the type of the event
+     * @param eventStatus    the status of the event
+     * @param payload        the payload of the event
+     * @param payloadType    the type of the payload
+     * @param correlationIds the correlation IDs to associate with the event
+     * @return a future completed with the send result once the event is acknowledged by Kafka
+     */
+    public CompletableFuture<SendResult<String, Event>> sendEventAsync(String sourceModule, String event, EventType eventType, EventStatus eventStatus, String payload, String payloadType, Map<String, String> correlationIds) {
+        if (isDropped(sourceModule, event, eventType)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        Event eventMessage = build(() -> builder.event(sourceModule, event, eventType, eventStatus, payload, payloadType, correlationIds));
+        return send(eventMessage);
+    }
+
+    /**
+     * Sends an event message built by the supplier without waiting for the Kafka acknowledgement, see
+     * {@link #sendEvent(EventType, EventLogLevel, Supplier)}.
+     *
+     * @param eventType     the type of the event if known, set if the builder has none
+     * @param eventLogLevel the log level of the event
+     * @param eventBuilder  supplies the builder of the event message
+     * @return a future completed with the send result once the event is acknowledged by Kafka, or with {@code null}
+     * right away if the event was filtered out
+     */
+    public CompletableFuture<SendResult<String, Event>> sendEventAsync(@Nullable EventType eventType, EventLogLevel eventLogLevel, Supplier<Event.Builder> eventBuilder) {
+        if (!kafkaSender.isEnabled(eventType, eventLogLevel)) {
+            eventMetrics.recordFiltered(eventType);
+            return CompletableFuture.completedFuture(null);
+        }
+        // without the type the event may turn out to be an audit event, which must never be sampled out
+        boolean sampleBuilt = eventType == null || eventSampler.isNameSensitive();
+        if (!sampleBuilt && eventSampler.isSampledOut(eventType, eventLogLevel, null)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        Event eventMessage = build(() -> {
+            Event.Builder builder = this.builder.completeEventBuilder(eventBuilder.get());
+            if (!builder.hasEventLogLevel()) {
+                builder.setEventLogLevel(eventLogLevel);
+            }
+            if (eventType != null && !builder.hasEventType()) {
+                builder.setEventType(eventType);
+            }
+            return builder.build();
+        });
+        return sampleBuilt ? sendSampled(eventMessage) : send(eventMessage);
+    }
+
+    /**
+     * Tells whether events of the type and level are sent to at least one channel. Lets callers skip work needed only
+     * for events that would be filtered out anyway.
+     *
+     * @param eventType     the type of the event, or {@code null} to check every channel
+     * @param eventLogLevel the log level of the event
+     * @return false if the events module is disabled or every channel filters out such events
+     */
+    public boolean isEnabled(@Nullable EventType eventType, EventLogLevel eventLogLevel) {
+        return kafkaSender.isEnabled(eventType, eventLogLevel);
+    }
+
+    /**
+     * Sends an already built event message without waiting for the Kafka acknowledgement.
+     *
+     * @param eventMessage the event message to send
+     * @return a future completed with the send result once the event is acknowledged by Kafka
+     */
+    public CompletableFuture<SendResult<String, Event>> sendEventAsync(Event eventMessage) {
+        return sendSampled(eventMessage);
+    }
+
+    /**
+     * Sends a batch of event messages. All events are submitted to Kafka before this method returns, without waiting
+     * for any acknowledgement.
+     *
+     * @param events the event messages to send
+     * @return a future completed once every event has been acknowledged or has failed, holding one result per event
+     * in the iteration order of the given collection; it never completes exceptionally
+     */
+    public CompletableFuture<List<EventSendResult>> sendEvents(Collection<Event> events) {
+        List<Event> eventList = List.copyOf(events);
+        boolean[] sampledOut = new boolean[eventList.size()];
+        List<Event> kept = new ArrayList<>(eventList.size());
+        for (int i = 0; i < sampledOut.length; i++) {
+            sampledOut[i] = eventSampler.isSampledOut(eventList.get(i));
+            if (!sampledOut[i]) {
+                kept.add(eventList.get(i));
+            }
+        }
+        if (kept.size() == eventList.size()) {
+            return aggregate(eventList, kafkaSender.sendAll(eventList));
+        }
+
+        Iterator<CompletableFuture<SendResult<String, Event>>> sent = kafkaSender.sendAll(kept).iterator();
+        List<CompletableFuture<SendResult<String, Event>>> futures = new ArrayList<>(eventList.size());
+        for (boolean dropped : sampledOut) {
+            futures.add(dropped ? CompletableFuture.completedFuture(null) : sent.next());
+        }
+        return aggregate(eventList, futures);
+    }
+
+    /**
+     * Sends a batch of event messages, see {@link #sendEvents(Collection)}.
+     *
+     * @param events the event messages to send
+     * @return a future completed once every event has been acknowledged or has failed, holding one result per event
+     */
+    public CompletableFuture<List<EventSendResult>> sendEvents(Stream<Event> events) {
+        return sendEvents(events.toList());
+    }
+
+    /**
+     * Sends a batch of event messages atomically in one Kafka transaction: consumers reading committed records see
+     * either all of them or none. All events use the id of the first one as record key, so events of the same topic
+     * stay on one partition, in order. The channels of the events must be transactional and share their producers,
+     * see {@code kafka.transaction-id-prefix}. Events are not sampled.
+     *
+     * @param events the event messages to send
+     * @return a future completed once the transaction has been committed or aborted, holding one result per event in
+     * the iteration order of the given collection; it never completes exceptionally
+     * @throws IllegalStateException if a channel of the events is not transactional
+     */
+    public CompletableFuture<List<EventSendResult>> sendEventsTransactional(Collection<Event> events) {
+        List<Event> eventList = List.copyOf(events);
+        if (eventList.isEmpty()) {
+            return CompletableFuture.completedFuture(List.of());
+        }
+        return aggregate(eventList, kafkaSender.sendTransactional(eventList));
+    }
+
+    private static CompletableFuture<List<EventSendResult>> aggregate(List<Event> events, List<CompletableFuture<SendResult<String, Event>>> futures) {
+        EventSendResult[] results = new EventSendResult[events.size()];
+        CompletableFuture<?>[] completions = new CompletableFuture<?>[events.size()];
+        for (int i = 0; i < results.length; i++) {
+            int index = i;
+            Event event = events.get(i);
+            completions[i] = futures.get(i).handle((sendResult, e) ->
+                    results[index] = new EventSendResult(event, sendResult, e instanceof CompletionException ? e.getCause() : e));
+        }
+        return CompletableFuture.allOf(completions).thenApply(v -> Arrays.asList(results));
+    }
+
     /**
      * Executes a function with an audited event message using the provided event builder.
+     * <p>
+     * If the function fails, an error event is sent as well. When the channels of the event type are transactional,
+     * both events are sent in one transaction with the same record key, so consumers never see one without the other.
      *
      * @param eventBuilder the function that applies modifications to the event builder
      * @param function     the function to be executed with the modified event builder
@@ -141,7 +363,7 @@ public class EventService {
      * @throws Exception if an exception occurs while executing the function
      */
     public <T> T auditedEvent(Function<Event.Builder, Event.Builder> eventBuilder, Function<Event.Builder, T> function) {
-        Event.Builder builder = eventBuilder.apply(EventBuilder.createEventBuilder()
+        Event.Builder builder = eventBuilder.apply(this.builder.newEventBuilder()
                         .setEventType(EventType.audit));
 
         Event errorEvent = null;
@@ -159,19 +381,106 @@ public class EventService {
             throw e;
 
         } finally {
-            send(builder.build());
+            sendAudited(builder, errorEvent, false);
+        }
+    }
+
+    /**
+     * Executes an asynchronous function with an audited event message using the provided event builder.
+     * <p>
+     * The audit event is sent when the returned stage completes, with status {@code success} (unless the function set
+     * one) or {@code failure} plus an error event, as in {@link #auditedEvent(Function, Function)}. No thread waits for
+     * the stage: the events are built and sent on the thread completing it, with the MDC of the calling thread. The
+     * builder is handed over to that thread as well, so the function may keep modifying it until the stage completes.
+     * A failure sent in one transaction is committed on the sender's transaction thread instead, so that the completing
+     * thread does not wait for the commit.
+     *
+     * @param eventBuilder the function that applies modifications to the event builder
+     * @param function     the function to be executed with the modified event builder, returning a stage of its result
+     * @param <T>          the type of the result of the function
+     * @return a future completed with the outcome of the function's stage once the audit event has been handed to the
+     * sender; it also completes exceptionally if the function throws instead of returning a stage
+     */
+    public <T> CompletableFuture<T> auditedEventAsync(Function<Event.Builder, Event.Builder> eventBuilder, Function<Event.Builder, ? extends CompletionStage<T>> function) {
+        Event.Builder builder = eventBuilder.apply(this.builder.newEventBuilder()
+                        .setEventType(EventType.audit));
+        Map<String, String> mdc = MDC.getCopyOfContextMap();
+
+        CompletionStage<T> stage;
+        try {
+            stage = Objects.requireNonNull(function.apply(builder), "function returned no stage");
+        } catch (Exception e) {
+            stage = CompletableFuture.failedFuture(e);
+        }
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        stage.whenComplete((value, throwable) -> {
+            Throwable failure = throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+            Map<String, String> previousMdc = MDC.getCopyOfContextMap();
+            setMdc(mdc);
+            try {
+                Event errorEvent = null;
+                if (failure == null) {
+                    if (builder.getEventStatus() == null) {
+                        builder.setEventStatus(EventStatus.success);
+                    }
+                } else {
+                    builder.setEventStatus(EventStatus.failure);
+                    errorEvent = createErrorEvent(failure, builder);
+                }
+                sendAudited(builder, errorEvent, true);
+
+            } catch (RuntimeException e) {
+                logger.error("failed to send audit event of asynchronous function", e);
+            } finally {
+                setMdc(previousMdc);
+                if (failure == null) {
+                    result.complete(value);
+                } else {
+                    result.completeExceptionally(failure);
+                }
+            }
+        });
+        return result;
+    }
+
+    private void sendAudited(Event.Builder builder, @Nullable Event errorEvent, boolean async) {
+        Event auditEvent = builder.build();
+        if (errorEvent != null && kafkaSender.isTransactional(auditEvent.getEventType())) {
+            if (async) {
+                kafkaSender.sendTransactionalAsync(List.of(auditEvent, errorEvent));
+            } else {
+                kafkaSender.sendTransactional(List.of(auditEvent, errorEvent));
+            }
+        } else {
+            send(auditEvent);
             if (errorEvent != null) {
                 send(errorEvent);
             }
         }
     }
 
-    private static Event createErrorEvent(Exception e, Event.Builder builder) {
+    private static void setMdc(@Nullable Map<String, String> context) {
+        if (context == null) {
+            MDC.clear();
+        } else {
+            MDC.setContextMap(context);
+        }
+    }
+
+    /**
+     * The payload is the stack trace as encoded by {@link StackTraceEncoder}; its fingerprint and occurrence number are
+     * added to the correlation ids, so that a deduplicated stack trace can be looked up by its fingerprint.
+     */
+    private Event createErrorEvent(Throwable e, Event.Builder builder) {
         Map<String, String> originalCorrelationIds = builder.getCorrelationIds();
         Map<String, String> correlationIds = originalCorrelationIds != null ? new HashMap<>(originalCorrelationIds) : new HashMap<>();
         correlationIds.put("originalEventId", builder.getId().toString());
+        StackTraceEncoder.EncodedStackTrace stackTrace = stackTraceEncoder.encode(e);
+        correlationIds.put("stackTraceFingerprint", stackTrace.fingerprint());
+        correlationIds.put("stackTraceOccurrence", Long.toString(stackTrace.occurrence()));
 
-        return EventBuilder.createEventBuilder()
+        return this.builder.newEventBuilder()
                 .setEventLogLevel(EventLogLevel.ERROR)
                 .setEventStatus(EventStatus.failure)
 
@@ -179,7 +488,7 @@ public class EventService {
                 .setSourceModule(builder.getSourceModule())
                 .setEvent(builder.getEvent())
                 .setTenantId(builder.getTenantId())
-                .setPayload(printStacktrace(e))
+                .setPayload(stackTrace.text())
                 .setPayloadFormat("text/plain")
                 .setPayloadType("string")
                 .setCorrelationIds(correlationIds)
@@ -193,9 +502,31 @@ public class EventService {
         return sw.toString();
     }
 
-    private void send(Event eventMessage) {
+    private boolean isDropped(String sourceModule, String event, EventType eventType) {
+        if (!kafkaSender.isEnabled(eventType, EventLogLevel.INFO, sourceModule, event)) {
+            eventMetrics.recordFiltered(eventType);
+            return true;
+        }
+        return eventSampler.isSampledOut(eventType, EventLogLevel.INFO, event);
+    }
+
+    private Event build(Supplier<Event> eventBuilder) {
+        long start = System.nanoTime();
+        Event eventMessage = eventBuilder.get();
+        eventMetrics.recordBuild(eventMessage.getEventType(), System.nanoTime() - start);
+        return eventMessage;
+    }
+
+    private CompletableFuture<SendResult<String, Event>> sendSampled(Event eventMessage) {
+        if (eventSampler.isSampledOut(eventMessage)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return send(eventMessage);
+    }
+
+    private CompletableFuture<SendResult<String, Event>> send(Event eventMessage) {
         try {
-            kafkaSender.send(eventMessage);
+            return kafkaSender.send(eventMessage);
 
         } catch (IOException e) {
             logger.error("error sending auditlog event to kafka", e);
@@ -0,0 +1,117 @@
+/*
+ * Licensed to BaaSFlow Corporation "BaaSFlow" under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  BaaSFlow licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this  file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.baasFlow.com/licenses/Apache_LICENSE-2.0
+ * or the root of this project.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baasflow.commons.events;
+
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Reactive facade of {@link EventService} for applications on a non-blocking stack. Events are handed to the Kafka
+ * producer on the bounded elastic scheduler, because the producer may block while it fetches topic metadata or waits
+ * for buffer space, so event loop threads are never pinned.
+ * Available when Project Reactor is on the classpath.
+ */
+@Service
+@ConditionalOnClass(name = "reactor.core.publisher.Mono")
+public class ReactiveEventService {
+    /**
+     * Default number of events of a stream awaiting their Kafka acknowledgement at the same time.
+     */
+    public static final int DEFAULT_MAX_IN_FLIGHT = 256;
+
+    @Autowired
+    EventService eventService;
+
+    /**
+     * Sends an event message built by an Event.Builder.
+     *
+     * @param eventBuilder the builder function used to build the event message
+     * @return a Mono emitting the send result once the event is acknowledged by Kafka
+     */
+    public Mono<SendResult<String, Event>> sendEvent(Function<Event.Builder, Event.Builder> eventBuilder) {
+        return Mono.<SendResult<String, Event>>fromFuture(() -> eventService.sendEventAsync(eventBuilder), true)
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Sends an event message built by the supplier, unless it is filtered out by its type and level, see
+     * {@link EventService#sendEvent(EventType, EventLogLevel, Supplier)}. A filtered event is never built.
+     *
+     * @return a Mono emitting the send result once the event is acknowledged by Kafka, empty if the event was filtered
+     */
+    public Mono<SendResult<String, Event>> sendEvent(EventType eventType, EventLogLevel eventLogLevel, Supplier<Event.Builder> eventBuilder) {
+        if (!eventService.isEnabled(eventType, eventLogLevel)) {
+            return Mono.empty();
+        }
+        return Mono.<SendResult<String, Event>>fromFuture(() -> eventService.sendEventAsync(eventType, eventLogLevel, eventBuilder), true)
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Sends an already built event message.
+     *
+     * @param eventMessage the event message to send
+     * @return a Mono emitting the send result once the event is acknowledged by Kafka, empty if the module is disabled
+     * or the event type is ignored
+     */
+    public Mono<SendResult<String, Event>> sendEvent(Event eventMessage) {
+        return send(eventMessage).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Sends a stream of event messages with at most {@link #DEFAULT_MAX_IN_FLIGHT} unacknowledged events, see
+     * {@link #sendEvents(Publisher, int)}.
+     */
+    public Flux<EventSendResult> sendEvents(Publisher<Event> events) {
+        return sendEvents(events, DEFAULT_MAX_IN_FLIGHT);
+    }
+
+    /**
+     * Sends a stream of event messages. No more than {@code maxInFlight} events are requested from the publisher
+     * ahead of their Kafka acknowledgements, so a slow broker slows the publisher down instead of buffering events.
+     *
+     * @param events      the event messages to send
+     * @param maxInFlight the maximum number of events awaiting acknowledgement
+     * @return one result per event in the order of the publisher; failures are reported in the results, the Flux
+     * itself only fails if the publisher does
+     */
+    public Flux<EventSendResult> sendEvents(Publisher<Event> events, int maxInFlight) {
+        return Flux.from(events)
+                .publishOn(Schedulers.boundedElastic(), maxInFlight)
+                .flatMapSequential(event -> send(event)
+                        .map(sendResult -> new EventSendResult(event, sendResult, null))
+                        .defaultIfEmpty(new EventSendResult(event, null, null))
+                        .onErrorResume(e -> Mono.just(new EventSendResult(event, null, e))), maxInFlight);
+    }
+
+    private Mono<SendResult<String, Event>> send(Event eventMessage) {
+        return Mono.fromFuture(() -> eventService.sendEventAsync(eventMessage), true);
+    }
+}
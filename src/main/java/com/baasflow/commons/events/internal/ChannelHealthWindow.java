@@ -0,0 +1,77 @@
+/*
+ * Licensed to BaaSFlow Corporation "BaaSFlow" under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  BaaSFlow licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this  file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.baasFlow.com/licenses/Apache_LICENSE-2.0
+ * or the root of this project.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baasflow.commons.events.internal;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free ring of the most recent send outcomes and acknowledgement latencies of one channel. Senders only claim a
+ * slot and write it; all the counting is done by {@link #snapshot}, off the send path. A snapshot racing with a sender
+ * may see a slot's new time with its old outcome, which is irrelevant for health evaluation.
+ */
+class ChannelHealthWindow {
+    private final int size;
+    private final AtomicLong cursor = new AtomicLong();
+    private final AtomicLongArray outcomes;
+    private final AtomicLongArray times;
+
+    ChannelHealthWindow(int size) {
+        this.size = size;
+        this.outcomes = new AtomicLongArray(size);
+        this.times = new AtomicLongArray(size);
+    }
+
+    void record(long nowMillis, long ackNanos, boolean failure) {
+        int slot = (int) Math.floorMod(cursor.getAndIncrement(), (long) size);
+        outcomes.set(slot, TimeUnit.NANOSECONDS.toMicros(ackNanos) << 1 | (failure ? 1 : 0));
+        times.set(slot, nowMillis);
+    }
+
+    /**
+     * @return the outcomes recorded since {@code fromMillis}
+     */
+    Snapshot snapshot(long fromMillis) {
+        long[] latencies = new long[size];
+        int calls = 0;
+        int failures = 0;
+        for (int i = 0; i < size; i++) {
+            long time = times.get(i);
+            if (time == 0 || time < fromMillis) {
+                continue;
+            }
+            long outcome = outcomes.get(i);
+            failures += (int) (outcome & 1);
+            latencies[calls++] = outcome >>> 1;
+        }
+        long p99Micros = 0;
+        if (calls > 0) {
+            Arrays.sort(latencies, 0, calls);
+            p99Micros = latencies[Math.max(0, (int) Math.ceil(calls * 0.99) - 1)];
+        }
+        return new Snapshot(calls, failures, p99Micros / 1_000);
+    }
+
+    record Snapshot(int calls, int failures, long p99AckMs) {
+    }
+}
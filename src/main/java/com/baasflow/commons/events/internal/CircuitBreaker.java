@@ -0,0 +1,198 @@
+/*
+ * Licensed to BaaSFlow Corporation "BaaSFlow" under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  BaaSFlow licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this  file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.baasFlow.com/licenses/Apache_LICENSE-2.0
+ * or the root of this project.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baasflow.commons.events.internal;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breaker of one Events channel, deciding from a count-based sliding window of send outcomes and latencies
+ * whether sends are attempted at all, see {@link EventsConfigProperties.CircuitBreakerProperties}.
+ * <p>
+ * A closed breaker admits every send after a single volatile read; recording outcomes and state changes are
+ * synchronized.
+ */
+class CircuitBreaker {
+    enum State {
+        CLOSED, HALF_OPEN, OPEN
+    }
+
+    private Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final String channel;
+    private final int windowSize;
+    private final int minimumCalls;
+    private final int failureRateThreshold;
+    private final long slowCallNanos;
+    private final int slowCallRateThreshold;
+    private final long openNanos;
+    private final int halfOpenProbes;
+    private final EventsConfigProperties.CircuitBreakerFallback fallback;
+    private final LongSupplier nanoTime;
+
+    private final boolean[] failedCalls;
+    private final boolean[] slowCalls;
+    private int next;
+    private int calls;
+    private int failures;
+    private int slow;
+
+    private volatile State state = State.CLOSED;
+    private long openedAt;
+    private int probesIssued;
+    private int probesSucceeded;
+    private final LongAdder shortCircuited = new LongAdder();
+
+    CircuitBreaker(String channel, EventsConfigProperties.CircuitBreakerProperties properties, @Nullable MeterRegistry meterRegistry) {
+        this(channel, properties, meterRegistry, System::nanoTime);
+    }
+
+    CircuitBreaker(String channel, EventsConfigProperties.CircuitBreakerProperties properties, @Nullable MeterRegistry meterRegistry,
+                   LongSupplier nanoTime) {
+        this.channel = channel;
+        this.windowSize = properties.getWindowSize();
+        this.minimumCalls = Math.min(properties.getMinimumCalls(), windowSize);
+        this.failureRateThreshold = properties.getFailureRateThreshold();
+        this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(properties.getSlowCallDurationMs());
+        this.slowCallRateThreshold = properties.getSlowCallRateThreshold();
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(properties.getOpenDurationMs());
+        this.halfOpenProbes = properties.getHalfOpenProbes();
+        this.fallback = properties.getFallback();
+        this.nanoTime = nanoTime;
+        this.failedCalls = new boolean[windowSize];
+        this.slowCalls = new boolean[windowSize];
+
+        if (meterRegistry != null) {
+            Gauge.builder("baasflow.events.circuit.state", this, breaker -> breaker.getState().ordinal())
+                    .description("State of the channel circuit breaker: 0 closed, 1 half-open, 2 open")
+                    .tag("channel", channel)
+                    .register(meterRegistry);
+            FunctionCounter.builder("baasflow.events.circuit.short.circuited", shortCircuited, LongAdder::sum)
+                    .description("Number of events handed to the fallback because the circuit breaker was open")
+                    .tags("channel", channel, "fallback", properties.getFallback().name())
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * @return whether the event may be sent; if so, {@link #onResult} must be called once the send completed
+     */
+    boolean tryAcquire() {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        synchronized (this) {
+            if (state == State.OPEN && nanoTime.getAsLong() - openedAt >= openNanos) {
+                transitionTo(State.HALF_OPEN);
+            }
+            if (state == State.HALF_OPEN && probesIssued < halfOpenProbes) {
+                probesIssued++;
+                return true;
+            }
+            if (state == State.CLOSED) {
+                return true;
+            }
+        }
+        shortCircuited.increment();
+        return false;
+    }
+
+    /**
+     * Records the outcome of a send admitted by {@link #tryAcquire()}.
+     *
+     * @param nanos   time from handing the event to the producer until it was acknowledged or failed
+     * @param failure whether the send failed
+     */
+    synchronized void onResult(long nanos, boolean failure) {
+        switch (state) {
+            case HALF_OPEN -> {
+                if (failure) {
+                    transitionTo(State.OPEN);
+                } else if (++probesSucceeded >= halfOpenProbes) {
+                    transitionTo(State.CLOSED);
+                }
+            }
+            case CLOSED -> {
+                record(failure, nanos >= slowCallNanos);
+                if (calls >= minimumCalls
+                        && (failures * 100 >= failureRateThreshold * calls || slow * 100 >= slowCallRateThreshold * calls)) {
+                    logger.warn("opening circuit breaker of channel '{}': {} of {} sends failed, {} were slow", channel, failures, calls, slow);
+                    transitionTo(State.OPEN);
+                }
+            }
+            case OPEN -> {
+                // a send admitted before the breaker opened
+            }
+        }
+    }
+
+    private void record(boolean failure, boolean slowCall) {
+        if (calls == windowSize) {
+            failures -= failedCalls[next] ? 1 : 0;
+            slow -= slowCalls[next] ? 1 : 0;
+        } else {
+            calls++;
+        }
+        failedCalls[next] = failure;
+        slowCalls[next] = slowCall;
+        failures += failure ? 1 : 0;
+        slow += slowCall ? 1 : 0;
+        next = (next + 1) % windowSize;
+    }
+
+    private void transitionTo(State target) {
+        logger.info("circuit breaker of channel '{}' changed from {} to {}", channel, state, target);
+        switch (target) {
+            case OPEN -> openedAt = nanoTime.getAsLong();
+            case HALF_OPEN -> {
+                probesIssued = 0;
+                probesSucceeded = 0;
+            }
+            case CLOSED -> {
+                calls = 0;
+                failures = 0;
+                slow = 0;
+                next = 0;
+            }
+        }
+        state = target;
+    }
+
+    EventsConfigProperties.CircuitBreakerFallback getFallback() {
+        return fallback;
+    }
+
+    State getState() {
+        return state;
+    }
+
+    long getShortCircuited() {
+        return shortCircuited.sum();
+    }
+}
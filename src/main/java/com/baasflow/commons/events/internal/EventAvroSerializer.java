@@ -0,0 +1,237 @@
+/*
+ * Licensed to BaaSFlow Corporation "BaaSFlow" under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  BaaSFlow licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this  file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.baasFlow.com/licenses/Apache_LICENSE-2.0
+ * or the root of this project.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baasflow.commons.events.internal;
+
+import com.baasflow.commons.events.Event;
+import org.apache.avro.SchemaNormalization;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DatumWriter;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.specific.SpecificDatumWriter;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Serializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Serializes {@link Event}s straight into the Confluent or AWS Glue schema registry wire format, so consumers using the
+ * registry deserializers read them unchanged.
+ * <p>
+ * Unlike the registry serializers it encodes the generated class with a thread-local, reused {@link BinaryEncoder} and
+ * output buffer, and resolves the schema id (or Glue schema version id) only once per topic, caching the complete
+ * record header. With a {@link SchemaCacheFile}, headers known from an earlier run are used right away and only
+ * refreshed from the registry in the background.
+ */
+class EventAvroSerializer implements Serializer<Event> {
+    private static final Logger logger = LoggerFactory.getLogger(EventAvroSerializer.class);
+
+    static final byte CONFLUENT_MAGIC_BYTE = 0;
+    static final byte GLUE_HEADER_VERSION_BYTE = 3;
+    static final byte GLUE_COMPRESSION_NONE = 0;
+
+    /**
+     * Buffers grown beyond this size by an unusually large event are not kept for reuse.
+     */
+    private static final int MAX_RETAINED_BUFFER_SIZE = 1024 * 1024;
+
+    private static final DatumWriter<Event> DATUM_WRITER = new SpecificDatumWriter<>(Event.getClassSchema());
+    private static final ThreadLocal<EncoderState> ENCODER_STATE = ThreadLocal.withInitial(EncoderState::new);
+    private static final String SCHEMA_FINGERPRINT = Long.toHexString(SchemaNormalization.parsingFingerprint64(Event.getClassSchema()));
+
+    /**
+     * Refreshes cached headers of all serializers, its thread stops when idle.
+     */
+    private static final ThreadPoolExecutor REFRESH_EXECUTOR = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+        Thread thread = new Thread(runnable, "baasflow-events-schema-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        REFRESH_EXECUTOR.allowCoreThreadTimeOut(true);
+    }
+
+    private final Function<String, byte[]> headerResolver;
+    private final Map<String, byte[]> headers = new ConcurrentHashMap<>();
+    /**
+     * Topics whose header was taken from the cache file, to be refreshed once it is in {@link #headers}.
+     */
+    private final Set<String> staleTopics = ConcurrentHashMap.newKeySet();
+
+    @CheckForNull
+    private final String registry;
+    @CheckForNull
+    private final SchemaCacheFile cacheFile;
+
+    /**
+     * @param headerResolver resolves the wire format header written in front of every record of the given topic
+     */
+    EventAvroSerializer(Function<String, byte[]> headerResolver) {
+        this(headerResolver, null, null);
+    }
+
+    /**
+     * @param headerResolver resolves the wire format header written in front of every record of the given topic
+     * @param registry       identifies the registry in cache file keys
+     * @param cacheFile      the cache file to read headers from and write resolved headers to, if any
+     */
+    EventAvroSerializer(Function<String, byte[]> headerResolver, @Nullable String registry, @Nullable SchemaCacheFile cacheFile) {
+        this.headerResolver = headerResolver;
+        this.registry = registry;
+        this.cacheFile = cacheFile;
+    }
+
+    static EventAvroSerializer confluent(String schemaRegistryUrl, @Nullable SchemaCacheFile cacheFile) {
+        var registry = new ConfluentSchemaRegistry(schemaRegistryUrl);
+        return new EventAvroSerializer(topic -> confluentHeader(registry.register(topic + "-value", Event.getClassSchema())),
+                "confluent:" + schemaRegistryUrl, cacheFile);
+    }
+
+    static EventAvroSerializer glue(String awsRegion, String registryName, String schemaName, @Nullable SchemaCacheFile cacheFile) {
+        return new EventAvroSerializer(topic -> glueHeader(GlueSchemaVersions.getOrRegister(awsRegion, registryName,
+                schemaName != null ? schemaName : topic, Event.getClassSchema().toString())),
+                "glue:" + awsRegion + ":" + registryName + ":" + schemaName, cacheFile);
+    }
+
+    static byte[] confluentHeader(int schemaId) {
+        return ByteBuffer.allocate(5).put(CONFLUENT_MAGIC_BYTE).putInt(schemaId).array();
+    }
+
+    static byte[] glueHeader(UUID schemaVersionId) {
+        return ByteBuffer.allocate(18)
+                .put(GLUE_HEADER_VERSION_BYTE)
+                .put(GLUE_COMPRESSION_NONE)
+                .putLong(schemaVersionId.getMostSignificantBits())
+                .putLong(schemaVersionId.getLeastSignificantBits())
+                .array();
+    }
+
+    /**
+     * Resolves and caches the header of the topic ahead of the first record sent to it.
+     */
+    void resolve(String topic) {
+        header(topic);
+    }
+
+    @Override
+    public byte[] serialize(String topic, Event event) {
+        if (event == null) {
+            return null;
+        }
+
+        byte[] header = header(topic);
+        EncoderState state = ENCODER_STATE.get();
+        try {
+            state.buffer.write(header);
+            state.encoder = EncoderFactory.get().binaryEncoder(state.buffer, state.encoder);
+            DATUM_WRITER.write(event, state.encoder);
+            state.encoder.flush();
+            return state.buffer.toByteArray();
+        } catch (IOException | RuntimeException e) {
+            throw new SerializationException("Failed to serialize event " + event.getId() + " for topic " + topic, e);
+        } finally {
+            state.reset();
+        }
+    }
+
+    private byte[] header(String topic) {
+        byte[] header = headers.get(topic);
+        if (header != null) {
+            return header;
+        }
+        try {
+            header = headers.computeIfAbsent(topic, this::loadHeader);
+        } catch (RuntimeException e) {
+            throw new SerializationException("Failed to resolve the schema of topic " + topic, e);
+        }
+        if (staleTopics.remove(topic)) {
+            refreshInBackground(topic, header);
+        }
+        return header;
+    }
+
+    private byte[] loadHeader(String topic) {
+        if (cacheFile == null) {
+            return headerResolver.apply(topic);
+        }
+
+        byte[] cached = cacheFile.get(cacheKey(topic));
+        if (cached != null) {
+            logger.info("using cached Event schema for topic {} from {}", topic, cacheFile.getPath());
+            staleTopics.add(topic);
+            return cached;
+        }
+        byte[] header = headerResolver.apply(topic);
+        cacheFile.put(cacheKey(topic), header);
+        return header;
+    }
+
+    private String cacheKey(String topic) {
+        return registry + "/" + topic + "/" + SCHEMA_FINGERPRINT;
+    }
+
+    /**
+     * Checks a cached header against the registry off the send path; on failure the cached header stays in use.
+     */
+    private void refreshInBackground(String topic, byte[] cached) {
+        REFRESH_EXECUTOR.execute(() -> {
+            try {
+                byte[] header = headerResolver.apply(topic);
+                if (!Arrays.equals(header, cached)) {
+                    logger.warn("schema registry returned a different schema id for topic {} than cached, updating", topic);
+                    headers.put(topic, header);
+                    cacheFile.put(cacheKey(topic), header);
+                }
+            } catch (RuntimeException e) {
+                logger.warn("failed to refresh Event schema for topic {}, keeping cached schema id", topic, e);
+            }
+        });
+    }
+
+    private static class EncoderState {
+        private ByteArrayOutputStream buffer = new ByteArrayOutputStream(1024);
+        private BinaryEncoder encoder;
+
+        void reset() {
+            if (buffer.size() > MAX_RETAINED_BUFFER_SIZE) {
+                buffer = new ByteArrayOutputStream(1024);
+                encoder = null;
+            } else {
+                buffer.reset();
+            }
+        }
+    }
+}
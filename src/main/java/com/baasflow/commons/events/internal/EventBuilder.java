@@ -21,24 +21,102 @@
 package com.baasflow.commons.events.internal;
 
 import com.baasflow.commons.events.Event;
+import com.baasflow.commons.events.EventIdGenerator;
 import com.baasflow.commons.events.EventLogLevel;
 import com.baasflow.commons.events.EventStatus;
 import com.baasflow.commons.events.EventType;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.time.Instant;
+import javax.annotation.Nullable;
+import java.time.Clock;
 import java.util.Map;
-import java.util.UUID;
 
+/**
+ * Creates events with the configured id generator and clock. The static methods use process wide fallbacks, for
+ * builders created outside Spring; beans use the instance methods, so that application contexts in one JVM keep
+ * their own configuration.
+ */
 @Service
 public class EventBuilder {
+    private static final Logger logger = LoggerFactory.getLogger(EventBuilder.class);
+
+    private static volatile EventIdGenerator defaultIdGenerator = EventIdGenerator.random();
+    private static volatile Clock defaultClock = Clock.systemUTC();
+
+    @Autowired
+    EventsConfigProperties eventsConfigProperties;
+
+    @Autowired
+    ObjectProvider<EventIdGenerator> eventIdGenerator;
+
+    @Nullable
+    private EventIdGenerator idGenerator;
+    @Nullable
+    private Clock clock;
+
+    @PostConstruct
+    public void init() {
+        Clock eventClock = eventsConfigProperties.getClockResolutionMs() > 0
+                ? new CoarseClock(eventsConfigProperties.getClockResolutionMs())
+                : Clock.systemUTC();
+        idGenerator = eventIdGenerator.getIfAvailable(() -> switch (eventsConfigProperties.getIdGenerator()) {
+            case RANDOM -> EventIdGenerator.random();
+            case TIME_ORDERED -> EventIdGenerator.timeOrdered(eventClock);
+        });
+        clock = eventClock;
+        logger.info("event ids from {}, timestamps from {}", idGenerator.getClass().getSimpleName(), clock);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (clock instanceof CoarseClock coarseClock) {
+            coarseClock.close();
+        }
+    }
+
+    /**
+     * Sets the fallback id generator and clock of {@link #createEventBuilder()} and {@link #complete(Event.Builder)},
+     * used by builders created outside Spring. The caller stays responsible for closing the clock.
+     */
+    public static void configure(EventIdGenerator eventIdGenerator, Clock eventClock) {
+        defaultIdGenerator = eventIdGenerator;
+        defaultClock = eventClock;
+    }
+
+    /**
+     * @return a builder with an id and a timestamp from the configuration of this instance
+     */
+    public Event.Builder newEventBuilder() {
+        return createEventBuilder(idGenerator(), clock());
+    }
+
+    /**
+     * Like {@link #complete(Event.Builder)}, with the configuration of this instance.
+     */
+    public Event.Builder completeEventBuilder(Event.Builder builder) {
+        return complete(builder, idGenerator(), clock());
+    }
+
+    private EventIdGenerator idGenerator() {
+        return idGenerator != null ? idGenerator : defaultIdGenerator;
+    }
+
+    private Clock clock() {
+        return clock != null ? clock : defaultClock;
+    }
 
     public Event auditlogEvent(String sourceModule, String event, EventStatus eventStatus) {
         return this.auditlogEvent(sourceModule, event, eventStatus, null);
     }
 
     public Event auditlogEvent(String sourceModule, String event, EventStatus eventStatus, Map<String, String> correlationIds) {
-        return createEventBuilder()
+        return newEventBuilder()
                 .setEvent(event)
                 .setEventLogLevel(EventLogLevel.INFO)
                 .setEventType(EventType.audit)
@@ -49,7 +127,7 @@ public class EventBuilder {
     }
 
     public Event event(String sourceModule, String event, EventType eventType, EventStatus eventStatus, String payload, String payloadType, Map<String, String> correlationIds) {
-        return createEventBuilder()
+        return newEventBuilder()
                 .setEvent(event)
                 .setEventLogLevel(EventLogLevel.INFO)
                 .setEventType(eventType)
@@ -62,7 +140,7 @@ public class EventBuilder {
     }
 
     public Event event(String sourceModule, String event, EventType eventType, EventStatus eventStatus, String payload, String payloadFormat, String payloadType, Map<String, String> correlationIds) {
-        return createEventBuilder()
+        return newEventBuilder()
                 .setEvent(event)
                 .setEventLogLevel(EventLogLevel.INFO)
                 .setEventType(eventType)
@@ -75,10 +153,35 @@ public class EventBuilder {
                 .build();
     }
 
+    /**
+     * Assigns an id and a timestamp to a builder that has none, e.g. one created by {@link Event#newBuilder()}, from
+     * the fallback configuration, see {@link #configure}.
+     */
+    public static Event.Builder complete(Event.Builder builder) {
+        return complete(builder, defaultIdGenerator, defaultClock);
+    }
+
+    /**
+     * @return a builder with an id and a timestamp from the fallback configuration, see {@link #configure}
+     */
     public static Event.Builder createEventBuilder() {
+        return createEventBuilder(defaultIdGenerator, defaultClock);
+    }
+
+    private static Event.Builder complete(Event.Builder builder, EventIdGenerator idGenerator, Clock clock) {
+        if (!builder.hasId()) {
+            builder.setId(idGenerator.nextId());
+        }
+        if (!builder.hasEventTimestamp()) {
+            builder.setEventTimestamp(clock.instant());
+        }
+        return builder;
+    }
+
+    private static Event.Builder createEventBuilder(EventIdGenerator idGenerator, Clock clock) {
         return Event.newBuilder()
-                .setId(UUID.randomUUID())
-                .setEventTimestamp(Instant.now())
+                .setId(idGenerator.nextId())
+                .setEventTimestamp(clock.instant())
                 ;
     }
 
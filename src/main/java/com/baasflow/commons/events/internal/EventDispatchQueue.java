@@ -0,0 +1,297 @@
+/*
+ * Licensed to BaaSFlow Corporation "BaaSFlow" under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  BaaSFlow licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this  file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.baasFlow.com/licenses/Apache_LICENSE-2.0
+ * or the root of this project.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baasflow.commons.events.internal;
+
+import com.baasflow.commons.events.Event;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.support.SendResult;
+
+import javax.annotation.Nullable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * A bounded, lock-free queue in front of one Events channel, drained by dedicated sender threads. The budget is
+ * enforced both in number of events and in estimated serialized bytes; what happens to an event that does not fit is
+ * decided by the channel's {@link EventsConfigProperties.OverflowPolicy}.
+ */
+class EventDispatchQueue {
+    private Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final String channel;
+    private final int maxQueuedEvents;
+    private final long maxQueuedBytes;
+    private final EventsConfigProperties.OverflowPolicy overflowPolicy;
+    private final long blockTimeoutNanos;
+    private final Function<Event, CompletableFuture<SendResult<String, Event>>> sender;
+    private final Consumer<Event> overflowSink;
+
+    private final Queue<PendingEvent> queue = new ConcurrentLinkedQueue<>();
+    private final Semaphore available = new Semaphore(0);
+    private final AtomicInteger queuedEvents = new AtomicInteger();
+    private final AtomicLong queuedBytes = new AtomicLong();
+    private final AtomicInteger blockedCallers = new AtomicInteger();
+    private final Object spaceMonitor = new Object();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder spilled = new LongAdder();
+    private final List<Thread> senderThreads = new ArrayList<>();
+    private volatile boolean running = true;
+
+    EventDispatchQueue(String channel, EventsConfigProperties.DispatchProperties properties,
+                       Function<Event, CompletableFuture<SendResult<String, Event>>> sender, Consumer<Event> overflowSink,
+                       @Nullable MeterRegistry meterRegistry) {
+        this.channel = channel;
+        this.maxQueuedEvents = properties.getMaxQueuedEvents();
+        this.maxQueuedBytes = properties.getMaxQueuedBytes();
+        this.overflowPolicy = properties.getOverflowPolicy();
+        this.blockTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(properties.getBlockTimeoutMs());
+        this.sender = sender;
+        this.overflowSink = overflowSink;
+
+        if (meterRegistry != null) {
+            Gauge.builder("baasflow.events.dispatch.queue.events", queuedEvents, AtomicInteger::get)
+                    .description("Number of events waiting in the dispatch queue")
+                    .tag("channel", channel)
+                    .register(meterRegistry);
+            Gauge.builder("baasflow.events.dispatch.queue.bytes", queuedBytes, AtomicLong::get)
+                    .description("Estimated size of the events waiting in the dispatch queue")
+                    .baseUnit("bytes")
+                    .tag("channel", channel)
+                    .register(meterRegistry);
+            FunctionCounter.builder("baasflow.events.dispatch.dropped", dropped, LongAdder::sum)
+                    .description("Number of events dropped because the dispatch queue was full")
+                    .tags("channel", channel, "policy", overflowPolicy.name())
+                    .register(meterRegistry);
+            FunctionCounter.builder("baasflow.events.dispatch.spilled", spilled, LongAdder::sum)
+                    .description("Number of events handed to the overflow sink because the dispatch queue was full")
+                    .tag("channel", channel)
+                    .register(meterRegistry);
+        }
+
+        for (int i = 0; i < properties.getSenderThreads(); i++) {
+            Thread thread = new Thread(this::drain, "baasflow-events-" + channel + "-sender-" + i);
+            thread.setDaemon(true);
+            senderThreads.add(thread);
+        }
+        senderThreads.forEach(Thread::start);
+    }
+
+    /**
+     * Queues the event for sending.
+     *
+     * @param event the event to send
+     * @return a future completed with the Kafka send result, completed with {@code null} if the event was spilled,
+     * or failed with {@link RejectedExecutionException} if the event was dropped
+     */
+    CompletableFuture<SendResult<String, Event>> offer(Event event) {
+        if (!running) {
+            return CompletableFuture.failedFuture(new RejectedExecutionException("dispatch queue of channel " + channel + " is shut down"));
+        }
+
+        int size = EventSizeEstimator.estimate(event);
+        if (!tryReserve(size)) {
+            switch (overflowPolicy) {
+                case DROP_NEWEST:
+                    return drop(event);
+                case DROP_OLDEST:
+                    if (!evictUntilReserved(size)) {
+                        return drop(event);
+                    }
+                    break;
+                case SPILL_TO_DISK:
+                    spilled.increment();
+                    overflowSink.accept(event);
+                    return CompletableFuture.completedFuture(null);
+                case BLOCK:
+                default:
+                    if (!awaitReserved(size)) {
+                        return drop(event);
+                    }
+            }
+        }
+
+        var pending = new PendingEvent(event, size, new CompletableFuture<>());
+        queue.add(pending);
+        available.release();
+        return pending.future;
+    }
+
+    int getQueuedEvents() {
+        return queuedEvents.get();
+    }
+
+    long getDropped() {
+        return dropped.sum();
+    }
+
+    long getSpilled() {
+        return spilled.sum();
+    }
+
+    /**
+     * Stops accepting events and gives the sender threads the specified time to drain the queue. Events still queued
+     * after the timeout are failed.
+     */
+    void shutdown(Duration timeout) {
+        running = false;
+        long deadline = System.nanoTime() + timeout.toNanos();
+        for (Thread thread : senderThreads) {
+            try {
+                thread.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        int abandoned = 0;
+        PendingEvent pending;
+        while ((pending = queue.poll()) != null) {
+            pending.future.completeExceptionally(new RejectedExecutionException("dispatch queue of channel " + channel + " is shut down"));
+            abandoned++;
+        }
+        if (abandoned > 0) {
+            logger.warn("{} events were still queued for channel '{}' at shutdown and were not sent", abandoned, channel);
+        }
+    }
+
+    private boolean tryReserve(int size) {
+        while (true) {
+            int events = queuedEvents.get();
+            if (events >= maxQueuedEvents) {
+                return false;
+            }
+            if (!queuedEvents.compareAndSet(events, events + 1)) {
+                continue;
+            }
+            // a single event larger than the byte budget is still accepted into an empty queue
+            if (queuedBytes.addAndGet(size) > maxQueuedBytes && events > 0) {
+                release(size);
+                return false;
+            }
+            return true;
+        }
+    }
+
+    private void release(int size) {
+        queuedEvents.decrementAndGet();
+        queuedBytes.addAndGet(-size);
+        if (blockedCallers.get() > 0) {
+            synchronized (spaceMonitor) {
+                spaceMonitor.notifyAll();
+            }
+        }
+    }
+
+    private boolean evictUntilReserved(int size) {
+        while (!tryReserve(size)) {
+            PendingEvent oldest = queue.poll();
+            if (oldest == null) {
+                return tryReserve(size);
+            }
+            available.tryAcquire();
+            release(oldest.size);
+            dropped.increment();
+            logger.debug("dropped oldest queued event {} of channel '{}'", oldest.event.getId(), channel);
+            oldest.future.completeExceptionally(new RejectedExecutionException("event dropped from the full dispatch queue of channel " + channel));
+        }
+        return true;
+    }
+
+    private boolean awaitReserved(int size) {
+        long deadline = System.nanoTime() + blockTimeoutNanos;
+        blockedCallers.incrementAndGet();
+        try {
+            synchronized (spaceMonitor) {
+                while (!tryReserve(size)) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0 || !running) {
+                        return false;
+                    }
+                    spaceMonitor.wait(Math.max(1, TimeUnit.NANOSECONDS.toMillis(remaining)));
+                }
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            blockedCallers.decrementAndGet();
+        }
+    }
+
+    private CompletableFuture<SendResult<String, Event>> drop(Event event) {
+        dropped.increment();
+        logger.debug("dropped event {}, dispatch queue of channel '{}' is full", event.getId(), channel);
+        return CompletableFuture.failedFuture(new RejectedExecutionException("dispatch queue of channel " + channel + " is full"));
+    }
+
+    private void drain() {
+        while (running || !queue.isEmpty()) {
+            try {
+                if (!available.tryAcquire(100, TimeUnit.MILLISECONDS)) {
+                    continue;
+                }
+            } catch (InterruptedException e) {
+                if (!running) {
+                    return;
+                }
+                continue;
+            }
+
+            PendingEvent pending = queue.poll();
+            if (pending == null) {
+                continue;
+            }
+            release(pending.size);
+            try {
+                sender.apply(pending.event).whenComplete((result, e) -> {
+                    if (e != null) {
+                        pending.future.completeExceptionally(e);
+                    } else {
+                        pending.future.complete(result);
+                    }
+                });
+            } catch (RuntimeException e) {
+                pending.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    private record PendingEvent(Event event, int size, CompletableFuture<SendResult<String, Event>> future) {
+    }
+}
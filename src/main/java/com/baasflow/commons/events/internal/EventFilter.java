@@ -0,0 +1,111 @@
+/*
+ * Licensed to BaaSFlow Corporation "BaaSFlow" under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  BaaSFlow licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this  file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.baasFlow.com/licenses/Apache_LICENSE-2.0
+ * or the root of this project.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baasflow.commons.events.internal;
+
+import com.baasflow.commons.events.Event;
+import com.baasflow.commons.events.EventLogLevel;
+
+import javax.annotation.Nullable;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Minimum log level and allow/deny lists of source modules and event names of one channel, resolved once at startup.
+ * <p>
+ * The level check needs nothing but the level, so it can run before an event is built; the name checks need the
+ * source module and event name, and reject an event that lacks one of them if an allow list is configured.
+ */
+final class EventFilter {
+    static final EventFilter ACCEPT_ALL = new EventFilter(null, Set.of(), Set.of(), Set.of(), Set.of());
+
+    @Nullable
+    private final EventLogLevel minLevel;
+    private final Set<String> allowedSourceModules;
+    private final Set<String> deniedSourceModules;
+    private final Set<String> allowedEvents;
+    private final Set<String> deniedEvents;
+
+    private EventFilter(@Nullable EventLogLevel minLevel, Set<String> allowedSourceModules, Set<String> deniedSourceModules,
+                        Set<String> allowedEvents, Set<String> deniedEvents) {
+        this.minLevel = minLevel;
+        this.allowedSourceModules = allowedSourceModules;
+        this.deniedSourceModules = deniedSourceModules;
+        this.allowedEvents = allowedEvents;
+        this.deniedEvents = deniedEvents;
+    }
+
+    /**
+     * @param global the filter settings given for all channels
+     * @param local  the filter settings of the channel, each one taking precedence over the global one if set
+     */
+    static EventFilter create(EventsConfigProperties.FilterProperties global, @Nullable EventsConfigProperties.FilterProperties local) {
+        var filter = new EventFilter(
+                fallback(global, local, EventsConfigProperties.FilterProperties::getMinLevel),
+                copy(fallback(global, local, EventsConfigProperties.FilterProperties::getAllowedSourceModules)),
+                copy(fallback(global, local, EventsConfigProperties.FilterProperties::getDeniedSourceModules)),
+                copy(fallback(global, local, EventsConfigProperties.FilterProperties::getAllowedEvents)),
+                copy(fallback(global, local, EventsConfigProperties.FilterProperties::getDeniedEvents)));
+        return filter.isPassThrough() ? ACCEPT_ALL : filter;
+    }
+
+    private static <T> T fallback(EventsConfigProperties.FilterProperties global, @Nullable EventsConfigProperties.FilterProperties local,
+                                  Function<EventsConfigProperties.FilterProperties, T> f) {
+        T value = local == null ? null : f.apply(local);
+        return value != null ? value : f.apply(global);
+    }
+
+    private static Set<String> copy(@Nullable Set<String> values) {
+        return values == null ? Set.of() : Set.copyOf(values);
+    }
+
+    boolean isPassThrough() {
+        return minLevel == null && allowedSourceModules.isEmpty() && deniedSourceModules.isEmpty()
+                && allowedEvents.isEmpty() && deniedEvents.isEmpty();
+    }
+
+    boolean acceptsLevel(@Nullable EventLogLevel level) {
+        return minLevel == null || level == null || level.compareTo(minLevel) >= 0;
+    }
+
+    boolean accepts(@Nullable EventLogLevel level, @Nullable String sourceModule, @Nullable String event) {
+        return acceptsLevel(level)
+                && accepts(allowedSourceModules, deniedSourceModules, sourceModule)
+                && accepts(allowedEvents, deniedEvents, event);
+    }
+
+    boolean accepts(Event event) {
+        return this == ACCEPT_ALL || accepts(event.getEventLogLevel(), event.getSourceModule(), event.getEvent());
+    }
+
+    private static boolean accepts(Set<String> allowed, Set<String> denied, @Nullable String name) {
+        if (name == null) {
+            return allowed.isEmpty();
+        }
+        return !denied.contains(name) && (allowed.isEmpty() || allowed.contains(name));
+    }
+
+    @Override
+    public String toString() {
+        return "EventFilter{minLevel=" + minLevel + ", allowedSourceModules=" + allowedSourceModules
+                + ", deniedSourceModules=" + deniedSourceModules + ", allowedEvents=" + allowedEvents
+                + ", deniedEvents=" + deniedEvents + "}";
+    }
+}
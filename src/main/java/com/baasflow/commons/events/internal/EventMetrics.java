@@ -0,0 +1,237 @@
+/*
+ * Licensed to BaaSFlow Corporation "BaaSFlow" under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  BaaSFlow licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this  file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.baasFlow.com/licenses/Apache_LICENSE-2.0
+ * or the root of this project.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baasflow.commons.events.internal;
+
+import com.baasflow.commons.events.Event;
+import com.baasflow.commons.events.EventType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.apache.kafka.common.serialization.Serializer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaProducerException;
+import org.springframework.kafka.core.MicrometerProducerListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Nullable;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Micrometer instrumentation of the send pipeline: event build time, serialization time and size, time to Kafka
+ * acknowledgement, failures and in-flight events, plus the Kafka producer client metrics.
+ * <p>
+ * Meters are tagged with channel, event type and status (and exception class for failures) only, keeping cardinality
+ * low. Without a {@link MeterRegistry}, or with {@code metrics.enabled: false}, every method is a no-op.
+ */
+@Component
+public class EventMetrics {
+    private static final String NONE = "none";
+
+    @Autowired
+    EventsConfigProperties eventsConfigProperties;
+
+    @Autowired
+    ObjectProvider<MeterRegistry> meterRegistry;
+
+    private MeterRegistry registry;
+    private boolean percentileHistogram;
+
+    private final Map<MeterKey, Timer> buildTimers = new ConcurrentHashMap<>();
+    private final Map<MeterKey, Timer> sendTimers = new ConcurrentHashMap<>();
+    private final Map<MeterKey, Counter> failureCounters = new ConcurrentHashMap<>();
+    private final Map<MeterKey, Counter> filteredCounters = new ConcurrentHashMap<>();
+    private final Map<MeterKey, Timer> serializationTimers = new ConcurrentHashMap<>();
+    private final Map<MeterKey, DistributionSummary> serializedSizes = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+
+
+    @PostConstruct
+    public void init() {
+        var properties = eventsConfigProperties.getMetrics();
+        if (!Boolean.FALSE.equals(properties.getEnabled())) {
+            registry = meterRegistry.getIfAvailable();
+            percentileHistogram = Boolean.TRUE.equals(properties.getPercentileHistogram());
+        }
+    }
+
+    boolean isEnabled() {
+        return registry != null;
+    }
+
+    /**
+     * Records the time spent building an event.
+     */
+    public void recordBuild(@Nullable EventType eventType, long nanos) {
+        if (registry == null) {
+            return;
+        }
+        buildTimers.computeIfAbsent(new MeterKey(NONE, tag(eventType), NONE, NONE), key -> Timer.builder("baasflow.events.build")
+                        .description("Time spent building events")
+                        .tag("event.type", key.eventType())
+                        .publishPercentileHistogram(percentileHistogram)
+                        .register(registry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Counts an event dropped by the channel filters, before or after it was built.
+     */
+    public void recordFiltered(@Nullable EventType eventType) {
+        if (registry == null) {
+            return;
+        }
+        filteredCounters.computeIfAbsent(new MeterKey(NONE, tag(eventType), NONE, NONE), key -> Counter.builder("baasflow.events.filtered")
+                        .description("Number of events dropped by the channel filters")
+                        .tag("event.type", key.eventType())
+                        .register(registry))
+                .increment();
+    }
+
+    /**
+     * Counts an event handed to the Kafka producer of the channel as in flight, until {@link #recordSent} is called.
+     *
+     * @return the start time to pass to {@link #recordSent}
+     */
+    long sending(String channel) {
+        if (registry == null) {
+            return 0;
+        }
+        inFlight.computeIfAbsent(channel, this::registerInFlightGauge).incrementAndGet();
+        return System.nanoTime();
+    }
+
+    /**
+     * Records the time from {@link #sending} until Kafka acknowledged the event or the send failed.
+     */
+    void recordSent(String channel, Event event, long startNanos, @Nullable Throwable exception) {
+        if (registry == null) {
+            return;
+        }
+        inFlight.computeIfAbsent(channel, this::registerInFlightGauge).decrementAndGet();
+
+        String eventType = tag(event.getEventType());
+        String status = exception == null ? "success" : "failure";
+        sendTimers.computeIfAbsent(new MeterKey(channel, eventType, status, NONE), key -> Timer.builder("baasflow.events.send")
+                        .description("Time from handing an event to the Kafka producer until it is acknowledged or failed")
+                        .tags("channel", key.channel(), "event.type", key.eventType(), "status", key.status())
+                        .publishPercentileHistogram(percentileHistogram)
+                        .register(registry))
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+
+        if (exception != null) {
+            Throwable cause = exception;
+            while ((cause instanceof CompletionException || cause instanceof KafkaProducerException) && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            failureCounters.computeIfAbsent(new MeterKey(channel, eventType, "failure", cause.getClass().getSimpleName()), key -> Counter.builder("baasflow.events.send.failures")
+                            .description("Number of events Kafka did not accept, by exception class")
+                            .tags("channel", key.channel(), "event.type", key.eventType(), "exception", key.exception())
+                            .register(registry))
+                    .increment();
+        }
+    }
+
+    /**
+     * Wraps the value serializer so that serialization time and serialized size are recorded; returns it unchanged if
+     * metrics are disabled.
+     */
+    Serializer<Event> timed(Serializer<Event> serializer) {
+        return registry == null ? serializer : new TimedSerializer(serializer);
+    }
+
+    /**
+     * Binds the Kafka client metrics (batch size, record queue time, buffer available bytes, ...) of the producers
+     * created by the factory.
+     */
+    void bindProducerMetrics(DefaultKafkaProducerFactory<String, Event> producerFactory) {
+        if (registry != null) {
+            producerFactory.addListener(new MicrometerProducerListener<>(registry));
+        }
+    }
+
+    private AtomicInteger registerInFlightGauge(String channel) {
+        var count = new AtomicInteger();
+        Gauge.builder("baasflow.events.in.flight", count, AtomicInteger::get)
+                .description("Number of events handed to the Kafka producer and not yet acknowledged")
+                .tag("channel", channel)
+                .register(registry);
+        return count;
+    }
+
+    private static String tag(@Nullable EventType eventType) {
+        return eventType == null ? NONE : eventType.name();
+    }
+
+    private record MeterKey(String channel, String eventType, String status, String exception) {
+    }
+
+    private class TimedSerializer implements Serializer<Event> {
+        private final Serializer<Event> delegate;
+
+        TimedSerializer(Serializer<Event> delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void configure(Map<String, ?> configs, boolean isKey) {
+            delegate.configure(configs, isKey);
+        }
+
+        @Override
+        public byte[] serialize(String topic, Event event) {
+            long start = System.nanoTime();
+            byte[] data = delegate.serialize(topic, event);
+            long nanos = System.nanoTime() - start;
+
+            var key = new MeterKey(topic, tag(event == null ? null : event.getEventType()), NONE, NONE);
+            serializationTimers.computeIfAbsent(key, k -> Timer.builder("baasflow.events.serialization")
+                            .description("Time spent serializing events")
+                            .tags("topic", k.channel(), "event.type", k.eventType())
+                            .publishPercentileHistogram(percentileHistogram)
+                            .register(registry))
+                    .record(nanos, TimeUnit.NANOSECONDS);
+            if (data != null) {
+                serializedSizes.computeIfAbsent(key, k -> DistributionSummary.builder("baasflow.events.serialized.size")
+                                .description("Size of serialized events")
+                                .baseUnit("bytes")
+                                .tags("topic", k.channel(), "event.type", k.eventType())
+                                .publishPercentileHistogram(percentileHistogram)
+                                .register(registry))
+                        .record(data.length);
+            }
+            return data;
+        }
+
+        @Override
+        public void close() {
+            delegate.close();
+        }
+    }
+}
@@ -0,0 +1,327 @@
+/*
+ * Licensed to BaaSFlow Corporation "BaaSFlow" under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  BaaSFlow licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this  file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.baasFlow.com/licenses/Apache_LICENSE-2.0
+ * or the root of this project.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baasflow.commons.events.internal;
+
+import com.baasflow.commons.events.Event;
+import com.baasflow.commons.events.EventLogLevel;
+import com.baasflow.commons.events.EventStatus;
+import com.baasflow.commons.events.EventType;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sampling stage of {@link com.baasflow.commons.events.EventService}, see {@link EventsConfigProperties.SamplingProperties}.
+ * <p>
+ * Audit events are never sampled out. Sampled-out events are counted by event type, log level and event name, and the
+ * counts are sent as a technical {@value #SUMMARY_EVENT} event every {@code summary-interval-ms}, so that the original
+ * volume can be reconstructed. Without {@code sampling.enabled}, every method is a no-op keeping all events.
+ */
+@Component
+public class EventSampler {
+    static final String SUMMARY_EVENT = "events_sampled_out";
+    static final String SOURCE_MODULE = "baasflow-events";
+    private static final double RECOVERY_STEP = 0.1;
+
+    private Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    @Autowired
+    EventsConfigProperties eventsConfigProperties;
+
+    @Autowired
+    KafkaSender kafkaSender;
+
+    @Autowired
+    EventBuilder eventBuilder;
+
+    @Autowired
+    ObjectProvider<MeterRegistry> meterRegistry;
+
+    private EventsConfigProperties.SamplingProperties properties;
+    private final EnumMap<EventLogLevel, Double> levelRates = new EnumMap<>(EventLogLevel.class);
+    private final Map<String, Double> eventRates = new ConcurrentHashMap<>();
+    private final Map<String, ChannelState> channels = new LinkedHashMap<>();
+    private final EnumMap<EventType, ChannelState> primaryChannels = new EnumMap<>(EventType.class);
+    private final Map<SampledOutKey, LongAdder> sampledOut = new ConcurrentHashMap<>();
+    private final LongAdder sampledOutTotal = new LongAdder();
+    private volatile boolean enabled;
+    private ScheduledExecutorService scheduler;
+    private Instant summaryStart = Instant.now();
+
+
+    @PostConstruct
+    public void init() {
+        properties = eventsConfigProperties.getSampling();
+        RoutingTable routingTable = kafkaSender.getRoutingTable();
+        if (!properties.isEnabled() || routingTable == null) {
+            return;
+        }
+
+        levelRates.putAll(properties.getLevelRates());
+        eventRates.putAll(properties.getEventRates());
+        for (Route route : routingTable.getChannels()) {
+            Double rate = eventsConfigProperties.getChannels().get(route.getChannel()).getSamplingRate();
+            channels.put(route.getChannel(), new ChannelState(route, rate == null ? 1.0 : rate));
+        }
+        for (EventType eventType : EventType.values()) {
+            List<Route> routes = routingTable.routesFor(eventType);
+            if (!routes.isEmpty()) {
+                primaryChannels.put(eventType, channels.get(routes.get(0).getChannel()));
+            }
+        }
+        logger.info("sampling events, rates by level {}, by event {}, by channel {}, adaptive: {}", levelRates, eventRates, channels, properties.isAdaptive());
+        enabled = true;
+
+        var registry = eventsConfigProperties.getMetrics().getEnabled() == Boolean.FALSE ? null : meterRegistry.getIfAvailable();
+        if (registry != null) {
+            FunctionCounter.builder("baasflow.events.sampled.out", sampledOutTotal, LongAdder::sum)
+                    .description("Number of events dropped by sampling")
+                    .register(registry);
+            channels.forEach((channel, state) -> Gauge.builder("baasflow.events.sampling.adaptive.rate", state, s -> s.adaptiveRate)
+                    .description("Factor applied by adaptive sampling to the rate of sheddable events")
+                    .tag("channel", channel)
+                    .register(registry));
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "baasflow-events-sampler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (properties.isAdaptive()) {
+            scheduler.scheduleWithFixedDelay(this::adjust, properties.getAdjustIntervalMs(), properties.getAdjustIntervalMs(), TimeUnit.MILLISECONDS);
+        }
+        if (properties.getSummaryIntervalMs() > 0) {
+            scheduler.scheduleWithFixedDelay(this::sendSummary, properties.getSummaryIntervalMs(), properties.getSummaryIntervalMs(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            sendSummary();
+        }
+    }
+
+    /**
+     * @return whether the rate of an event depends on its name, i.e. whether the name is needed to sample it
+     */
+    public boolean isNameSensitive() {
+        return enabled && !eventRates.isEmpty();
+    }
+
+    /**
+     * Decides whether the event is dropped, counting it if so. Events of unknown type are kept, as they may be audit
+     * events; callers not knowing the type yet should sample the built event instead.
+     *
+     * @param event the event name, or {@code null} if not known yet
+     */
+    public boolean isSampledOut(@Nullable EventType eventType, @Nullable EventLogLevel eventLogLevel, @Nullable String event) {
+        if (!enabled || eventType == null || eventType == EventType.audit) {
+            return false;
+        }
+        double rate = rate(eventType, eventLogLevel, event);
+        if (rate >= 1.0 || ThreadLocalRandom.current().nextDouble() < rate) {
+            return false;
+        }
+        sampledOut.computeIfAbsent(new SampledOutKey(eventType, eventLogLevel, event), key -> new LongAdder()).increment();
+        sampledOutTotal.increment();
+        return true;
+    }
+
+    public boolean isSampledOut(Event event) {
+        return enabled && isSampledOut(event.getEventType(), event.getEventLogLevel(), event.getEvent());
+    }
+
+    double rate(@Nullable EventType eventType, @Nullable EventLogLevel eventLogLevel, @Nullable String event) {
+        ChannelState channel = eventType == null ? null : primaryChannels.get(eventType);
+        Double rate = event == null ? null : eventRates.get(event);
+        if (rate == null && eventLogLevel != null) {
+            rate = levelRates.get(eventLogLevel);
+        }
+        if (rate == null) {
+            rate = channel == null ? 1.0 : channel.fixedRate;
+        }
+        if (channel != null && properties.isAdaptive() && properties.getSheddableEventTypes().contains(eventType)) {
+            rate *= channel.adaptiveRate;
+        }
+        return rate;
+    }
+
+    /**
+     * Lowers the adaptive rate of every channel whose producers are under pressure and raises it for the others.
+     */
+    void adjust() {
+        try {
+            channels.values().forEach(state -> adjust(state, queueTimeMs(state.route), bufferUtilisation(state.route)));
+        } catch (RuntimeException e) {
+            logger.warn("failed to adjust the adaptive sampling rate", e);
+        }
+    }
+
+    void adjust(ChannelState state, double queueTimeMs, double bufferUtilisation) {
+        double previous = state.adaptiveRate;
+        boolean underPressure = queueTimeMs > properties.getMaxQueueTimeMs() || bufferUtilisation > properties.getMaxBufferUtilisation();
+        state.adaptiveRate = underPressure
+                ? Math.max(properties.getMinRate(), previous / 2)
+                : Math.min(1.0, previous + RECOVERY_STEP);
+        if (underPressure && previous == 1.0) {
+            logger.warn("channel '{}' under pressure (record queue time {} ms, buffer utilisation {}), shedding sheddable events",
+                    state.route.getChannel(), queueTimeMs, bufferUtilisation);
+        } else if (!underPressure && previous < 1.0 && state.adaptiveRate == 1.0) {
+            logger.info("channel '{}' recovered, no longer shedding events", state.route.getChannel());
+        }
+    }
+
+    @CheckForNull
+    ChannelState channelState(String channel) {
+        return channels.get(channel);
+    }
+
+    private static double queueTimeMs(Route route) {
+        double max = 0;
+        for (KafkaTemplate<String, Event> template : templates(route)) {
+            max = Math.max(max, producerMetric(template, "record-queue-time-avg"));
+        }
+        return max;
+    }
+
+    private static double bufferUtilisation(Route route) {
+        double max = 0;
+        for (KafkaTemplate<String, Event> template : templates(route)) {
+            double total = producerMetric(template, "buffer-total-bytes");
+            if (total > 0) {
+                max = Math.max(max, 1.0 - producerMetric(template, "buffer-available-bytes") / total);
+            }
+        }
+        return max;
+    }
+
+    private static List<KafkaTemplate<String, Event>> templates(Route route) {
+        return route.getProducerPool() != null ? route.getProducerPool().getKafkaTemplates() : List.of(route.getKafkaTemplate());
+    }
+
+    private static double producerMetric(KafkaTemplate<String, Event> template, String name) {
+        for (Map.Entry<MetricName, ? extends Metric> metric : template.metrics().entrySet()) {
+            if (name.equals(metric.getKey().name()) && "producer-metrics".equals(metric.getKey().group())
+                    && metric.getValue().metricValue() instanceof Number value && !Double.isNaN(value.doubleValue())) {
+                return value.doubleValue();
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Sends the counts of the events sampled out since the previous summary, if there were any.
+     */
+    void sendSummary() {
+        Instant end = Instant.now();
+        JSONArray counts = new JSONArray();
+        // the adders stay in the map, so that no increment racing with the summary is lost
+        for (Map.Entry<SampledOutKey, LongAdder> entry : sampledOut.entrySet()) {
+            long count = entry.getValue().sumThenReset();
+            if (count == 0) {
+                continue;
+            }
+            SampledOutKey key = entry.getKey();
+            counts.put(new JSONObject()
+                    .put("eventType", key.eventType() == null ? JSONObject.NULL : key.eventType().name())
+                    .put("eventLogLevel", key.eventLogLevel() == null ? JSONObject.NULL : key.eventLogLevel().name())
+                    .put("event", key.event() == null ? JSONObject.NULL : key.event())
+                    .put("count", count));
+        }
+        Instant start = summaryStart;
+        summaryStart = end;
+        if (counts.isEmpty()) {
+            return;
+        }
+
+        Event summary = eventBuilder.newEventBuilder()
+                .setEventType(EventType.technical)
+                .setEventLogLevel(EventLogLevel.INFO)
+                .setEventStatus(EventStatus.success)
+                .setSourceModule(SOURCE_MODULE)
+                .setEvent(SUMMARY_EVENT)
+                .setPayload(new JSONObject()
+                        .put("from", start.toString())
+                        .put("to", end.toString())
+                        .put("counts", counts)
+                        .toString())
+                .setPayloadFormat("application/json")
+                .setPayloadType("baasflow.events.sampling.summary")
+                .build();
+        try {
+            kafkaSender.send(summary);
+        } catch (Exception e) {
+            logger.warn("failed to send sampling summary {}", summary.getPayload(), e);
+        }
+    }
+
+    static final class ChannelState {
+        private final Route route;
+        private final double fixedRate;
+        private volatile double adaptiveRate = 1.0;
+
+        ChannelState(Route route, double fixedRate) {
+            this.route = route;
+            this.fixedRate = fixedRate;
+        }
+
+        double getAdaptiveRate() {
+            return adaptiveRate;
+        }
+
+        @Override
+        public String toString() {
+            return route.getChannel() + "=" + fixedRate;
+        }
+    }
+
+    private record SampledOutKey(@Nullable EventType eventType, @Nullable EventLogLevel eventLogLevel, @Nullable String event) {
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Licensed to BaaSFlow Corporation "BaaSFlow" under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  BaaSFlow licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this  file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.baasFlow.com/licenses/Apache_LICENSE-2.0
+ * or the root of this project.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baasflow.commons.events.internal;
+
+import com.baasflow.commons.events.Event;
+
+import java.util.Map;
+
+/**
+ * Cheap estimate of the serialized size of an event, used for byte budgets where running the real Avro serializer on
+ * the caller thread would cost more than the estimate is worth.
+ */
+final class EventSizeEstimator {
+    /**
+     * Rough size of the fixed fields: UUID, timestamp, enums and union branch indexes.
+     */
+    private static final int FIXED_OVERHEAD = 64;
+
+    private EventSizeEstimator() {
+    }
+
+    static int estimate(Event event) {
+        int size = FIXED_OVERHEAD
+                + length(event.getSourceModule())
+                + length(event.getEvent())
+                + length(event.getPayload())
+                + length(event.getPayloadFormat())
+                + length(event.getPayloadType())
+                + length(event.getTenantId());
+
+        Map<String, String> correlationIds = event.getCorrelationIds();
+        if (correlationIds != null) {
+            for (var entry : correlationIds.entrySet()) {
+                size += 2 + length(entry.getKey()) + length(entry.getValue());
+            }
+        }
+        return size;
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length() + 1;
+    }
+}
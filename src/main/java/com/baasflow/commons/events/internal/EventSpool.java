@@ -0,0 +1,481 @@
+/*
+ * Licensed to BaaSFlow Corporation "BaaSFlow" under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  BaaSFlow licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this  file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.baasFlow.com/licenses/Apache_LICENSE-2.0
+ * or the root of this project.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baasflow.commons.events.internal;
+
+import com.baasflow.commons.events.Event;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.kafka.common.errors.ApiException;
+import org.apache.kafka.common.errors.RetriableException;
+import org.apache.kafka.common.errors.SerializationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.CheckForNull;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.stream.Stream;
+
+/**
+ * Durable local spool (write-ahead log) for events that could not be delivered to Kafka.
+ * <p>
+ * Events are appended, together with the name of the channel they failed on, as Avro single-object encoded records to
+ * memory-mapped segment files, which are rotated at
+ * {@code segment-size-bytes} and capped at {@code max-total-bytes} in total. A background replayer sends the spooled
+ * events in order once the {@link KafkaHealthIndicator} reports Kafka as healthy; while it does not, a single event is
+ * replayed per round as a probe. Replay is at-least-once: an event may be sent again if the application stops between
+ * the acknowledgement and the persisted read offset.
+ * <p>
+ * A record that fails with an error that retrying cannot fix (its channel is no longer configured, or Kafka rejected it
+ * with a non-retriable error such as {@code RecordTooLargeException}) is moved to the {@code quarantine.spool} file in
+ * the spool directory instead of blocking the records behind it.
+ */
+@Component
+public class EventSpool {
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".spool";
+    private static final String QUARANTINE_FILE = "quarantine.spool";
+    private static final long WRITER_SHUTDOWN_TIMEOUT_MS = 5_000;
+    private static final long REPLAY_ACK_TIMEOUT_MS = 30_000;
+
+    private Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    @Autowired
+    EventsConfigProperties eventsConfigProperties;
+
+    @Autowired
+    KafkaHealthIndicator kafkaHealthIndicator;
+
+    @Autowired
+    ObjectProvider<MeterRegistry> meterRegistry;
+
+    /**
+     * Segment files waiting for replay, oldest first. The last one is the current write segment, if there is one.
+     */
+    private final Deque<Path> segments = new ArrayDeque<>();
+    private SpoolSegment readSegment;
+    private SpoolSegment writeSegment;
+    private long nextSequence;
+    private int appendsSinceForce;
+
+    private final LongAdder appended = new LongAdder();
+    private final LongAdder replayed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder quarantined = new LongAdder();
+
+    private EventsConfigProperties.SpoolProperties properties;
+    private Path directory;
+    private int maxSegments;
+    private volatile boolean active;
+    private ScheduledExecutorService scheduler;
+    private ExecutorService writer;
+
+    @PostConstruct
+    public void init() throws IOException {
+        if (eventsConfigProperties.isDisabled() || !isEnabledForAnyChannel()) {
+            return;
+        }
+
+        properties = eventsConfigProperties.getSpool();
+        directory = Path.of(properties.getDirectory());
+        maxSegments = (int) Math.max(1, properties.getMaxTotalBytes() / properties.getSegmentSizeBytes());
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(path -> path.getFileName().toString().startsWith(SEGMENT_PREFIX) && path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .forEach(segments::add);
+        }
+        nextSequence = segments.isEmpty() ? 0 : sequenceOf(segments.getLast()) + 1;
+        logger.info("event spool initialized in {} with {} pending segments", directory, segments.size());
+
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry != null) {
+            Gauge.builder("baasflow.events.spool.segments", this, spool -> spool.getSegmentCount())
+                    .description("Number of spool segment files waiting for replay")
+                    .register(registry);
+            FunctionCounter.builder("baasflow.events.spool.appended", appended, LongAdder::sum)
+                    .description("Number of events written to the spool")
+                    .register(registry);
+            FunctionCounter.builder("baasflow.events.spool.replayed", replayed, LongAdder::sum)
+                    .description("Number of spooled events successfully replayed to Kafka")
+                    .register(registry);
+            FunctionCounter.builder("baasflow.events.spool.rejected", rejected, LongAdder::sum)
+                    .description("Number of events not spooled because the spool was full")
+                    .register(registry);
+            FunctionCounter.builder("baasflow.events.spool.quarantined", quarantined, LongAdder::sum)
+                    .description("Number of spooled events moved to quarantine because they cannot be delivered")
+                    .register(registry);
+        }
+        writer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(properties.getWriteQueueCapacity()), runnable -> {
+            Thread thread = new Thread(runnable, "baasflow-events-spool-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        active = true;
+    }
+
+    /**
+     * Starts the background replayer.
+     *
+     * @param sender sends a spooled event to the given channel without spooling it again on failure
+     */
+    public void startReplay(BiFunction<String, Event, CompletableFuture<SendResult<String, Event>>> sender) {
+        if (!active) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "baasflow-events-spool");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> replay(sender), properties.getReplayIntervalMs(), properties.getReplayIntervalMs(), TimeUnit.MILLISECONDS);
+        if (properties.getFsyncPolicy() == EventsConfigProperties.FsyncPolicy.BATCHED) {
+            scheduler.scheduleWithFixedDelay(this::force, properties.getFsyncIntervalMs(), properties.getFsyncIntervalMs(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    /**
+     * Appends the event to the spool on the spool's writer thread, so that callers on latency sensitive threads, like
+     * the Kafka producer I/O thread completing a send future, do not wait for the disk.
+     *
+     * @return a future completed with the result of {@link #append}; with false if the writer queue is full
+     */
+    public CompletableFuture<Boolean> appendAsync(String channel, Event event) {
+        if (!active) {
+            return CompletableFuture.completedFuture(false);
+        }
+        try {
+            return CompletableFuture.supplyAsync(() -> append(channel, event), writer);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            logger.error("event spool writer queue is full, event {} was not spooled", event.getId());
+            return CompletableFuture.completedFuture(false);
+        }
+    }
+
+    /**
+     * Appends the event to the spool.
+     *
+     * @param channel the channel the event is to be replayed to
+     * @param event   the event
+     * @return false if the event could not be spooled because the spool is inactive or full
+     */
+    public boolean append(String channel, Event event) {
+        if (!active) {
+            return false;
+        }
+
+        byte[] record = serialize(channel, event);
+        if (SpoolSegment.HEADER_SIZE + SpoolSegment.RECORD_HEADER_SIZE + record.length > properties.getSegmentSizeBytes()) {
+            rejected.increment();
+            logger.error("event {} of {} bytes does not fit into a spool segment", event.getId(), record.length);
+            return false;
+        }
+        synchronized (this) {
+            try {
+                if ((writeSegment == null || !writeSegment.append(record)) && !(rotate() && writeSegment.append(record))) {
+                    rejected.increment();
+                    logger.error("event spool in {} is full, event {} was not spooled", directory, event.getId());
+                    return false;
+                }
+                appended.increment();
+                if (properties.getFsyncPolicy() == EventsConfigProperties.FsyncPolicy.EVERY_RECORD
+                        || (properties.getFsyncPolicy() == EventsConfigProperties.FsyncPolicy.BATCHED && ++appendsSinceForce >= properties.getFsyncBatchSize())) {
+                    writeSegment.force();
+                    appendsSinceForce = 0;
+                }
+                return true;
+
+            } catch (IOException e) {
+                rejected.increment();
+                logger.error("failed to write event {} to the spool", event.getId(), e);
+                return false;
+            }
+        }
+    }
+
+    synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    long getQuarantinedCount() {
+        return quarantined.sum();
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        if (writer != null) {
+            writer.shutdown();
+            try {
+                if (!writer.awaitTermination(WRITER_SHUTDOWN_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                    logger.warn("event spool writer did not finish within {} ms, pending events were not spooled", WRITER_SHUTDOWN_TIMEOUT_MS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (this) {
+            active = false;
+            if (writeSegment != null) {
+                writeSegment.force();
+                writeSegment.close();
+            }
+            if (readSegment != null && readSegment != writeSegment) {
+                readSegment.close();
+            }
+            writeSegment = null;
+            readSegment = null;
+        }
+    }
+
+    void replay(BiFunction<String, Event, CompletableFuture<SendResult<String, Event>>> sender) {
+        // while Kafka is not known to be healthy only a single event is sent, as a probe
+        boolean healthy = kafkaHealthIndicator.isHealthy();
+        int budget = healthy ? Integer.MAX_VALUE : 1;
+        try {
+            while (active && budget-- > 0) {
+                SpooledEvent spooled;
+                synchronized (this) {
+                    spooled = peek();
+                }
+                if (spooled == null) {
+                    return;
+                }
+
+                Event event = spooled.event();
+                try {
+                    sender.apply(spooled.channel(), event).get(REPLAY_ACK_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                    replayed.increment();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (Exception e) {
+                    if (!isPermanent(e)) {
+                        logger.debug("replaying spooled event {} failed, retrying later", event.getId(), e);
+                        return;
+                    }
+                    quarantine(spooled, e);
+                }
+
+                synchronized (this) {
+                    readSegment.advance();
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.error("event spool replay failed", e);
+        }
+    }
+
+    /**
+     * @return whether sending the event again cannot succeed: its channel is unknown, or Kafka failed it with a
+     * non-retriable error
+     */
+    static boolean isPermanent(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof RetriableException) {
+                return false;
+            }
+            if (cause instanceof UnknownChannelException || cause instanceof SerializationException || cause instanceof ApiException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Appends the record to the quarantine file, layout {@code [int record length][record]} per record. The record
+     * is skipped even if that fails, it was logged with the error.
+     */
+    private void quarantine(SpooledEvent spooled, Exception e) {
+        quarantined.increment();
+        logger.error("spooled event {} cannot be delivered to channel '{}', moving it to quarantine", spooled.event().getId(), spooled.channel(), e);
+        byte[] record = serialize(spooled.channel(), spooled.event());
+        ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + record.length).putInt(record.length).put(record);
+        try {
+            Files.write(directory.resolve(QUARANTINE_FILE), buffer.array(), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException | RuntimeException x) {
+            logger.error("failed to write spooled event {} to quarantine: {}", spooled.event().getId(), spooled.event(), x);
+        }
+    }
+
+    private synchronized void force() {
+        if (writeSegment != null) {
+            writeSegment.force();
+            appendsSinceForce = 0;
+        }
+    }
+
+    @CheckForNull
+    private SpooledEvent peek() throws IOException {
+        while (true) {
+            if (readSegment == null) {
+                Path head = segments.peekFirst();
+                if (head == null) {
+                    return null;
+                }
+                readSegment = writeSegment != null && head.equals(writeSegment.getPath()) ? writeSegment : openForReplay(head);
+                if (readSegment == null) {
+                    continue;
+                }
+            }
+
+            byte[] record = readSegment.peek();
+            if (record != null) {
+                try {
+                    return deserialize(record);
+                } catch (IOException | RuntimeException e) {
+                    logger.error("skipping unreadable record in spool segment {}", readSegment.getPath(), e);
+                    readSegment.advance();
+                    continue;
+                }
+            }
+            if (readSegment == writeSegment) {
+                // caught up with the writer
+                return null;
+            }
+
+            logger.info("spool segment {} fully replayed", readSegment.getPath());
+            readSegment.delete();
+            segments.removeFirst();
+            readSegment = null;
+        }
+    }
+
+    @CheckForNull
+    private SpoolSegment openForReplay(Path path) {
+        try {
+            return SpoolSegment.open(path);
+        } catch (IOException e) {
+            logger.error("skipping unreadable spool segment {}", path, e);
+            segments.remove(path);
+            return null;
+        }
+    }
+
+    private boolean rotate() throws IOException {
+        if (writeSegment != null) {
+            writeSegment.force();
+            if (writeSegment != readSegment) {
+                writeSegment.close();
+            }
+            writeSegment = null;
+        }
+        if (segments.size() >= maxSegments) {
+            return false;
+        }
+
+        Path path = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, nextSequence++, SEGMENT_SUFFIX));
+        writeSegment = SpoolSegment.create(path, properties.getSegmentSizeBytes());
+        segments.addLast(path);
+        appendsSinceForce = 0;
+        logger.info("created spool segment {}", path);
+        return true;
+    }
+
+    private boolean isEnabledForAnyChannel() {
+        var channels = eventsConfigProperties.getChannels();
+        return channels != null && channels.values().stream().anyMatch(this::isEnabledFor);
+    }
+
+    boolean isEnabledFor(EventsConfigProperties.Event channel) {
+        Boolean enabled = channel.getSpoolEnabled() != null ? channel.getSpoolEnabled() : eventsConfigProperties.getSpool().getEnabled();
+        return Boolean.TRUE.equals(enabled);
+    }
+
+    private static long sequenceOf(Path segment) {
+        String name = segment.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (RuntimeException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Record layout: {@code [byte channel name length][channel name][Avro single-object encoded event]}.
+     */
+    private static byte[] serialize(String channel, Event event) {
+        byte[] channelName = channel.getBytes(StandardCharsets.UTF_8);
+        if (channelName.length > 255) {
+            throw new IllegalArgumentException("channel name too long to spool: " + channel);
+        }
+        try {
+            ByteBuffer buffer = event.toByteBuffer();
+            byte[] record = new byte[1 + channelName.length + buffer.remaining()];
+            record[0] = (byte) channelName.length;
+            System.arraycopy(channelName, 0, record, 1, channelName.length);
+            buffer.get(record, 1 + channelName.length, buffer.remaining());
+            return record;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static SpooledEvent deserialize(byte[] record) throws IOException {
+        int channelLength = record[0] & 0xff;
+        String channel = new String(record, 1, channelLength, StandardCharsets.UTF_8);
+        Event event = Event.fromByteBuffer(ByteBuffer.wrap(record, 1 + channelLength, record.length - 1 - channelLength));
+        return new SpooledEvent(channel, event);
+    }
+
+    private record SpooledEvent(String channel, Event event) {
+    }
+
+    /**
+     * Thrown by the replay sender for a spooled event whose channel is no longer configured.
+     */
+    static class UnknownChannelException extends RuntimeException {
+        UnknownChannelException(String channel) {
+            super("Failed to find Events Channel configuration for spooled event: " + channel);
+        }
+    }
+}
@@ -20,6 +20,8 @@
 
 package com.baasflow.commons.events.internal;
 
+import com.baasflow.commons.events.EventLogLevel;
+import com.baasflow.commons.events.EventType;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -28,7 +30,12 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.context.properties.NestedConfigurationProperty;
 import org.springframework.kafka.core.KafkaTemplate;
 
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @Data
 @NoArgsConstructor
@@ -46,10 +53,77 @@ public class EventsConfigProperties {
             .retriesCount(1)
             .msk(false)
             .glueAwsRegion("eu-central-1")
+            .builtinSerializer(false)
+            .producerPoolSize(1)
+            .producerSelection(ProducerSelection.KEY_AFFINE)
             .build();
 
+    @NestedConfigurationProperty
+    private DispatchProperties dispatch = DispatchProperties.builder()
+            .enabled(false)
+            .maxQueuedEvents(10_000)
+            .maxQueuedBytes(16L * 1024 * 1024)
+            .senderThreads(1)
+            .overflowPolicy(OverflowPolicy.BLOCK)
+            .blockTimeoutMs(1_000)
+            .build();
+
+    @NestedConfigurationProperty
+    private CircuitBreakerProperties circuitBreaker = CircuitBreakerProperties.builder()
+            .enabled(false)
+            .windowSize(100)
+            .minimumCalls(20)
+            .failureRateThreshold(50)
+            .slowCallDurationMs(2_000)
+            .slowCallRateThreshold(80)
+            .openDurationMs(10_000)
+            .halfOpenProbes(3)
+            .fallback(CircuitBreakerFallback.SPOOL)
+            .build();
+
+    @NestedConfigurationProperty
+    private SpoolProperties spool = SpoolProperties.builder()
+            .enabled(false)
+            .directory(Path.of(System.getProperty("java.io.tmpdir"), "baasflow-events-spool").toString())
+            .segmentSizeBytes(16 * 1024 * 1024)
+            .maxTotalBytes(256L * 1024 * 1024)
+            .fsyncPolicy(FsyncPolicy.BATCHED)
+            .fsyncBatchSize(100)
+            .fsyncIntervalMs(1_000)
+            .replayIntervalMs(5_000)
+            .writeQueueCapacity(10_000)
+            .build();
+
+    @NestedConfigurationProperty
+    private FilterProperties filter = new FilterProperties();
+
+    @NestedConfigurationProperty
+    private SamplingProperties sampling = new SamplingProperties();
+
+    @NestedConfigurationProperty
+    private HealthProperties health = new HealthProperties();
+
+    @NestedConfigurationProperty
+    private StackTraceProperties stackTrace = new StackTraceProperties();
+
+    @NestedConfigurationProperty
+    private MetricsProperties metrics = new MetricsProperties(true, false);
+
     private Map<String, Event> channels;
 
+    @NestedConfigurationProperty
+    private RoutingProperties routing = new RoutingProperties();
+
+    /**
+     * How event ids are generated, unless the application provides an {@link com.baasflow.commons.events.EventIdGenerator} bean.
+     */
+    private IdGenerator idGenerator = IdGenerator.RANDOM;
+
+    /**
+     * Resolution of the cached clock used for event timestamps; 0 reads the system clock for every event.
+     */
+    private long clockResolutionMs = 0;
+
 
     @Data
     @NoArgsConstructor
@@ -58,6 +132,25 @@ public class EventsConfigProperties {
 
         @NestedConfigurationProperty
         private KafkaProperties kafka = new KafkaProperties();
+
+        @NestedConfigurationProperty
+        private DispatchProperties dispatch = new DispatchProperties();
+
+        @NestedConfigurationProperty
+        private FilterProperties filter = new FilterProperties();
+
+        @NestedConfigurationProperty
+        private CircuitBreakerProperties circuitBreaker = new CircuitBreakerProperties();
+
+        /**
+         * Fraction of the events sent to this channel that are kept when sampling is enabled, see {@link SamplingProperties}.
+         */
+        private Double samplingRate;
+
+        /**
+         * Overrides {@code spool.enabled} for this channel; the spool storage itself is shared by all channels.
+         */
+        private Boolean spoolEnabled;
     }
 
     @Data
@@ -75,6 +168,17 @@ public class EventsConfigProperties {
 //        private String keySerializer;
 //        private String valueSerializer;
 
+        /**
+         * Serialize events with the library's own registry wire format serializer instead of {@code KafkaAvroSerializer}
+         * or {@code GlueSchemaRegistryKafkaSerializer}.
+         */
+        private Boolean builtinSerializer;
+
+        /**
+         * File caching the schema ids resolved by the built-in serializer, letting it start without the schema registry.
+         */
+        private String schemaCacheFile;
+
         private Integer connectionTimeoutMs;
         private Integer requestTimeoutMs;
         private Integer deliveryTimeoutMs;
@@ -82,6 +186,307 @@ public class EventsConfigProperties {
         private Integer maxBlockMs;
         private Integer retriesCount;
 
+        /**
+         * Named bundle of the producer tuning settings below; explicitly configured values take precedence over it.
+         */
+        private ProducerPreset preset;
+        private Integer lingerMs;
+        private Integer batchSize;
+        private String compressionType;
+        private String acks;
+        private Boolean enableIdempotence;
+        private Integer maxInFlightRequestsPerConnection;
+        private Long bufferMemory;
+        private Integer maxRequestSize;
+
+        /**
+         * Number of producers sending for this channel. Channels with identical effective producer configuration and
+         * pool size share the same producers.
+         */
+        private Integer producerPoolSize;
+        private ProducerSelection producerSelection;
+
+        /**
+         * Makes the producers of the channel transactional, enabling {@code sendEventsTransactional} and atomic
+         * {@code auditedEvent} delivery. Must be unique per application instance; other sends stay non-transactional.
+         */
+        private String transactionIdPrefix;
+
+        private transient ProducerPool producerPool;
         private transient KafkaTemplate<String, com.baasflow.commons.events.Event> kafkaTemplate;
     }
+
+    /**
+     * Asynchronous dispatch stage settings: when enabled, events are put on a bounded in-memory queue and sent to Kafka
+     * by dedicated sender threads instead of the caller thread.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class DispatchProperties {
+        private Boolean enabled;
+        private Integer maxQueuedEvents;
+        private Long maxQueuedBytes;
+        private Integer senderThreads;
+        private OverflowPolicy overflowPolicy;
+        private Integer blockTimeoutMs;
+    }
+
+    /**
+     * Per channel circuit breaker settings: the outcome and latency of the last {@code window-size} sends decide whether
+     * the channel is healthy. Once the failure or slow call rate reaches its threshold, the breaker opens and events go
+     * straight to the {@code fallback} for {@code open-duration-ms}; then {@code half-open-probes} events are sent as
+     * probes, closing the breaker if all of them succeed.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class CircuitBreakerProperties {
+        private Boolean enabled;
+        private Integer windowSize;
+        private Integer minimumCalls;
+
+        /**
+         * Percentage of failed sends in the window opening the breaker.
+         */
+        private Integer failureRateThreshold;
+        private Integer slowCallDurationMs;
+
+        /**
+         * Percentage of sends in the window slower than {@code slow-call-duration-ms} opening the breaker.
+         */
+        private Integer slowCallRateThreshold;
+        private Integer openDurationMs;
+        private Integer halfOpenProbes;
+        private CircuitBreakerFallback fallback;
+    }
+
+    /**
+     * Drops events before they are sent. Given globally, each setting can be overridden per channel; unset lists do not
+     * restrict anything.
+     */
+    @Data
+    @NoArgsConstructor
+    public static class FilterProperties {
+        /**
+         * Events logged below this level are dropped; events without a log level are always kept.
+         */
+        private EventLogLevel minLevel;
+        private Set<String> allowedSourceModules;
+        private Set<String> deniedSourceModules;
+
+        /**
+         * Event names (the {@code event} field) that may be sent.
+         */
+        private Set<String> allowedEvents;
+        private Set<String> deniedEvents;
+    }
+
+    /**
+     * Sampling drops a fraction of the events of every type except {@link EventType#audit}. The fixed rate of an event is
+     * the most specific one configured: by event name, by log level, by channel (the primary route of its type).
+     * Adaptive sampling additionally lowers the rate of the sheddable event types while the Kafka producers of a channel
+     * are under pressure, and raises it back step by step once they are not.
+     */
+    @Data
+    @NoArgsConstructor
+    public static class SamplingProperties {
+        private boolean enabled;
+        private Map<EventLogLevel, Double> levelRates = new HashMap<>();
+        private Map<String, Double> eventRates = new HashMap<>();
+
+        private boolean adaptive;
+        private Set<EventType> sheddableEventTypes = new HashSet<>(List.of(EventType.technical, EventType.business, EventType.unspecified));
+
+        /**
+         * Average time records wait in the producer buffer above which a channel is considered under pressure.
+         */
+        private double maxQueueTimeMs = 500;
+
+        /**
+         * Used fraction of the producer buffer memory above which a channel is considered under pressure.
+         */
+        private double maxBufferUtilisation = 0.8;
+        private double minRate = 0.01;
+        private long adjustIntervalMs = 1_000;
+
+        /**
+         * Interval of the summary events reporting how many events were sampled out; 0 disables them.
+         */
+        private long summaryIntervalMs = 60_000;
+    }
+
+    /**
+     * Per channel health, evaluated in the background from the outcomes and acknowledgement latencies of the last
+     * {@code window-size} sends within {@code window-ms}. Channels with fewer than {@code minimum-calls} sends in the
+     * window are probed by describing their topic through an Admin client instead.
+     */
+    @Data
+    @NoArgsConstructor
+    public static class HealthProperties {
+        private int windowSize = 256;
+        private long windowMs = 60_000;
+        private int minimumCalls = 10;
+
+        /**
+         * Percentage of failed sends in the window making a channel DOWN.
+         */
+        private int failureRateThreshold = 50;
+
+        /**
+         * 99th percentile of the acknowledgement latency in the window above which a channel is DOWN.
+         */
+        private long maxAckLatencyMs = 5_000;
+        private long probeIntervalMs = 30_000;
+
+        /**
+         * Time a metadata probe may take before the channel counts as DOWN.
+         */
+        private int probeTimeoutMs = 5_000;
+        private long evaluateIntervalMs = 1_000;
+    }
+
+    /**
+     * Encoding of the stack traces in the payload of error events. With the defaults the full stack trace is sent, as
+     * {@link Throwable#printStackTrace()} prints it.
+     */
+    @Data
+    @NoArgsConstructor
+    public static class StackTraceProperties {
+        /**
+         * Frames printed per exception of the cause chain; 0 prints all of them.
+         */
+        private int maxFrames = 0;
+
+        /**
+         * Package prefixes whose frames are left out, e.g. {@code org.springframework.cglib}.
+         */
+        private Set<String> excludedPackages = new HashSet<>();
+
+        /**
+         * A stack trace with a fingerprint already sent within this window is sent as a reference to it plus an
+         * occurrence count instead of the full text; 0 always sends the full text.
+         */
+        private long dedupWindowMs = 0;
+
+        /**
+         * Number of fingerprints remembered for deduplication, the least recently seen ones are forgotten first.
+         */
+        private int dedupCacheSize = 1024;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class MetricsProperties {
+        private Boolean enabled;
+
+        /**
+         * Publish percentile histograms for the timers and size summaries, at the cost of more time series.
+         */
+        private Boolean percentileHistogram;
+    }
+
+    @Data
+    @NoArgsConstructor
+    public static class RoutingProperties {
+        /**
+         * Channels per event type. Event types not listed here are routed to the channel with the same name.
+         */
+        private Map<EventType, List<String>> routes = new HashMap<>();
+
+        /**
+         * Event types which are deliberately not routed to any channel; events of these types are silently discarded.
+         */
+        private Set<EventType> ignoredEventTypes = new HashSet<>();
+
+        /**
+         * Fail startup instead of logging a warning if an event type is neither routed nor ignored.
+         */
+        private boolean failOnUnrouted;
+    }
+
+    /**
+     * Disk-backed spool settings: events that could not be delivered to Kafka are appended to memory-mapped segment files
+     * and replayed in order once Kafka is healthy again.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class SpoolProperties {
+        private Boolean enabled;
+        private String directory;
+        private Integer segmentSizeBytes;
+        private Long maxTotalBytes;
+        private FsyncPolicy fsyncPolicy;
+        private Integer fsyncBatchSize;
+        private Integer fsyncIntervalMs;
+        private Integer replayIntervalMs;
+        private Integer writeQueueCapacity;
+    }
+
+    public enum FsyncPolicy {
+        /**
+         * Force every appended record to disk before returning.
+         */
+        EVERY_RECORD,
+        /**
+         * Force after every {@code fsync-batch-size} records, and at least every {@code fsync-interval-ms}.
+         */
+        BATCHED,
+        /**
+         * Leave flushing to the operating system.
+         */
+        OS
+    }
+
+    public enum OverflowPolicy {
+        /**
+         * Block the caller until there is room in the queue, or drop the event after the block timeout elapsed.
+         */
+        BLOCK,
+        DROP_OLDEST,
+        DROP_NEWEST,
+        /**
+         * Hand the event over to the overflow sink instead of queueing it.
+         */
+        SPILL_TO_DISK
+    }
+
+    public enum CircuitBreakerFallback {
+        /**
+         * Write the event to the spool if it is enabled for the channel, or else log it like an undeliverable event.
+         */
+        SPOOL,
+        /**
+         * Log the event like an undeliverable event.
+         */
+        LOG,
+        /**
+         * Drop the event, only counting it.
+         */
+        DROP
+    }
+
+    public enum ProducerSelection {
+        /**
+         * Always use the same producer for the same record key, preserving per-key ordering.
+         */
+        KEY_AFFINE,
+        ROUND_ROBIN
+    }
+
+    public enum IdGenerator {
+        /**
+         * Random (version 4) UUIDs from {@link java.util.UUID#randomUUID()}.
+         */
+        RANDOM,
+        /**
+         * Time-ordered (version 7) UUIDs, generated without contention between threads.
+         */
+        TIME_ORDERED
+    }
 }
@@ -0,0 +1,74 @@
+/*
+ * Licensed to BaaSFlow Corporation "BaaSFlow" under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  BaaSFlow licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this  file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.baasFlow.com/licenses/Apache_LICENSE-2.0
+ * or the root of this project.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baasflow.commons.events.internal;
+
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.glue.GlueClient;
+import software.amazon.awssdk.services.glue.model.Compatibility;
+import software.amazon.awssdk.services.glue.model.CreateSchemaRequest;
+import software.amazon.awssdk.services.glue.model.DataFormat;
+import software.amazon.awssdk.services.glue.model.EntityNotFoundException;
+import software.amazon.awssdk.services.glue.model.GetSchemaByDefinitionRequest;
+import software.amazon.awssdk.services.glue.model.RegisterSchemaVersionRequest;
+import software.amazon.awssdk.services.glue.model.RegistryId;
+import software.amazon.awssdk.services.glue.model.SchemaId;
+
+import java.util.UUID;
+
+/**
+ * Looks up the AWS Glue schema version id of a schema definition, registering the schema version (or the schema) the
+ * way {@code GlueSchemaRegistryKafkaSerializer} does with auto registration enabled.
+ */
+final class GlueSchemaVersions {
+    private static final String DEFAULT_REGISTRY_NAME = "default-registry";
+
+    private GlueSchemaVersions() {
+    }
+
+    static UUID getOrRegister(String awsRegion, String registryName, String schemaName, String schemaDefinition) {
+        var registry = registryName != null ? registryName : DEFAULT_REGISTRY_NAME;
+        try (GlueClient glue = GlueClient.builder().region(Region.of(awsRegion)).build()) {
+            var schemaId = SchemaId.builder().registryName(registry).schemaName(schemaName).build();
+            try {
+                return UUID.fromString(glue.getSchemaByDefinition(GetSchemaByDefinitionRequest.builder()
+                        .schemaId(schemaId)
+                        .schemaDefinition(schemaDefinition)
+                        .build()).schemaVersionId());
+            } catch (EntityNotFoundException e) {
+                // either the schema or this version of it is not registered yet
+            }
+            try {
+                return UUID.fromString(glue.registerSchemaVersion(RegisterSchemaVersionRequest.builder()
+                        .schemaId(schemaId)
+                        .schemaDefinition(schemaDefinition)
+                        .build()).schemaVersionId());
+            } catch (EntityNotFoundException e) {
+                return UUID.fromString(glue.createSchema(CreateSchemaRequest.builder()
+                        .registryId(RegistryId.builder().registryName(registry).build())
+                        .schemaName(schemaName)
+                        .dataFormat(DataFormat.AVRO)
+                        .compatibility(Compatibility.BACKWARD)
+                        .schemaDefinition(schemaDefinition)
+                        .build()).schemaVersionId());
+            }
+        }
+    }
+}
@@ -17,19 +17,54 @@
  * specific language governing permissions and limitations
  * under the License.
  */
+
 package com.baasflow.commons.events.internal;
 
-import org.apache.commons.lang3.exception.ExceptionUtils;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.actuate.health.Health;
 import org.springframework.boot.actuate.health.HealthIndicator;
 import org.springframework.boot.actuate.health.Status;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
+/**
+ * Health of the Events channels, see {@link EventsConfigProperties.HealthProperties}. A channel is DOWN while the
+ * failure rate or the acknowledgement latency of its recent sends is above the threshold, or, without enough recent
+ * sends, while the last metadata probe of its topic failed or timed out. A channel without sends or probe results is
+ * UNKNOWN. The overall status is DOWN if any channel is DOWN, else UP if any channel is UP: an idle channel does not
+ * hold back the others, e.g. the spool replay gated on {@link #isHealthy()}.
+ * <p>
+ * Everything is evaluated on a background thread; {@link #health()} only returns the last result. Probes are
+ * asynchronous, so a slow or unreachable cluster never stalls the evaluation of the other channels.
+ */
 @Component("kafkaHealthIndicator")
 public class KafkaHealthIndicator implements HealthIndicator {
+    private Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    @Autowired
+    EventsConfigProperties eventsConfigProperties;
+
     private final AtomicReference<Health> healthStatus = new AtomicReference<>(Health.unknown().build());
+    private volatile Map<String, ChannelHealth> channels = Map.of();
+    private ScheduledExecutorService scheduler;
 
 
     @Override
@@ -37,30 +72,154 @@ public class KafkaHealthIndicator implements HealthIndicator {
         return healthStatus.get();
     }
 
-    public void setHealthy() {
-        if (!isUp()) {
-            this.healthStatus.set(Health.up().build());
+    public boolean isHealthy() {
+        return Status.UP.equals(health().getStatus());
+    }
+
+    /**
+     * Starts evaluating the health of the channels.
+     *
+     * @param probes the metadata probe of each channel, completing exceptionally if the topic metadata cannot be fetched;
+     *               channels without a probe are judged from their sends only
+     */
+    synchronized void start(Map<String, Supplier<CompletionStage<?>>> probes) {
+        register(probes);
+        var properties = eventsConfigProperties.getHealth();
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "baasflow-events-health");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::probeQuietChannels, 0, properties.getProbeIntervalMs(), TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::evaluate, properties.getEvaluateIntervalMs(), properties.getEvaluateIntervalMs(), TimeUnit.MILLISECONDS);
+    }
+
+    void register(Map<String, Supplier<CompletionStage<?>>> probes) {
+        Map<String, ChannelHealth> registered = new LinkedHashMap<>();
+        probes.forEach((channel, probe) -> registered.put(channel, new ChannelHealth(new ChannelHealthWindow(eventsConfigProperties.getHealth().getWindowSize()), probe)));
+        channels = registered;
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
         }
     }
 
-    public void setUnhealthy(Exception exception) {
-        if (!isDown()) {
-            this.setUnhealthy(exception == null ? "unknown" : ExceptionUtils.getStackTrace(exception));
+    /**
+     * Records the outcome of a send to the channel.
+     *
+     * @param ackNanos time from handing the event to the producer until it was acknowledged or failed
+     */
+    void record(String channel, long ackNanos, boolean failure) {
+        var health = channels.get(channel);
+        if (health != null) {
+            health.window.record(System.currentTimeMillis(), ackNanos, failure);
         }
     }
 
-    public void setUnhealthy(String detail) {
-        if (!isDown()) {
-            this.healthStatus.set(Health.down().withDetail("exception", detail).build());
+    /**
+     * Starts fetching the topic metadata of every channel without enough recent sends to judge its health, unless its
+     * previous probe is still running. The results are picked up by the next {@link #evaluate()}.
+     */
+    void probeQuietChannels() {
+        var properties = eventsConfigProperties.getHealth();
+        long from = System.currentTimeMillis() - properties.getWindowMs();
+        channels.forEach((channel, health) -> {
+            if (health.probe == null || health.window.snapshot(from).calls() >= properties.getMinimumCalls()
+                    || !health.probing.compareAndSet(false, true)) {
+                return;
+            }
+            CompletableFuture<?> probe;
+            try {
+                probe = health.probe.get().toCompletableFuture();
+            } catch (RuntimeException e) {
+                probe = CompletableFuture.failedFuture(e);
+            }
+            probe.orTimeout(properties.getProbeTimeoutMs(), TimeUnit.MILLISECONDS).whenComplete((result, e) -> {
+                if (e == null) {
+                    health.lastProbe = new ProbeResult(Instant.now(), null);
+                } else {
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    logger.debug("metadata probe of channel '{}' failed", channel, cause);
+                    health.lastProbe = new ProbeResult(Instant.now(), cause instanceof TimeoutException
+                            ? "timed out after " + properties.getProbeTimeoutMs() + " ms" : cause.toString());
+                }
+                health.probing.set(false);
+            });
+        });
+    }
+
+    /**
+     * Recomputes the health of every channel and of the whole from the windows and the probe results.
+     */
+    void evaluate() {
+        var properties = eventsConfigProperties.getHealth();
+        long from = System.currentTimeMillis() - properties.getWindowMs();
+        Map<String, Object> details = new LinkedHashMap<>();
+        Status overall = Status.UNKNOWN;
+        for (Map.Entry<String, ChannelHealth> entry : channels.entrySet()) {
+            var health = entry.getValue();
+            var snapshot = health.window.snapshot(from);
+            var probe = health.lastProbe;
+            Map<String, Object> channelDetails = new LinkedHashMap<>();
+            Status status;
+            if (snapshot.calls() >= properties.getMinimumCalls()) {
+                int failureRate = snapshot.failures() * 100 / snapshot.calls();
+                status = failureRate >= properties.getFailureRateThreshold() || snapshot.p99AckMs() > properties.getMaxAckLatencyMs()
+                        ? Status.DOWN : Status.UP;
+                channelDetails.put("failureRate", failureRate);
+            } else if (probe != null) {
+                status = probe.error() == null ? Status.UP : Status.DOWN;
+            } else {
+                status = Status.UNKNOWN;
+            }
+            channelDetails.put("status", status.getCode());
+            channelDetails.put("calls", snapshot.calls());
+            channelDetails.put("failures", snapshot.failures());
+            channelDetails.put("p99AckMs", snapshot.p99AckMs());
+            if (probe != null) {
+                channelDetails.put("lastProbe", probe.at().toString());
+                if (probe.error() != null) {
+                    channelDetails.put("lastProbeError", probe.error());
+                }
+            }
+            details.put(entry.getKey(), channelDetails);
+
+            if (status != health.status) {
+                logger.info("health of channel '{}' changed from {} to {}: {}", entry.getKey(), health.status.getCode(), status.getCode(), channelDetails);
+                health.status = status;
+            }
+            if (Status.DOWN.equals(status)) {
+                overall = Status.DOWN;
+            } else if (Status.UP.equals(status) && Status.UNKNOWN.equals(overall)) {
+                overall = Status.UP;
+            }
         }
+        healthStatus.set(Health.status(overall).withDetails(details).build());
+    }
 
+    @CheckForNull
+    Status channelStatus(String channel) {
+        var health = channels.get(channel);
+        return health == null ? null : health.status;
     }
 
-    private boolean isUp() {
-        return Status.UP.equals(health().getStatus());
+    private static final class ChannelHealth {
+        private final ChannelHealthWindow window;
+        @Nullable
+        private final Supplier<CompletionStage<?>> probe;
+        private final AtomicBoolean probing = new AtomicBoolean();
+        private volatile ProbeResult lastProbe;
+        private volatile Status status = Status.UNKNOWN;
+
+        private ChannelHealth(ChannelHealthWindow window, @Nullable Supplier<CompletionStage<?>> probe) {
+            this.window = window;
+            this.probe = probe;
+        }
     }
 
-    private boolean isDown() {
-        return Status.DOWN.equals(health().getStatus());
+    private record ProbeResult(Instant at, @Nullable String error) {
     }
 }
@@ -21,27 +21,67 @@
 package com.baasflow.commons.events.internal;
 
 import com.baasflow.commons.events.Event;
+import com.baasflow.commons.events.EventLogLevel;
+import com.baasflow.commons.events.EventType;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.DependsOn;
+import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 @Service
 @DependsOn("kafkaSetup")
 public class KafkaSender {
+    private static final Duration DISPATCH_SHUTDOWN_TIMEOUT = Duration.ofSeconds(10);
+    private static final int TRANSACTION_QUEUE_CAPACITY = 1_000;
+
     private Logger logger = LoggerFactory.getLogger(this.getClass());
 
     @Autowired
     EventsConfigProperties eventsConfigProperties;
 
+    @Autowired
+    ObjectProvider<MeterRegistry> meterRegistry;
+
+    @Autowired
+    EventSpool eventSpool;
+
+    @Autowired
+    EventMetrics eventMetrics;
+
+    @Autowired
+    KafkaHealthIndicator kafkaHealthIndicator;
+
+    private RoutingTable routingTable;
+    private TopicProbes topicProbes;
+    private ExecutorService transactionExecutor;
+
 
     @PostConstruct
     public void init() {
@@ -50,41 +90,500 @@ public class KafkaSender {
             return;
         }
 
+        Map<String, Route> channels = new LinkedHashMap<>();
         eventsConfigProperties.getChannels().forEach((key, value) -> {
+            var filter = EventFilter.create(eventsConfigProperties.getFilter(), value.getFilter());
+            if (!filter.isPassThrough()) {
+                logger.info("filtering events of channel '{}': {}", key, filter);
+            }
             logger.info("triggering Kafka producer initialization for channel '{}'", key);
-            value.getKafka().getKafkaTemplate().metrics();
+            var producerPool = value.getKafka().getProducerPool();
+            if (producerPool != null) {
+                producerPool.getKafkaTemplates().forEach(KafkaTemplate::metrics);
+            } else {
+                value.getKafka().getKafkaTemplate().metrics();
+            }
+            channels.put(key, new Route(key, value, filter, eventSpool.isEnabledFor(value), createCircuitBreaker(key, value),
+                    route -> createDispatchQueue(route, value)));
         });
+        routingTable = RoutingTable.create(channels, eventsConfigProperties.getRouting());
+        if (channels.values().stream().anyMatch(Route::isTransactional)) {
+            transactionExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(TRANSACTION_QUEUE_CAPACITY), runnable -> {
+                Thread thread = new Thread(runnable, "baasflow-events-transactions");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        topicProbes = new TopicProbes(eventsConfigProperties.getHealth().getProbeTimeoutMs());
+        Map<String, Supplier<CompletionStage<?>>> probes = new LinkedHashMap<>();
+        channels.forEach((channel, route) -> probes.put(channel, topicProbes.probe(route.kafkaTemplateFor(route.getTopic()), route.getTopic())));
+        kafkaHealthIndicator.start(probes);
+        eventSpool.startReplay(this::replay);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (topicProbes != null) {
+            topicProbes.close();
+        }
+        if (transactionExecutor != null) {
+            transactionExecutor.shutdown();
+            try {
+                if (!transactionExecutor.awaitTermination(DISPATCH_SHUTDOWN_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+                    logger.warn("pending transactions were not sent within {}", DISPATCH_SHUTDOWN_TIMEOUT);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (routingTable == null) {
+            return;
+        }
+        for (Route route : routingTable.getChannels()) {
+            if (route.getDispatchQueue() != null) {
+                logger.info("draining dispatch queue of channel '{}'", route.getChannel());
+                route.getDispatchQueue().shutdown(DISPATCH_SHUTDOWN_TIMEOUT);
+            }
+        }
+    }
+
+    @CheckForNull
+    private CircuitBreaker createCircuitBreaker(String channel, EventsConfigProperties.Event properties) {
+        var global = eventsConfigProperties.getCircuitBreaker();
+        var local = properties.getCircuitBreaker();
+        if (!Boolean.TRUE.equals(KafkaSetup.getLocalOrFallback(global, local, EventsConfigProperties.CircuitBreakerProperties::getEnabled))) {
+            return null;
+        }
+
+        var circuitBreaker = EventsConfigProperties.CircuitBreakerProperties.builder()
+                .enabled(true)
+                .windowSize(KafkaSetup.getLocalOrFallback(global, local, EventsConfigProperties.CircuitBreakerProperties::getWindowSize))
+                .minimumCalls(KafkaSetup.getLocalOrFallback(global, local, EventsConfigProperties.CircuitBreakerProperties::getMinimumCalls))
+                .failureRateThreshold(KafkaSetup.getLocalOrFallback(global, local, EventsConfigProperties.CircuitBreakerProperties::getFailureRateThreshold))
+                .slowCallDurationMs(KafkaSetup.getLocalOrFallback(global, local, EventsConfigProperties.CircuitBreakerProperties::getSlowCallDurationMs))
+                .slowCallRateThreshold(KafkaSetup.getLocalOrFallback(global, local, EventsConfigProperties.CircuitBreakerProperties::getSlowCallRateThreshold))
+                .openDurationMs(KafkaSetup.getLocalOrFallback(global, local, EventsConfigProperties.CircuitBreakerProperties::getOpenDurationMs))
+                .halfOpenProbes(KafkaSetup.getLocalOrFallback(global, local, EventsConfigProperties.CircuitBreakerProperties::getHalfOpenProbes))
+                .fallback(KafkaSetup.getLocalOrFallback(global, local, EventsConfigProperties.CircuitBreakerProperties::getFallback))
+                .build();
+        logger.info("circuit breaker enabled for channel '{}': {}", channel, circuitBreaker);
+        return new CircuitBreaker(channel, circuitBreaker, meterRegistry.getIfAvailable());
+    }
+
+    @CheckForNull
+    private EventDispatchQueue createDispatchQueue(Route route, EventsConfigProperties.Event properties) {
+        var global = eventsConfigProperties.getDispatch();
+        var local = properties.getDispatch();
+        if (!Boolean.TRUE.equals(KafkaSetup.getLocalOrFallback(global, local, EventsConfigProperties.DispatchProperties::getEnabled))) {
+            return null;
+        }
+
+        var dispatch = EventsConfigProperties.DispatchProperties.builder()
+                .enabled(true)
+                .maxQueuedEvents(KafkaSetup.getLocalOrFallback(global, local, EventsConfigProperties.DispatchProperties::getMaxQueuedEvents))
+                .maxQueuedBytes(KafkaSetup.getLocalOrFallback(global, local, EventsConfigProperties.DispatchProperties::getMaxQueuedBytes))
+                .senderThreads(KafkaSetup.getLocalOrFallback(global, local, EventsConfigProperties.DispatchProperties::getSenderThreads))
+                .overflowPolicy(KafkaSetup.getLocalOrFallback(global, local, EventsConfigProperties.DispatchProperties::getOverflowPolicy))
+                .blockTimeoutMs(KafkaSetup.getLocalOrFallback(global, local, EventsConfigProperties.DispatchProperties::getBlockTimeoutMs))
+                .build();
+        logger.info("asynchronous dispatch enabled for channel '{}': {}", route.getChannel(), dispatch);
+        return new EventDispatchQueue(route.getChannel(), dispatch,
+                event -> sendToKafka(route, event, false),
+                event -> handleUndeliverable(route, event, "EVENT SPILLED, dispatch queue is full", null),
+                meterRegistry.getIfAvailable());
+    }
+
+    /**
+     * Tells whether an event of the type and level would be sent to at least one channel, so that callers can skip
+     * building events that are filtered out anyway.
+     *
+     * @param eventType the event type, or {@code null} if not known before the event is built
+     * @param level     the log level of the event
+     */
+    public boolean isEnabled(@Nullable EventType eventType, @Nullable EventLogLevel level) {
+        return routingTable != null && routingTable.isEnabled(eventType, level);
+    }
+
+    /**
+     * Like {@link #isEnabled(EventType, EventLogLevel)}, also checking the source module and event name filters.
+     */
+    public boolean isEnabled(@Nullable EventType eventType, @Nullable EventLogLevel level, @Nullable String sourceModule, @Nullable String event) {
+        return routingTable != null && routingTable.isEnabled(eventType, level, sourceModule, event);
+    }
+
+    /**
+     * @return the routing table, or {@code null} if the module is disabled
+     */
+    @CheckForNull
+    RoutingTable getRoutingTable() {
+        return routingTable;
     }
 
     public CompletableFuture<SendResult<String, Event>> send(Event event) throws IOException {
         if (eventsConfigProperties.isDisabled()) {
-            logger.warn("skip sending event to Kafka, Baasflow Events module is disabled in configuration");
-            return null;
+            logger.debug("skip sending event to Kafka, Baasflow Events module is disabled in configuration");
+            return CompletableFuture.completedFuture(null);
+        }
+
+        return route(event, false);
+    }
+
+    /**
+     * Submits all events to their Kafka templates without waiting for any acknowledgement. An event that cannot be
+     * routed yields a failed future instead of aborting the batch.
+     *
+     * @param events the events to send
+     * @return one future per event, in the iteration order of the given collection
+     */
+    public List<CompletableFuture<SendResult<String, Event>>> sendAll(Collection<Event> events) {
+        List<CompletableFuture<SendResult<String, Event>>> futures = new ArrayList<>(events.size());
+        if (eventsConfigProperties.isDisabled()) {
+            logger.debug("skip sending {} events to Kafka, Baasflow Events module is disabled in configuration", events.size());
+            events.forEach(event -> futures.add(CompletableFuture.completedFuture(null)));
+            return futures;
+        }
+
+        logger.info("sending batch of {} events", events.size());
+        for (Event event : events) {
+            try {
+                futures.add(route(event, true));
+            } catch (RuntimeException e) {
+                futures.add(CompletableFuture.failedFuture(e));
+            }
+        }
+        return futures;
+    }
+
+    /**
+     * @return whether events of the type can be sent with {@link #sendTransactional}: all of its routes are
+     * transactional and share their producers
+     */
+    public boolean isTransactional(@Nullable EventType eventType) {
+        if (routingTable == null) {
+            return false;
+        }
+        List<Route> routes = routingTable.routesFor(eventType);
+        if (routes.isEmpty()) {
+            return false;
         }
+        for (Route route : routes) {
+            if (!route.isTransactional() || !route.sharesProducersWith(routes.get(0))) {
+                return false;
+            }
+        }
+        return true;
+    }
 
+    /**
+     * Sends the events in one Kafka transaction, all with the id of the first event as record key so that events of
+     * the same topic land on the same partition, in order. Of a producer pool, the producer owning that key sends the
+     * transaction, whatever the producer selection. The dispatch queue and the circuit breaker are bypassed.
+     * Blocks until the transaction is committed or aborted; if it is aborted, the events are handled like any
+     * undeliverable event.
+     *
+     * @param events the events to send, at least one
+     * @return one future per event, already completed; if the transaction was aborted, completed with {@code null} for
+     * every event that was spooled on all of its routes and failed for the others
+     * @throws IllegalStateException if a route of the events is not transactional, or the routes do not share their
+     *                               producers
+     */
+    public List<CompletableFuture<SendResult<String, Event>>> sendTransactional(List<Event> events) {
+        List<CompletableFuture<SendResult<String, Event>>> futures = new ArrayList<>(events.size());
+        if (eventsConfigProperties.isDisabled()) {
+            logger.debug("skip sending {} events to Kafka, Baasflow Events module is disabled in configuration", events.size());
+            events.forEach(event -> futures.add(CompletableFuture.completedFuture(null)));
+            return futures;
+        }
+
+        String key = events.get(0).getId().toString();
+        KafkaTemplate<String, Event> kafkaTemplate = null;
+        List<List<Route>> eventRoutes = new ArrayList<>(events.size());
+        for (Event event : events) {
+            List<Route> routes = new ArrayList<>();
+            for (Route route : routingTable.routesFor(event.getEventType())) {
+                if (!route.getFilter().accepts(event)) {
+                    continue;
+                }
+                var routeTemplate = route.transactionalTemplateFor(key);
+                if (!route.isTransactional()) {
+                    throw new IllegalStateException("Events channel '" + route.getChannel() + "' is not transactional, set its kafka.transaction-id-prefix");
+                }
+                if (kafkaTemplate != null && kafkaTemplate != routeTemplate) {
+                    throw new IllegalStateException("Events of one transaction must share their Kafka producer, channel '" + route.getChannel() + "' does not");
+                }
+                kafkaTemplate = routeTemplate;
+                routes.add(route);
+            }
+            if (routes.isEmpty() && !routingTable.isIgnored(event.getEventType())
+                    && routingTable.routesFor(event.getEventType()).isEmpty()) {
+                throw new RuntimeException("Failed to find Events Channel configuration for event type: " + event.getEventType());
+            }
+            eventRoutes.add(routes);
+        }
+        if (kafkaTemplate == null) {
+            events.forEach(event -> futures.add(CompletableFuture.completedFuture(null)));
+            return futures;
+        }
+
+        logger.info("sending {} events in a transaction, key {}", events.size(), key);
+        long sendStart = System.nanoTime();
+        try {
+            kafkaTemplate.executeInTransaction(operations -> {
+                for (int i = 0; i < events.size(); i++) {
+                    CompletableFuture<SendResult<String, Event>> primary = null;
+                    for (Route route : eventRoutes.get(i)) {
+                        Event event = events.get(i);
+                        long start = eventMetrics.sending(route.getChannel());
+                        CompletableFuture<SendResult<String, Event>> future;
+                        try {
+                            future = operations.send(route.getTopic(), key, event);
+                        } catch (RuntimeException e) {
+                            eventMetrics.recordSent(route.getChannel(), event, start, e);
+                            throw e;
+                        }
+                        future.whenComplete((result, e) -> eventMetrics.recordSent(route.getChannel(), event, start, e));
+                        primary = primary == null ? future : primary;
+                    }
+                    futures.add(primary == null ? CompletableFuture.completedFuture(null) : primary);
+                }
+                return null;
+            });
+        } catch (RuntimeException e) {
+            futures.clear();
+            for (int i = 0; i < events.size(); i++) {
+                boolean spooled = true;
+                for (Route route : eventRoutes.get(i)) {
+                    kafkaHealthIndicator.record(route.getChannel(), System.nanoTime() - sendStart, true);
+                    spooled &= handleUndeliverable(route, events.get(i), "EVENT TRANSACTION FAILED", e);
+                }
+                futures.add(spooled ? CompletableFuture.completedFuture(null) : CompletableFuture.failedFuture(e));
+            }
+            return futures;
+        }
+        long ackNanos = System.nanoTime() - sendStart;
+        eventRoutes.forEach(routes -> routes.forEach(route -> kafkaHealthIndicator.record(route.getChannel(), ackNanos, false)));
+        return futures;
+    }
+
+    /**
+     * Like {@link #sendTransactional}, but runs the transaction on the sender's transaction thread instead of blocking
+     * the calling thread until it is committed. Up to {@value #TRANSACTION_QUEUE_CAPACITY} transactions wait for that
+     * thread; beyond that, the events are handled like the events of an aborted transaction.
+     *
+     * @param events the events to send, at least one
+     * @return a future completed with the futures {@link #sendTransactional} returns
+     */
+    public CompletableFuture<List<CompletableFuture<SendResult<String, Event>>>> sendTransactionalAsync(List<Event> events) {
+        if (transactionExecutor == null) {
+            return CompletableFuture.completedFuture(sendTransactional(events));
+        }
+        try {
+            return CompletableFuture.supplyAsync(() -> sendTransactional(events), transactionExecutor);
+        } catch (RejectedExecutionException e) {
+            List<CompletableFuture<SendResult<String, Event>>> futures = new ArrayList<>(events.size());
+            for (Event event : events) {
+                boolean spooled = true;
+                for (Route route : routingTable.routesFor(event.getEventType())) {
+                    if (route.getFilter().accepts(event)) {
+                        spooled &= handleUndeliverable(route, event, "EVENT TRANSACTION REJECTED, transaction queue is full", e);
+                    }
+                }
+                futures.add(spooled ? CompletableFuture.completedFuture(null) : CompletableFuture.failedFuture(e));
+            }
+            return CompletableFuture.completedFuture(futures);
+        }
+    }
+
+    /**
+     * Sends the event to every route of its event type whose filter accepts it, and returns the future of the first
+     * of them; an event no route accepts is dropped.
+     */
+    private CompletableFuture<SendResult<String, Event>> route(Event event, boolean batch) {
+        EventType eventType = event.getEventType();
+        List<Route> routes = routingTable.routesFor(eventType);
+        if (routes.isEmpty()) {
+            if (routingTable.isIgnored(eventType)) {
+                logger.debug("discarding event {}, event type {} is ignored", event.getId(), eventType);
+                return CompletableFuture.completedFuture(null);
+            }
+            throw new RuntimeException("Failed to find Events Channel configuration for event type: " + eventType);
+        }
+
+        CompletableFuture<SendResult<String, Event>> primary = null;
+        for (Route route : routes) {
+            if (!route.getFilter().accepts(event)) {
+                logger.trace("event {} filtered out for channel '{}'", event.getId(), route.getChannel());
+                continue;
+            }
+            var future = dispatch(route, event, batch);
+            if (primary == null) {
+                primary = future;
+            }
+        }
+        if (primary == null) {
+            eventMetrics.recordFiltered(eventType);
+            return CompletableFuture.completedFuture(null);
+        }
+        return primary;
+    }
+
+    private CompletableFuture<SendResult<String, Event>> dispatch(Route route, Event event, boolean batch) {
+        var dispatchQueue = route.getDispatchQueue();
+        if (dispatchQueue != null) {
+            return dispatchQueue.offer(event);
+        }
+        return sendToKafka(route, event, batch);
+    }
+
+    /**
+     * @return a future completed with the send result, or with {@code null} if sending failed and the event was
+     * spooled instead, so that a caller retrying failed sends does not duplicate spooled events
+     */
+    private CompletableFuture<SendResult<String, Event>> sendToKafka(Route route, Event event, boolean batch) {
         String eventId = event.getId().toString();
+        var topic = route.getTopic();
 
-        var properties = eventsConfigProperties.getChannels().get(event.getEventType().name());
-        if (properties == null) {
-            throw new RuntimeException("Failed to find Events Channel configuration for event type: " + event.getEventType().name());
+        if (!batch) {
+            logger.info("sending {} event {} to topic {}: {}", event.getEventType().name(), eventId, topic, event);
+        } else if (logger.isDebugEnabled()) {
+            logger.debug("sending {} event {} to topic {}: {}", event.getEventType().name(), eventId, topic, event);
+        }
+        var circuitBreaker = route.getCircuitBreaker();
+        if (circuitBreaker != null && !circuitBreaker.tryAcquire()) {
+            return shortCircuit(route, circuitBreaker, event);
         }
-        var kafkaTemplate = properties.getKafka().getKafkaTemplate();
-        var topic = properties.getTopic();
 
-        logger.info("sending {} event {} to topic {}: {}", event.getEventType().name(), eventId, topic, event);
-        CompletableFuture<SendResult<String, Event>> future = kafkaTemplate.send(topic, eventId, event);
+        CompletableFuture<SendResult<String, Event>> future;
+        long start = eventMetrics.sending(route.getChannel());
+        long sendStart = System.nanoTime();
+        try {
+            future = route.kafkaTemplateFor(eventId).send(topic, eventId, event);
+        } catch (RuntimeException e) {
+            eventMetrics.recordSent(route.getChannel(), event, start, e);
+            recordOutcome(route, System.nanoTime() - sendStart, true);
+            if (handleUndeliverable(route, event, "EVENT SENDING FAILED", e)) {
+                return CompletableFuture.completedFuture(null);
+            }
+            throw e;
+        }
+        future.whenComplete((result, e) -> {
+            eventMetrics.recordSent(route.getChannel(), event, start, e);
+            recordOutcome(route, System.nanoTime() - sendStart, e != null);
+        });
 
         if (logger.isTraceEnabled()) {
             future.thenRun(() -> logger.trace("%% EVENT SENT to topic: {}: {}", topic, eventId));
         }
-        future.exceptionally(e -> {
-            var message = new String(Base64.getEncoder().encode(serialize(event)), StandardCharsets.UTF_8);
-            logger.error("%% EVENT SENDING FAILED to topic: {}: {}", topic, message, e);
-            return null;
+        // runs on the producer I/O thread, the spool write is handed to the spool's writer thread
+        CompletableFuture<SendResult<String, Event>> outcome = new CompletableFuture<>();
+        future.whenComplete((result, e) -> {
+            if (e == null) {
+                outcome.complete(result);
+                return;
+            }
+            handleUndeliverableAsync(route, event, "EVENT SENDING FAILED", e).thenAccept(spooled -> {
+                if (spooled) {
+                    outcome.complete(null);
+                } else {
+                    outcome.completeExceptionally(e);
+                }
+            });
         });
+        return outcome;
+    }
+
+    private void recordOutcome(Route route, long ackNanos, boolean failure) {
+        kafkaHealthIndicator.record(route.getChannel(), ackNanos, failure);
+        var circuitBreaker = route.getCircuitBreaker();
+        if (circuitBreaker != null) {
+            circuitBreaker.onResult(ackNanos, failure);
+        }
+    }
+
+    /**
+     * Hands an event to the fallback of the channel's open circuit breaker instead of Kafka.
+     *
+     * @return a future completed with {@code null} if the event was spooled, failed otherwise
+     */
+    private CompletableFuture<SendResult<String, Event>> shortCircuit(Route route, CircuitBreaker circuitBreaker, Event event) {
+        boolean spooled = switch (circuitBreaker.getFallback()) {
+            case SPOOL -> handleUndeliverable(route, event, "CIRCUIT OPEN", null);
+            case LOG -> {
+                logUndeliverable(route, event, "CIRCUIT OPEN", null);
+                yield false;
+            }
+            case DROP -> {
+                logger.debug("circuit breaker of channel '{}' is open, dropping event {}", route.getChannel(), event.getId());
+                yield false;
+            }
+        };
+        return spooled
+                ? CompletableFuture.completedFuture(null)
+                : CompletableFuture.failedFuture(new RejectedExecutionException("circuit breaker of channel " + route.getChannel() + " is open"));
+    }
+
+    /**
+     * Sends an event read back from the spool to the channel it failed on. Failures are not spooled again, the event
+     * stays in the spool instead.
+     */
+    private CompletableFuture<SendResult<String, Event>> replay(String channel, Event event) {
+        Route route = routingTable.getChannels().stream()
+                .filter(candidate -> candidate.getChannel().equals(channel))
+                .findFirst()
+                .orElseThrow(() -> new EventSpool.UnknownChannelException(channel));
+        var eventId = event.getId().toString();
+        logger.info("replaying spooled {} event {} to topic {}", event.getEventType().name(), eventId, route.getTopic());
+        long sendStart = System.nanoTime();
+        var future = route.kafkaTemplateFor(eventId).send(route.getTopic(), eventId, event);
+        future.whenComplete((result, e) -> kafkaHealthIndicator.record(channel, System.nanoTime() - sendStart, e != null));
         return future;
     }
 
+    /**
+     * Spools the event, unless spooling is disabled for the route or the error is one that replaying cannot fix.
+     *
+     * @return whether the event was spooled for later delivery; if not, it was logged
+     */
+    private boolean handleUndeliverable(Route route, Event event, String reason, @Nullable Throwable e) {
+        if (isSpoolable(route, e) && eventSpool.append(route.getChannel(), event)) {
+            logSpooled(route, event, reason, e);
+            return true;
+        }
+        logUndeliverable(route, event, reason, e);
+        return false;
+    }
+
+    /**
+     * Like {@link #handleUndeliverable}, but appends to the spool on its writer thread.
+     */
+    private CompletableFuture<Boolean> handleUndeliverableAsync(Route route, Event event, String reason, Throwable e) {
+        if (!isSpoolable(route, e)) {
+            logUndeliverable(route, event, reason, e);
+            return CompletableFuture.completedFuture(false);
+        }
+        return eventSpool.appendAsync(route.getChannel(), event).handle((spooled, x) -> {
+            if (Boolean.TRUE.equals(spooled)) {
+                logSpooled(route, event, reason, e);
+                return true;
+            }
+            logUndeliverable(route, event, reason, e);
+            return false;
+        });
+    }
+
+    private boolean isSpoolable(Route route, @Nullable Throwable e) {
+        return route.isSpoolEnabled() && (e == null || !EventSpool.isPermanent(e));
+    }
+
+    private void logSpooled(Route route, Event event, String reason, @Nullable Throwable e) {
+        logger.warn("%% {} to topic: {}, event {} was spooled for later delivery", reason, route.getTopic(), event.getId(), e);
+    }
+
+    private void logUndeliverable(Route route, Event event, String reason, @Nullable Throwable e) {
+        var message = new String(Base64.getEncoder().encode(serialize(event)), StandardCharsets.UTF_8);
+        logger.error("%% {} to topic: {}: {}", reason, route.getTopic(), message, e);
+    }
+
     byte[] serialize(Event event) {
         try {
             byte[] message = event.toByteBuffer().array();
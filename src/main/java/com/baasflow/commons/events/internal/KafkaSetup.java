@@ -25,32 +25,36 @@ import com.baasflow.commons.events.Event;
 import jakarta.annotation.PostConstruct;
 import org.apache.kafka.clients.CommonClientConfigs;
 import org.apache.kafka.clients.producer.ProducerConfig;
-import org.apache.kafka.clients.producer.ProducerRecord;
-import org.apache.kafka.clients.producer.RecordMetadata;
 import org.apache.kafka.common.config.SaslConfigs;
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.apache.kafka.common.utils.Utils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.core.ProducerFactory;
-import org.springframework.kafka.support.ProducerListener;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.Nullable;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.function.Function;
 
 @Component
 public class KafkaSetup {
-    private Logger logger = LoggerFactory.getLogger(this.getClass());
+    private static final Logger logger = LoggerFactory.getLogger(KafkaSetup.class);
 
     @Autowired
     EventsConfigProperties eventsConfigProperties;
 
     @Autowired
-    KafkaHealthIndicator kafkaHealthIndicator;
+    EventMetrics eventMetrics;
 
 
     @PostConstruct
@@ -63,33 +67,119 @@ public class KafkaSetup {
         Map<String, EventsConfigProperties.Event> channels = eventsConfigProperties.getChannels();
         if (channels != null) {
             EventsConfigProperties.KafkaProperties globalKafkaProperties = eventsConfigProperties.getKafka();
+            Map<ProducerPoolKey, ProducerPool> producerPools = new HashMap<>();
+            Map<String, SchemaCacheFile> schemaCacheFiles = new HashMap<>();
             for (String channel : channels.keySet()) {
                 var localKafkaProperties = channels.get(channel).getKafka();
-                var producerFactory = createProducerFactory(channel, globalKafkaProperties, localKafkaProperties);
-                localKafkaProperties.setKafkaTemplate(createKafkaTemplate(producerFactory));
+                var key = new ProducerPoolKey(producerProperties(globalKafkaProperties, localKafkaProperties),
+                        getLocalOrFallback(globalKafkaProperties, localKafkaProperties, EventsConfigProperties.KafkaProperties::getProducerPoolSize),
+                        getLocalOrFallback(globalKafkaProperties, localKafkaProperties, EventsConfigProperties.KafkaProperties::getProducerSelection),
+                        Boolean.TRUE.equals(getLocalOrFallback(globalKafkaProperties, localKafkaProperties, EventsConfigProperties.KafkaProperties::getBuiltinSerializer)),
+                        getLocalOrFallback(globalKafkaProperties, localKafkaProperties, EventsConfigProperties.KafkaProperties::getSchemaCacheFile),
+                        getLocalOrFallback(globalKafkaProperties, localKafkaProperties, EventsConfigProperties.KafkaProperties::getTransactionIdPrefix));
+                if (key.transactionIdPrefix() != null) {
+                    checkIdempotent(channel, key.properties());
+                }
+                var producerPool = producerPools.get(key);
+                if (producerPool == null) {
+                    var schemaCacheFile = key.schemaCacheFile() == null ? null
+                            : schemaCacheFiles.computeIfAbsent(key.schemaCacheFile(), path -> new SchemaCacheFile(Path.of(path)));
+                    producerPool = createProducerPool(channel, key, producerPools.size(), schemaCacheFile);
+                    producerPools.put(key, producerPool);
+                } else {
+                    logger.info("channel {} shares the Kafka producers of an identically configured channel", channel);
+                }
+                if (producerPool.getValueSerializer() != null) {
+                    resolveSchema(channel, channels.get(channel).getTopic(), producerPool.getValueSerializer());
+                }
+                localKafkaProperties.setProducerPool(producerPool);
+                localKafkaProperties.setKafkaTemplate(producerPool.getKafkaTemplates().get(0));
             }
+            logger.info("created {} Kafka producer pool(s) for {} channel(s)", producerPools.size(), channels.size());
         } else {
             logger.warn("no Events set up in application.yml");
         }
     }
 
-    private KafkaTemplate<String, Event> createKafkaTemplate(ProducerFactory<String, Event> producerFactory) {
-        KafkaTemplate<String, Event> kafkaTemplate = new KafkaTemplate<>(producerFactory);
-        kafkaTemplate.setProducerListener(new ProducerListener<>() {
-            @Override
-            public void onSuccess(ProducerRecord<String, Event> producerRecord, RecordMetadata recordMetadata) {
-                kafkaHealthIndicator.setHealthy();
+    private ProducerPool createProducerPool(String channel, ProducerPoolKey key, int poolIndex, @Nullable SchemaCacheFile schemaCacheFile) {
+        logger.info("kafka producer config for channel {}: {}", channel, key.properties().toString().replaceAll(",", "\n"));
+        int size = key.size() == null ? 1 : Math.max(1, key.size());
+        var valueSerializer = key.builtinSerializer() ? createValueSerializer(key.properties(), schemaCacheFile) : null;
+        List<KafkaTemplate<String, Event>> kafkaTemplates = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            var properties = new HashMap<>(key.properties());
+            if (size > 1 && !properties.containsKey(ProducerConfig.CLIENT_ID_CONFIG)) {
+                properties.put(ProducerConfig.CLIENT_ID_CONFIG, "baasflow-events-" + poolIndex + "-" + i);
             }
-
-            @Override
-            public void onError(ProducerRecord<String, Event> producerRecord, RecordMetadata recordMetadata, Exception exception) {
-                kafkaHealthIndicator.setUnhealthy(exception);
+            DefaultKafkaProducerFactory<String, Event> producerFactory;
+            if (valueSerializer != null || eventMetrics.isEnabled()) {
+                var valueSerializerClass = (String) properties.remove(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG);
+                producerFactory = new DefaultKafkaProducerFactory<>(properties, StringSerializer::new,
+                        () -> eventMetrics.timed(valueSerializer != null ? valueSerializer : instantiateSerializer(valueSerializerClass)));
+            } else {
+                producerFactory = new DefaultKafkaProducerFactory<>(properties);
             }
-        });
+            if (key.transactionIdPrefix() != null) {
+                producerFactory.setTransactionIdPrefix(key.transactionIdPrefix() + "-" + poolIndex + "-" + i + "-");
+            }
+            eventMetrics.bindProducerMetrics(producerFactory);
+            kafkaTemplates.add(createKafkaTemplate(producerFactory));
+        }
+        if (size > 1) {
+            logger.info("channel {} sends through a pool of {} producers, {} selection", channel, size, key.selection());
+        }
+        if (key.transactionIdPrefix() != null) {
+            logger.info("channel {} uses transactional producers, transactional id prefix {}", channel, key.transactionIdPrefix());
+        }
+        return new ProducerPool(kafkaTemplates, key.selection(), valueSerializer);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Serializer<Event> instantiateSerializer(String className) {
+        try {
+            return Utils.newInstance(className, Serializer.class);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Kafka value serializer " + className + " not found", e);
+        }
+    }
+
+    private EventAvroSerializer createValueSerializer(Map<String, Object> properties, @Nullable SchemaCacheFile schemaCacheFile) {
+        if (properties.containsKey(AWSSchemaRegistryConstants.AWS_REGION)) {
+            return EventAvroSerializer.glue((String) properties.get(AWSSchemaRegistryConstants.AWS_REGION),
+                    (String) properties.get(AWSSchemaRegistryConstants.REGISTRY_NAME),
+                    (String) properties.get(AWSSchemaRegistryConstants.SCHEMA_NAME),
+                    schemaCacheFile);
+        }
+        return EventAvroSerializer.confluent((String) properties.get("schema.registry.url"), schemaCacheFile);
+    }
+
+    /**
+     * Resolves the schema id of the topic at startup; if the registry is unavailable now, it is retried on first send.
+     */
+    private void resolveSchema(String channel, String topic, EventAvroSerializer valueSerializer) {
+        try {
+            valueSerializer.resolve(topic);
+            logger.info("resolved Event schema for topic {} of channel {}", topic, channel);
+        } catch (RuntimeException e) {
+            logger.warn("failed to resolve Event schema for topic {} of channel {}, retrying on first send", topic, channel, e);
+        }
+    }
+
+    /**
+     * Channels resolving to equal keys share one producer pool.
+     */
+    private record ProducerPoolKey(Map<String, Object> properties, Integer size, EventsConfigProperties.ProducerSelection selection,
+                                   boolean builtinSerializer, String schemaCacheFile, String transactionIdPrefix) {
+    }
+
+    private KafkaTemplate<String, Event> createKafkaTemplate(ProducerFactory<String, Event> producerFactory) {
+        KafkaTemplate<String, Event> kafkaTemplate = new KafkaTemplate<>(producerFactory);
+        // events outside of sendEventsTransactional are still sent without a transaction
+        kafkaTemplate.setAllowNonTransactional(true);
         return kafkaTemplate;
     }
 
-    private ProducerFactory<String, Event> createProducerFactory(String channel, EventsConfigProperties.KafkaProperties global, EventsConfigProperties.KafkaProperties local) {
+    static Map<String, Object> producerProperties(EventsConfigProperties.KafkaProperties global, EventsConfigProperties.KafkaProperties local) {
         var brokers = getLocalOrFallback(global, local, EventsConfigProperties.KafkaProperties::getBrokers);
         var connectionTimeoutMs = getLocalOrFallback(global, local, EventsConfigProperties.KafkaProperties::getConnectionTimeoutMs);
         var requestTimeoutMs = getLocalOrFallback(global, local, EventsConfigProperties.KafkaProperties::getRequestTimeoutMs);
@@ -114,6 +204,22 @@ public class KafkaSetup {
         properties.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, maxBlockMs);
         properties.put(ProducerConfig.RETRIES_CONFIG, retriesCount);
 
+        putTuning(properties, ProducerConfig.LINGER_MS_CONFIG, global, local, EventsConfigProperties.KafkaProperties::getLingerMs);
+        putTuning(properties, ProducerConfig.BATCH_SIZE_CONFIG, global, local, EventsConfigProperties.KafkaProperties::getBatchSize);
+        putTuning(properties, ProducerConfig.COMPRESSION_TYPE_CONFIG, global, local, EventsConfigProperties.KafkaProperties::getCompressionType);
+        putTuning(properties, ProducerConfig.ACKS_CONFIG, global, local, EventsConfigProperties.KafkaProperties::getAcks);
+        putTuning(properties, ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, global, local, EventsConfigProperties.KafkaProperties::getEnableIdempotence);
+        putTuning(properties, ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, global, local, EventsConfigProperties.KafkaProperties::getMaxInFlightRequestsPerConnection);
+        putTuning(properties, ProducerConfig.BUFFER_MEMORY_CONFIG, global, local, EventsConfigProperties.KafkaProperties::getBufferMemory);
+        putTuning(properties, ProducerConfig.MAX_REQUEST_SIZE_CONFIG, global, local, EventsConfigProperties.KafkaProperties::getMaxRequestSize);
+
+        // KafkaProducer rejects an explicit delivery timeout below linger.ms + request.timeout.ms
+        Integer lingerMs = getTuning(global, local, EventsConfigProperties.KafkaProperties::getLingerMs);
+        if (lingerMs != null && deliveryTimeoutMs != null && requestTimeoutMs != null && deliveryTimeoutMs < lingerMs + requestTimeoutMs) {
+            logger.warn("raising delivery-timeout-ms {} to linger-ms {} + request-timeout-ms {}", deliveryTimeoutMs, lingerMs, requestTimeoutMs);
+            properties.put(ProducerConfig.DELIVERY_TIMEOUT_MS_CONFIG, lingerMs + requestTimeoutMs);
+        }
+
         if (msk) {
             properties.put(CommonClientConfigs.SECURITY_PROTOCOL_CONFIG, "SASL_SSL");
             properties.put(SaslConfigs.SASL_MECHANISM, "AWS_MSK_IAM");
@@ -129,8 +235,47 @@ public class KafkaSetup {
             properties.put("schema.registry.url", localSchemaRegistryEndpoint);
         }
 
-        logger.info("kafka producer config for channel {}: {}", channel, properties.toString().replaceAll(",", "\n"));
-        return new DefaultKafkaProducerFactory<>(properties);
+        return properties;
+    }
+
+    /**
+     * Transactions require an idempotent producer; rejects a transactional channel whose settings (e.g. the throughput
+     * preset) disable idempotence, instead of failing when its producer is first created.
+     */
+    static void checkIdempotent(String channel, Map<String, Object> producerProperties) {
+        Object acks = producerProperties.get(ProducerConfig.ACKS_CONFIG);
+        Object enableIdempotence = producerProperties.get(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG);
+        boolean acksAll = acks == null || "all".equals(acks) || "-1".equals(acks);
+        if (!acksAll || Boolean.FALSE.equals(enableIdempotence)) {
+            throw new IllegalStateException("Events channel '" + channel + "' sets kafka.transaction-id-prefix, which requires an idempotent producer, "
+                    + "but its producer settings have acks=" + (acks == null ? "all" : acks) + ", enable-idempotence=" + (enableIdempotence == null ? "true" : enableIdempotence)
+                    + "; set acks=all and enable-idempotence=true or choose a different preset for this channel");
+        }
+    }
+
+    private static <T> void putTuning(Map<String, Object> properties, String key, EventsConfigProperties.KafkaProperties global, EventsConfigProperties.KafkaProperties local, Function<EventsConfigProperties.KafkaProperties, T> f) {
+        T value = getTuning(global, local, f);
+        if (value != null) {
+            properties.put(key, value);
+        }
+    }
+
+    /**
+     * Resolves a producer tuning setting. Precedence: local value, local preset, global value, global preset; null means
+     * the Kafka default applies.
+     */
+    static <T> T getTuning(EventsConfigProperties.KafkaProperties global, EventsConfigProperties.KafkaProperties local, Function<EventsConfigProperties.KafkaProperties, T> f) {
+        for (var candidate : new EventsConfigProperties.KafkaProperties[]{local, presetOf(local), global, presetOf(global)}) {
+            T value = candidate == null ? null : f.apply(candidate);
+            if (value != null) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    private static EventsConfigProperties.KafkaProperties presetOf(EventsConfigProperties.KafkaProperties properties) {
+        return properties == null || properties.getPreset() == null ? null : properties.getPreset().getProperties();
     }
 
     static <T, S> T getLocalOrFallback(S global, S local, Function<S, T> f) {
@@ -0,0 +1,101 @@
+/*
+ * Licensed to BaaSFlow Corporation "BaaSFlow" under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  BaaSFlow licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this  file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.baasFlow.com/licenses/Apache_LICENSE-2.0
+ * or the root of this project.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baasflow.commons.events.internal;
+
+import com.baasflow.commons.events.Event;
+import org.apache.kafka.common.utils.Utils;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fixed set of Kafka templates, each backed by its own producer, so that a busy channel is not limited by the single
+ * sender thread of one producer.
+ */
+class ProducerPool {
+    private final List<KafkaTemplate<String, Event>> kafkaTemplates;
+    private final EventsConfigProperties.ProducerSelection selection;
+    private final AtomicInteger next = new AtomicInteger();
+
+    @CheckForNull
+    private final EventAvroSerializer valueSerializer;
+
+    ProducerPool(List<KafkaTemplate<String, Event>> kafkaTemplates, EventsConfigProperties.ProducerSelection selection) {
+        this(kafkaTemplates, selection, null);
+    }
+
+    /**
+     * @param valueSerializer the built-in serializer shared by the producers of the pool, if they use it
+     */
+    ProducerPool(List<KafkaTemplate<String, Event>> kafkaTemplates, EventsConfigProperties.ProducerSelection selection,
+                 @Nullable EventAvroSerializer valueSerializer) {
+        if (kafkaTemplates.isEmpty()) {
+            throw new IllegalArgumentException("producer pool needs at least one Kafka template");
+        }
+        this.kafkaTemplates = List.copyOf(kafkaTemplates);
+        this.selection = selection;
+        this.valueSerializer = valueSerializer;
+    }
+
+    /**
+     * @param key the record key
+     * @return the template to send the record with
+     */
+    KafkaTemplate<String, Event> select(String key) {
+        int size = kafkaTemplates.size();
+        if (size == 1) {
+            return kafkaTemplates.get(0);
+        }
+        if (selection == EventsConfigProperties.ProducerSelection.ROUND_ROBIN || key == null) {
+            return kafkaTemplates.get(Math.floorMod(next.getAndIncrement(), size));
+        }
+        return selectByKey(key);
+    }
+
+    /**
+     * Selects by key regardless of the selection mode, so that all records of one key, e.g. of one transaction, use
+     * the same producer.
+     *
+     * @param key the record key
+     * @return the template to send the record with
+     */
+    KafkaTemplate<String, Event> selectByKey(String key) {
+        int size = kafkaTemplates.size();
+        return size == 1 ? kafkaTemplates.get(0) : kafkaTemplates.get(Utils.toPositive(Utils.murmur2(key.getBytes(StandardCharsets.UTF_8))) % size);
+    }
+
+    List<KafkaTemplate<String, Event>> getKafkaTemplates() {
+        return kafkaTemplates;
+    }
+
+    @CheckForNull
+    EventAvroSerializer getValueSerializer() {
+        return valueSerializer;
+    }
+
+    int size() {
+        return kafkaTemplates.size();
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Licensed to BaaSFlow Corporation "BaaSFlow" under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  BaaSFlow licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this  file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.baasFlow.com/licenses/Apache_LICENSE-2.0
+ * or the root of this project.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baasflow.commons.events.internal;
+
+/**
+ * Named bundles of producer throughput settings, selected with {@code kafka.preset} globally or per channel.
+ */
+public enum ProducerPreset {
+    /**
+     * Larger, compressed batches with leader-only acknowledgement, for high volume business and technical events.
+     */
+    THROUGHPUT(EventsConfigProperties.KafkaProperties.builder()
+            .lingerMs(20)
+            .batchSize(128 * 1024)
+            .compressionType("lz4")
+            .acks("1")
+            .enableIdempotence(false)
+            .maxInFlightRequestsPerConnection(5)
+            .bufferMemory(64L * 1024 * 1024)
+            .build()),
+
+    /**
+     * Sends immediately without compression, for low volume events where every millisecond counts.
+     */
+    LOW_LATENCY(EventsConfigProperties.KafkaProperties.builder()
+            .lingerMs(0)
+            .batchSize(16 * 1024)
+            .compressionType("none")
+            .acks("1")
+            .enableIdempotence(false)
+            .maxInFlightRequestsPerConnection(5)
+            .build()),
+
+    /**
+     * Full ISR acknowledgement with an idempotent producer, so audit records are neither lost nor duplicated or
+     * reordered by producer retries.
+     */
+    DURABLE_AUDIT(EventsConfigProperties.KafkaProperties.builder()
+            .lingerMs(5)
+            .compressionType("zstd")
+            .acks("all")
+            .enableIdempotence(true)
+            .maxInFlightRequestsPerConnection(5)
+            .build());
+
+    private final EventsConfigProperties.KafkaProperties properties;
+
+    ProducerPreset(EventsConfigProperties.KafkaProperties properties) {
+        this.properties = properties;
+    }
+
+    EventsConfigProperties.KafkaProperties getProperties() {
+        return properties;
+    }
+}
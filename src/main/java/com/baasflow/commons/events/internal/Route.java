@@ -0,0 +1,98 @@
+/*
+ * Licensed to BaaSFlow Corporation "BaaSFlow" under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  BaaSFlow licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this  file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.baasFlow.com/licenses/Apache_LICENSE-2.0
+ * or the root of this project.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baasflow.commons.events.internal;
+
+import com.baasflow.commons.events.Event;
+import lombok.Getter;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import java.util.function.Function;
+
+/**
+ * Everything needed to deliver an event to one Events channel, resolved once at startup.
+ */
+@Getter
+class Route {
+    private final String channel;
+    private final String topic;
+    private final KafkaTemplate<String, Event> kafkaTemplate;
+
+    @CheckForNull
+    private final ProducerPool producerPool;
+    private final boolean spoolEnabled;
+    private final EventFilter filter;
+
+    @CheckForNull
+    private final CircuitBreaker circuitBreaker;
+
+    @CheckForNull
+    private final EventDispatchQueue dispatchQueue;
+
+    Route(String channel, EventsConfigProperties.Event properties, EventFilter filter, boolean spoolEnabled,
+          @Nullable CircuitBreaker circuitBreaker, Function<Route, EventDispatchQueue> dispatchQueueFactory) {
+        this.channel = channel;
+        this.topic = properties.getTopic();
+        this.kafkaTemplate = properties.getKafka().getKafkaTemplate();
+        this.producerPool = properties.getKafka().getProducerPool();
+        this.spoolEnabled = spoolEnabled;
+        this.filter = filter;
+        this.circuitBreaker = circuitBreaker;
+        this.dispatchQueue = dispatchQueueFactory.apply(this);
+    }
+
+    /**
+     * @param key the record key
+     * @return the template of the pooled producer selected for the key, or the channel's only template
+     */
+    KafkaTemplate<String, Event> kafkaTemplateFor(String key) {
+        return producerPool == null ? kafkaTemplate : producerPool.select(key);
+    }
+
+    /**
+     * @param key the record key of the transaction
+     * @return the template of the pooled producer owning the key, whatever the selection mode, or the channel's only
+     * template
+     */
+    KafkaTemplate<String, Event> transactionalTemplateFor(String key) {
+        return producerPool == null ? kafkaTemplate : producerPool.selectByKey(key);
+    }
+
+    /**
+     * @return whether both routes send with the same producers, so that their records can share a transaction
+     */
+    boolean sharesProducersWith(Route other) {
+        return producerPool != null ? producerPool == other.producerPool : other.producerPool == null && kafkaTemplate == other.kafkaTemplate;
+    }
+
+    /**
+     * @return whether the producers of the channel are transactional
+     */
+    boolean isTransactional() {
+        return kafkaTemplate != null && kafkaTemplate.isTransactional();
+    }
+
+    @Override
+    public String toString() {
+        return channel + " -> " + topic;
+    }
+}
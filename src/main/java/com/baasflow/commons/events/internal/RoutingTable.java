@@ -0,0 +1,145 @@
+/*
+ * Licensed to BaaSFlow Corporation "BaaSFlow" under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  BaaSFlow licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this  file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.baasFlow.com/licenses/Apache_LICENSE-2.0
+ * or the root of this project.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baasflow.commons.events.internal;
+
+import com.baasflow.commons.events.EventLogLevel;
+import com.baasflow.commons.events.EventType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable mapping of every {@link EventType} to the channels its events are delivered to, built once at startup.
+ * <p>
+ * An event type is routed to the channels listed for it under {@code routing.routes}, or else to the channel with the
+ * same name. Listing several channels fans the event out to all of them; the first one is the primary route whose
+ * send result is reported back to the caller.
+ */
+class RoutingTable {
+    private static final Logger logger = LoggerFactory.getLogger(RoutingTable.class);
+
+    private final EnumMap<EventType, List<Route>> routes;
+    private final Set<EventType> ignoredEventTypes;
+    private final Collection<Route> channels;
+
+    private RoutingTable(EnumMap<EventType, List<Route>> routes, Set<EventType> ignoredEventTypes, Collection<Route> channels) {
+        this.routes = routes;
+        this.ignoredEventTypes = ignoredEventTypes;
+        this.channels = channels;
+    }
+
+    static RoutingTable create(Map<String, Route> channels, EventsConfigProperties.RoutingProperties routing) {
+        var ignored = routing.getIgnoredEventTypes().isEmpty() ? EnumSet.noneOf(EventType.class) : EnumSet.copyOf(routing.getIgnoredEventTypes());
+        var routes = new EnumMap<EventType, List<Route>>(EventType.class);
+        var unrouted = new ArrayList<EventType>();
+
+        for (EventType eventType : EventType.values()) {
+            List<String> channelNames = routing.getRoutes().get(eventType);
+            if (channelNames == null) {
+                channelNames = channels.containsKey(eventType.name()) ? List.of(eventType.name()) : List.of();
+            }
+
+            var eventTypeRoutes = new ArrayList<Route>(channelNames.size());
+            for (String channelName : channelNames) {
+                Route route = channels.get(channelName);
+                if (route == null) {
+                    throw new IllegalStateException("Events routing for event type '" + eventType + "' refers to unknown channel '" + channelName + "'");
+                }
+                eventTypeRoutes.add(route);
+            }
+
+            if (eventTypeRoutes.isEmpty()) {
+                if (!ignored.contains(eventType)) {
+                    unrouted.add(eventType);
+                }
+            } else {
+                routes.put(eventType, List.copyOf(eventTypeRoutes));
+                logger.info("routing {} events to {}", eventType, eventTypeRoutes);
+            }
+        }
+
+        if (!unrouted.isEmpty()) {
+            String message = "no Events channel configured for event types " + unrouted + ", add a channel, a routing.routes entry or list them in routing.ignored-event-types";
+            if (routing.isFailOnUnrouted()) {
+                throw new IllegalStateException(message);
+            }
+            logger.warn(message);
+        }
+        return new RoutingTable(routes, ignored, List.copyOf(channels.values()));
+    }
+
+    /**
+     * @return the routes of the event type, primary route first; empty if the event type is not routed
+     */
+    List<Route> routesFor(@Nullable EventType eventType) {
+        List<Route> eventTypeRoutes = eventType == null ? null : routes.get(eventType);
+        return eventTypeRoutes == null ? List.of() : eventTypeRoutes;
+    }
+
+    boolean isIgnored(@Nullable EventType eventType) {
+        return eventType != null && ignoredEventTypes.contains(eventType);
+    }
+
+    /**
+     * Tells whether an event of the type and level passes the filter of at least one of its routes, checking every
+     * channel if the type is not known yet. Unrouted event types count as enabled, so that sending them still fails.
+     */
+    boolean isEnabled(@Nullable EventType eventType, @Nullable EventLogLevel level) {
+        for (Route route : candidates(eventType)) {
+            if (route.getFilter().acceptsLevel(level)) {
+                return true;
+            }
+        }
+        return isUnrouted(eventType);
+    }
+
+    /**
+     * Like {@link #isEnabled(EventType, EventLogLevel)}, also checking the source module and event name lists.
+     */
+    boolean isEnabled(@Nullable EventType eventType, @Nullable EventLogLevel level, @Nullable String sourceModule, @Nullable String event) {
+        for (Route route : candidates(eventType)) {
+            if (route.getFilter().accepts(level, sourceModule, event)) {
+                return true;
+            }
+        }
+        return isUnrouted(eventType);
+    }
+
+    private Collection<Route> candidates(@Nullable EventType eventType) {
+        return eventType == null ? channels : routesFor(eventType);
+    }
+
+    private boolean isUnrouted(@Nullable EventType eventType) {
+        return eventType != null && !routes.containsKey(eventType) && !ignoredEventTypes.contains(eventType);
+    }
+
+    Collection<Route> getChannels() {
+        return channels;
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Licensed to BaaSFlow Corporation "BaaSFlow" under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  BaaSFlow licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this  file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.baasFlow.com/licenses/Apache_LICENSE-2.0
+ * or the root of this project.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baasflow.commons.events.internal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.CheckForNull;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Base64;
+import java.util.Properties;
+
+/**
+ * Local file remembering the registry wire format headers resolved for the Event schema, so that a restarted
+ * application can serialize events before, or without, reaching the schema registry.
+ * <p>
+ * Entries are keyed by registry, topic and schema fingerprint; a changed schema therefore never picks up a stale id.
+ */
+class SchemaCacheFile {
+    private static final Logger logger = LoggerFactory.getLogger(SchemaCacheFile.class);
+
+    private final Path path;
+    private final Properties entries = new Properties();
+
+    SchemaCacheFile(Path path) {
+        this.path = path;
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            entries.load(reader);
+            logger.info("loaded {} schema registry entries from {}", entries.size(), path);
+        } catch (NoSuchFileException e) {
+            logger.info("schema cache file {} does not exist yet", path);
+        } catch (IOException | IllegalArgumentException e) {
+            logger.warn("ignoring unreadable schema cache file {}", path, e);
+        }
+    }
+
+    @CheckForNull
+    synchronized byte[] get(String key) {
+        String value = entries.getProperty(key);
+        return value == null ? null : Base64.getDecoder().decode(value);
+    }
+
+    /**
+     * Stores the header and rewrites the file; failing to write the file is logged, not thrown.
+     */
+    synchronized void put(String key, byte[] header) {
+        entries.setProperty(key, Base64.getEncoder().encodeToString(header));
+        try {
+            Path directory = path.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            Path temporary = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+            try (Writer writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+                entries.store(writer, "baasflow events schema registry cache");
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | UncheckedIOException e) {
+            logger.warn("failed to write schema cache file {}", path, e);
+        }
+    }
+
+    Path getPath() {
+        return path;
+    }
+}
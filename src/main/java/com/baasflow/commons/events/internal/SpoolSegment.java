@@ -0,0 +1,170 @@
+/*
+ * Licensed to BaaSFlow Corporation "BaaSFlow" under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  BaaSFlow licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this  file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.baasFlow.com/licenses/Apache_LICENSE-2.0
+ * or the root of this project.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baasflow.commons.events.internal;
+
+import javax.annotation.CheckForNull;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * One memory-mapped, append-only segment file of the {@link EventSpool}.
+ * <p>
+ * Layout: a 16 byte header (magic, format version, committed read offset) followed by records of
+ * {@code [int length][int crc32][bytes]}. A zero length or a CRC mismatch marks the end of the valid data, so a record
+ * torn by a crash is simply not replayed.
+ */
+class SpoolSegment implements Closeable {
+    private static final int MAGIC = 0x42464553;
+    private static final int VERSION = 1;
+    private static final int READ_OFFSET_POSITION = 8;
+    static final int HEADER_SIZE = 16;
+    static final int RECORD_HEADER_SIZE = 8;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private int writePosition;
+    private int forcedPosition;
+    private int readPosition;
+
+    private SpoolSegment(Path path, FileChannel channel, MappedByteBuffer buffer) {
+        this.path = path;
+        this.channel = channel;
+        this.buffer = buffer;
+    }
+
+    static SpoolSegment create(Path path, int size) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        SpoolSegment segment = new SpoolSegment(path, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+        segment.buffer.putInt(0, MAGIC);
+        segment.buffer.putInt(4, VERSION);
+        segment.buffer.putLong(READ_OFFSET_POSITION, HEADER_SIZE);
+        segment.readPosition = HEADER_SIZE;
+        segment.writePosition = HEADER_SIZE;
+        segment.forcedPosition = 0;
+        return segment;
+    }
+
+    static SpoolSegment open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        SpoolSegment segment = new SpoolSegment(path, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size()));
+        if (segment.buffer.capacity() < HEADER_SIZE || segment.buffer.getInt(0) != MAGIC || segment.buffer.getInt(4) != VERSION) {
+            segment.close();
+            throw new IOException("not a valid spool segment: " + path);
+        }
+        segment.readPosition = (int) Math.max(HEADER_SIZE, Math.min(segment.buffer.getLong(READ_OFFSET_POSITION), segment.buffer.capacity()));
+        segment.writePosition = segment.scanValidRecords(segment.readPosition);
+        segment.forcedPosition = segment.writePosition;
+        return segment;
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    int getWritePosition() {
+        return writePosition;
+    }
+
+    /**
+     * Appends the record if it fits into the remaining space of the segment.
+     *
+     * @return false if the segment is full
+     */
+    boolean append(byte[] record) {
+        if (writePosition + RECORD_HEADER_SIZE + record.length > buffer.capacity()) {
+            return false;
+        }
+        buffer.put(writePosition + RECORD_HEADER_SIZE, record);
+        buffer.putInt(writePosition + 4, crc(record));
+        buffer.putInt(writePosition, record.length);
+        writePosition += RECORD_HEADER_SIZE + record.length;
+        return true;
+    }
+
+    /**
+     * @return the record at the read position, or null if every record of the segment has been read
+     */
+    @CheckForNull
+    byte[] peek() {
+        if (readPosition >= writePosition) {
+            return null;
+        }
+        byte[] record = new byte[buffer.getInt(readPosition)];
+        buffer.get(readPosition + RECORD_HEADER_SIZE, record);
+        return record;
+    }
+
+    /**
+     * Moves the read position past the record returned by {@link #peek()} and records it in the segment header.
+     */
+    void advance() {
+        readPosition += RECORD_HEADER_SIZE + buffer.getInt(readPosition);
+        buffer.putLong(READ_OFFSET_POSITION, readPosition);
+    }
+
+    void force() {
+        if (writePosition > forcedPosition) {
+            buffer.force(forcedPosition, writePosition - forcedPosition);
+            forcedPosition = writePosition;
+        }
+        buffer.force(0, HEADER_SIZE);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    void delete() throws IOException {
+        close();
+        Files.deleteIfExists(path);
+    }
+
+    private int scanValidRecords(int from) {
+        int position = from;
+        while (position + RECORD_HEADER_SIZE <= buffer.capacity()) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || position + RECORD_HEADER_SIZE + length > buffer.capacity()) {
+                break;
+            }
+            byte[] record = new byte[length];
+            buffer.get(position + RECORD_HEADER_SIZE, record);
+            if (crc(record) != buffer.getInt(position + 4)) {
+                break;
+            }
+            position += RECORD_HEADER_SIZE + length;
+        }
+        return position;
+    }
+
+    private static int crc(byte[] record) {
+        CRC32 crc = new CRC32();
+        crc.update(record);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * Licensed to BaaSFlow Corporation "BaaSFlow" under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  BaaSFlow licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this  file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.baasFlow.com/licenses/Apache_LICENSE-2.0
+ * or the root of this project.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baasflow.commons.events.internal;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Nullable;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Encodes the stack traces of error events, see {@link EventsConfigProperties.StackTraceProperties}.
+ * <p>
+ * The fingerprint is a 64-bit FNV-1a hash of the exception classes of the cause chain and the class and method names
+ * of their printed frames. Messages and line numbers are left out, so that the same failure gets the same fingerprint
+ * whatever ids its message contains and across builds that only moved code around. During an error storm only the
+ * first occurrence of a fingerprint within {@code dedup-window-ms} carries the stack trace; the following ones carry the
+ * exception's {@code toString()}, the fingerprint and their occurrence number, and are cheap to build since their
+ * frames are never formatted.
+ */
+@Component
+public class StackTraceEncoder {
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    @Autowired
+    EventsConfigProperties eventsConfigProperties;
+
+    private int maxFrames;
+    private String[] excludedPackages = new String[0];
+    private long dedupWindowMs;
+    private Map<String, Occurrence> occurrences;
+
+
+    @PostConstruct
+    public void init() {
+        var properties = eventsConfigProperties.getStackTrace();
+        maxFrames = properties.getMaxFrames();
+        excludedPackages = properties.getExcludedPackages().toArray(new String[0]);
+        dedupWindowMs = properties.getDedupWindowMs();
+        if (dedupWindowMs > 0) {
+            int cacheSize = properties.getDedupCacheSize();
+            occurrences = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Occurrence> eldest) {
+                    return size() > cacheSize;
+                }
+            };
+        }
+    }
+
+    /**
+     * @param throwable the exception to encode
+     * @return the stack trace text, or a reference to an identical one sent within the deduplication window
+     */
+    public EncodedStackTrace encode(Throwable throwable) {
+        String fingerprint = fingerprint(throwable);
+        long occurrence = occurrence(fingerprint);
+        if (occurrence > 1) {
+            return new EncodedStackTrace(fingerprint, occurrence, "stack trace " + fingerprint + " (occurrence " + occurrence
+                    + " within " + dedupWindowMs + " ms): " + throwable);
+        }
+        return new EncodedStackTrace(fingerprint, occurrence, format(throwable));
+    }
+
+    String fingerprint(Throwable throwable) {
+        long hash = walk(throwable, null);
+        String hex = Long.toHexString(hash);
+        return "0".repeat(16 - hex.length()) + hex;
+    }
+
+    String format(Throwable throwable) {
+        if (maxFrames <= 0 && excludedPackages.length == 0) {
+            StringWriter text = new StringWriter();
+            throwable.printStackTrace(new PrintWriter(text));
+            return text.toString();
+        }
+        StringBuilder text = new StringBuilder(1024);
+        walk(throwable, text);
+        return text.toString();
+    }
+
+    /**
+     * Number of times the fingerprint was seen in its current window, counting this time; always 1 without
+     * deduplication.
+     */
+    private long occurrence(String fingerprint) {
+        if (occurrences == null) {
+            return 1;
+        }
+        long now = System.currentTimeMillis();
+        synchronized (occurrences) {
+            Occurrence occurrence = occurrences.get(fingerprint);
+            if (occurrence == null || now - occurrence.windowStart >= dedupWindowMs) {
+                occurrences.put(fingerprint, new Occurrence(now));
+                return 1;
+            }
+            return ++occurrence.count;
+        }
+    }
+
+    /**
+     * Walks the cause chain the way {@link Throwable#printStackTrace()} prints it, skipping the excluded frames and the
+     * ones beyond {@code maxFrames}, and hashes what it would print.
+     *
+     * @param text where to print the stack trace, or null to only hash it
+     * @return the fingerprint hash
+     */
+    private long walk(Throwable throwable, @Nullable StringBuilder text) {
+        long hash = FNV_OFFSET_BASIS;
+        Set<Throwable> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        StackTraceElement[] enclosing = null;
+        for (Throwable current = throwable; current != null && seen.add(current); current = current.getCause()) {
+            StackTraceElement[] frames = current.getStackTrace();
+            hash = hash(hash, current.getClass().getName());
+            if (text != null) {
+                text.append(enclosing == null ? "" : "Caused by: ").append(current).append('\n');
+            }
+
+            int inCommon = enclosing == null ? 0 : framesInCommon(frames, enclosing);
+            int printed = 0;
+            int skipped = 0;
+            for (int i = 0; i < frames.length - inCommon; i++) {
+                if (isExcluded(frames[i])) {
+                    skipped++;
+                    continue;
+                }
+                if (maxFrames > 0 && printed == maxFrames) {
+                    skipped += frames.length - inCommon - i;
+                    break;
+                }
+                hash = hash(hash(hash, frames[i].getClassName()), frames[i].getMethodName());
+                printed++;
+                if (text != null) {
+                    text.append("\tat ").append(frames[i]).append('\n');
+                }
+            }
+            if (text != null && skipped + inCommon > 0) {
+                text.append("\t... ").append(skipped + inCommon).append(" more\n");
+            }
+            enclosing = frames;
+        }
+        return hash;
+    }
+
+    private boolean isExcluded(StackTraceElement frame) {
+        String className = frame.getClassName();
+        for (String excludedPackage : excludedPackages) {
+            if (className.startsWith(excludedPackage)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int framesInCommon(StackTraceElement[] frames, StackTraceElement[] enclosing) {
+        int m = frames.length - 1;
+        int n = enclosing.length - 1;
+        while (m >= 0 && n >= 0 && frames[m].equals(enclosing[n])) {
+            m--;
+            n--;
+        }
+        return frames.length - 1 - m;
+    }
+
+    private static long hash(long hash, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+        }
+        return (hash ^ '|') * FNV_PRIME;
+    }
+
+    /**
+     * @param fingerprint hash of the stack trace, as 16 hex digits
+     * @param occurrence  number of times the fingerprint was seen in the current deduplication window, this one included
+     * @param text        the stack trace, or a reference to it when the occurrence is not the first
+     */
+    public record EncodedStackTrace(String fingerprint, long occurrence, String text) {
+    }
+
+    private static class Occurrence {
+        private final long windowStart;
+        private long count = 1;
+
+        Occurrence(long windowStart) {
+            this.windowStart = windowStart;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Licensed to BaaSFlow Corporation "BaaSFlow" under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  BaaSFlow licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this  file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.baasFlow.com/licenses/Apache_LICENSE-2.0
+ * or the root of this project.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baasflow.commons.events.internal;
+
+import com.baasflow.commons.events.EventIdGenerator;
+
+import java.time.Clock;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * UUID version 7 generator (RFC 9562): a 48 bit Unix millisecond timestamp, followed by a 12 bit counter and 62 random
+ * bits. Every thread keeps its own last timestamp and counter, so ids of one thread are strictly increasing and no
+ * state is shared between threads; random bits come from {@link ThreadLocalRandom}.
+ */
+public class TimeOrderedEventIdGenerator implements EventIdGenerator {
+    private static final int COUNTER_BITS = 12;
+    private static final int MAX_COUNTER = (1 << COUNTER_BITS) - 1;
+
+    private final Clock clock;
+    private final ThreadLocal<State> state = ThreadLocal.withInitial(State::new);
+
+    public TimeOrderedEventIdGenerator(Clock clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public UUID nextId() {
+        State current = state.get();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long millis = clock.millis();
+        if (millis > current.millis) {
+            current.millis = millis;
+            // start at a random point of the lower half, leaving room to count up within the millisecond
+            current.counter = random.nextInt(MAX_COUNTER / 2);
+        } else if (current.counter < MAX_COUNTER) {
+            current.counter++;
+        } else {
+            // counter exhausted or clock went backwards, borrow the next millisecond
+            current.millis++;
+            current.counter = 0;
+        }
+
+        long mostSigBits = (current.millis << 16) | (0x7L << 12) | current.counter;
+        long leastSigBits = (random.nextLong() & 0x3FFF_FFFF_FFFF_FFFFL) | 0x8000_0000_0000_0000L;
+        return new UUID(mostSigBits, leastSigBits);
+    }
+
+    private static class State {
+        long millis = -1;
+        int counter;
+    }
+}
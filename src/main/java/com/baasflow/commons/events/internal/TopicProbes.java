@@ -0,0 +1,113 @@
+/*
+ * Licensed to BaaSFlow Corporation "BaaSFlow" under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  BaaSFlow licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this  file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.baasFlow.com/licenses/Apache_LICENSE-2.0
+ * or the root of this project.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baasflow.commons.events.internal;
+
+import com.baasflow.commons.events.Event;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.DescribeTopicsOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import javax.annotation.CheckForNull;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Supplier;
+
+/**
+ * Health probes of the channel topics for {@link KafkaHealthIndicator}. A probe describes the topic through an
+ * {@link Admin} client, a metadata round trip to the brokers with its own timeout; the producer's
+ * {@code partitionsFor} would answer from its metadata cache even with every broker gone. Channels with the same
+ * connection settings share one Admin client.
+ */
+class TopicProbes implements AutoCloseable {
+    private Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final int timeoutMs;
+    private final Map<Map<String, Object>, Admin> admins = new HashMap<>();
+
+    TopicProbes(int timeoutMs) {
+        this.timeoutMs = timeoutMs;
+    }
+
+    /**
+     * @return the probe of the topic, or null if the connection settings of the template are not known, e.g. for mock
+     * producer factories
+     */
+    @CheckForNull
+    synchronized Supplier<CompletionStage<?>> probe(KafkaTemplate<String, Event> kafkaTemplate, String topic) {
+        var producerFactory = kafkaTemplate.getProducerFactory();
+        Map<String, Object> producerProperties;
+        try {
+            producerProperties = producerFactory == null ? null : producerFactory.getConfigurationProperties();
+        } catch (UnsupportedOperationException e) {
+            return null;
+        }
+        if (producerProperties == null || !producerProperties.containsKey(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG)) {
+            return null;
+        }
+        Admin admin = admins.computeIfAbsent(adminProperties(producerProperties, timeoutMs), Admin::create);
+        var options = new DescribeTopicsOptions().timeoutMs(timeoutMs);
+        return () -> {
+            CompletableFuture<Object> result = new CompletableFuture<>();
+            admin.describeTopics(List.of(topic), options).allTopicNames().whenComplete((descriptions, e) -> {
+                if (e != null) {
+                    result.completeExceptionally(e);
+                } else {
+                    result.complete(descriptions);
+                }
+            });
+            return result;
+        };
+    }
+
+    /**
+     * The connection and security settings of the producer, with the probe timeout as request and API timeout.
+     */
+    static Map<String, Object> adminProperties(Map<String, Object> producerProperties, int timeoutMs) {
+        Map<String, Object> properties = new HashMap<>();
+        producerProperties.forEach((key, value) -> {
+            if (AdminClientConfig.configNames().contains(key) && !key.equals(AdminClientConfig.CLIENT_ID_CONFIG)) {
+                properties.put(key, value);
+            }
+        });
+        properties.put(AdminClientConfig.REQUEST_TIMEOUT_MS_CONFIG, timeoutMs);
+        properties.put(AdminClientConfig.DEFAULT_API_TIMEOUT_MS_CONFIG, timeoutMs);
+        properties.put(AdminClientConfig.CLIENT_ID_CONFIG, "baasflow-events-health");
+        return properties;
+    }
+
+    @Override
+    public synchronized void close() {
+        admins.values().forEach(admin -> {
+            try {
+                admin.close();
+            } catch (RuntimeException e) {
+                logger.warn("failed to close the health probe Admin client", e);
+            }
+        });
+        admins.clear();
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Licensed to BaaSFlow Corporation "BaaSFlow" under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  BaaSFlow licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this  file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.baasFlow.com/licenses/Apache_LICENSE-2.0
+ * or the root of this project.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baasflow.commons.events.internal.test;
+
+import com.baasflow.commons.events.Event;
+import com.baasflow.commons.events.EventService;
+import com.baasflow.commons.events.EventStatus;
+import com.baasflow.commons.events.EventType;
+import org.HdrHistogram.Recorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends a configurable mix of events through {@link EventService} at a target rate (open loop) or with a fixed number
+ * of outstanding events (closed loop), and reports send and acknowledgement latency histograms and throughput.
+ */
+public class LoadGenerator {
+    private static final Duration ACK_TIMEOUT = Duration.ofSeconds(30);
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final EventService eventService;
+    private final LoadGeneratorOptions options;
+    private final EventType[] eventTypes;
+    private final String[] payloads;
+
+    private final Recorder sendLatency = new Recorder(3);
+    private final Recorder ackLatency = new Recorder(3);
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder acknowledged = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final AtomicInteger outstanding = new AtomicInteger();
+
+    public LoadGenerator(EventService eventService, LoadGeneratorOptions options) {
+        this.eventService = eventService;
+        this.options = options;
+
+        List<EventType> weighted = new ArrayList<>();
+        for (Map.Entry<EventType, Integer> entry : options.getEventTypes().entrySet()) {
+            for (int i = 0; i < entry.getValue(); i++) {
+                weighted.add(entry.getKey());
+            }
+        }
+        if (weighted.isEmpty()) {
+            throw new IllegalArgumentException("at least one event type with a positive weight is required");
+        }
+        this.eventTypes = weighted.toArray(EventType[]::new);
+        this.payloads = options.getPayloadSizes().stream().map("x"::repeat).toArray(String[]::new);
+    }
+
+    public LoadReport run() throws InterruptedException {
+        int concurrency = Math.max(1, options.getConcurrency());
+        long intervalNanos = options.getRatePerSecond() > 0 ? TimeUnit.SECONDS.toNanos(concurrency) / options.getRatePerSecond() : 0;
+        logger.info("generating load for {} with {} {} senders, {}", options.getDuration(), concurrency,
+                options.isVirtualThreads() ? "virtual" : "platform",
+                intervalNanos > 0 ? options.getRatePerSecond() + " events/s" : "closed loop");
+
+        long start = System.nanoTime();
+        long deadline = start + options.getDuration().toNanos();
+        ExecutorService executor = createExecutor(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            executor.execute(() -> sendUntil(deadline, intervalNanos));
+        }
+        executor.shutdown();
+        executor.awaitTermination(options.getDuration().plus(ACK_TIMEOUT).toMillis(), TimeUnit.MILLISECONDS);
+
+        long ackDeadline = System.nanoTime() + ACK_TIMEOUT.toNanos();
+        while (outstanding.get() > 0 && System.nanoTime() < ackDeadline) {
+            Thread.sleep(10);
+        }
+        if (outstanding.get() > 0) {
+            logger.warn("{} events were not acknowledged within {}", outstanding.get(), ACK_TIMEOUT);
+        }
+
+        var report = new LoadReport(sent.sum(), acknowledged.sum(), failed.sum(), Duration.ofNanos(System.nanoTime() - start),
+                sendLatency.getIntervalHistogram(), ackLatency.getIntervalHistogram());
+        logger.info("load generator finished: {}", report);
+        return report;
+    }
+
+    private void sendUntil(long deadline, long intervalNanos) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long next = System.nanoTime() + (intervalNanos > 0 ? random.nextLong(intervalNanos) : 0);
+        while (true) {
+            long intended;
+            if (intervalNanos > 0) {
+                intended = next;
+                next += intervalNanos;
+                long wait;
+                while ((wait = intended - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+            } else {
+                intended = System.nanoTime();
+            }
+            if (intended >= deadline) {
+                return;
+            }
+
+            CompletableFuture<?> future;
+            try {
+                future = eventService.sendEventAsync(builder -> describe(builder, random));
+            } catch (RuntimeException e) {
+                failed.increment();
+                continue;
+            }
+            sent.increment();
+            sendLatency.recordValue(micros(System.nanoTime() - intended));
+
+            outstanding.incrementAndGet();
+            CompletableFuture<?> completion = (future != null ? future : CompletableFuture.completedFuture(null)).whenComplete((result, e) -> {
+                ackLatency.recordValue(micros(System.nanoTime() - intended));
+                if (e == null) {
+                    acknowledged.increment();
+                } else {
+                    failed.increment();
+                }
+                outstanding.decrementAndGet();
+            });
+            if (intervalNanos == 0) {
+                try {
+                    completion.join();
+                } catch (CompletionException e) {
+                    // counted as failed above
+                }
+            }
+        }
+    }
+
+    private Event.Builder describe(Event.Builder builder, ThreadLocalRandom random) {
+        EventType eventType = eventTypes[random.nextInt(eventTypes.length)];
+        return builder
+                .setEventType(eventType)
+                .setEventStatus(random.nextInt(10) < 7 ? EventStatus.success : EventStatus.failure)
+                .setSourceModule(options.getSourceModule())
+                .setEvent("load-" + eventType.name())
+                .setPayload(payloads.length == 0 ? null : payloads[random.nextInt(payloads.length)])
+                .setPayloadType("string");
+    }
+
+    private static long micros(long nanos) {
+        return Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    private ExecutorService createExecutor(int concurrency) {
+        if (!options.isVirtualThreads()) {
+            AtomicInteger threads = new AtomicInteger();
+            return Executors.newFixedThreadPool(concurrency, runnable -> new Thread(runnable, "baasflow-events-load-" + threads.incrementAndGet()));
+        }
+        try {
+            // Java 21 API, looked up reflectively as the library targets Java 17
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("virtual thread senders require Java 21 or later", e);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Licensed to BaaSFlow Corporation "BaaSFlow" under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  BaaSFlow licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this  file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.baasFlow.com/licenses/Apache_LICENSE-2.0
+ * or the root of this project.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baasflow.commons.events.internal.test;
+
+import com.baasflow.commons.events.EventType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Settings of a {@link LoadGenerator} run.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LoadGeneratorOptions {
+    /**
+     * Events per second over all senders; 0 runs a closed loop where every sender waits for the acknowledgement of its
+     * event before sending the next one.
+     */
+    @Builder.Default
+    private int ratePerSecond = 0;
+
+    @Builder.Default
+    private int concurrency = 4;
+
+    @Builder.Default
+    private Duration duration = Duration.ofSeconds(10);
+
+    /**
+     * Relative weights of the event types to send.
+     */
+    @Builder.Default
+    private Map<EventType, Integer> eventTypes = new EnumMap<>(Map.of(EventType.audit, 1, EventType.business, 1));
+
+    /**
+     * Payload sizes in bytes, picked uniformly per event.
+     */
+    @Builder.Default
+    private List<Integer> payloadSizes = List.of(0, 256, 4096);
+
+    /**
+     * Run the senders on virtual threads, requires Java 21.
+     */
+    @Builder.Default
+    private boolean virtualThreads = false;
+
+    @Builder.Default
+    private String sourceModule = "load-generator";
+
+    /**
+     * Parses event type weights in the form {@code audit=1,business=3}.
+     */
+    public static Map<EventType, Integer> parseEventTypes(String weights) {
+        Map<EventType, Integer> eventTypes = new EnumMap<>(EventType.class);
+        for (String entry : weights.split(",")) {
+            String[] parts = entry.trim().split("=");
+            eventTypes.put(EventType.valueOf(parts[0].trim()), parts.length > 1 ? Integer.parseInt(parts[1].trim()) : 1);
+        }
+        return eventTypes;
+    }
+}
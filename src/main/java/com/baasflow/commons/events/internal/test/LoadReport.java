@@ -0,0 +1,77 @@
+/*
+ * Licensed to BaaSFlow Corporation "BaaSFlow" under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  BaaSFlow licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this  file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.baasFlow.com/licenses/Apache_LICENSE-2.0
+ * or the root of this project.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.baasflow.commons.events.internal.test;
+
+import lombok.Getter;
+import org.HdrHistogram.Histogram;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outcome of a {@link LoadGenerator} run. Latencies are recorded in microseconds from the intended send time, so in
+ * rate mode they include the time an event waited for a busy sender (no coordinated omission).
+ */
+@Getter
+public class LoadReport {
+    private final long sent;
+    private final long acknowledged;
+    private final long failed;
+    private final Duration elapsed;
+    /**
+     * Time until the send call returned.
+     */
+    private final Histogram sendLatency;
+    /**
+     * Time until Kafka acknowledged the event.
+     */
+    private final Histogram ackLatency;
+
+    LoadReport(long sent, long acknowledged, long failed, Duration elapsed, Histogram sendLatency, Histogram ackLatency) {
+        this.sent = sent;
+        this.acknowledged = acknowledged;
+        this.failed = failed;
+        this.elapsed = elapsed;
+        this.sendLatency = sendLatency;
+        this.ackLatency = ackLatency;
+    }
+
+    /**
+     * @return acknowledged events per second
+     */
+    public double getThroughput() {
+        long nanos = elapsed.toNanos();
+        return nanos == 0 ? 0 : acknowledged * (double) TimeUnit.SECONDS.toNanos(1) / nanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("sent %d, acknowledged %d, failed %d in %.1f s: %.0f events/s%n%s%n%s",
+                sent, acknowledged, failed, elapsed.toMillis() / 1000.0, getThroughput(),
+                percentiles("send", sendLatency), percentiles("ack ", ackLatency));
+    }
+
+    private static String percentiles(String name, Histogram histogram) {
+        return String.format("%s latency (us): p50 %d, p99 %d, p99.9 %d, max %d", name,
+                histogram.getValueAtPercentile(50), histogram.getValueAtPercentile(99),
+                histogram.getValueAtPercentile(99.9), histogram.getMaxValue());
+    }
+}
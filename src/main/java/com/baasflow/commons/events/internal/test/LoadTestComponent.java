@@ -21,17 +21,24 @@
 package com.baasflow.commons.events.internal.test;
 
 import com.baasflow.commons.events.EventService;
-import com.baasflow.commons.events.EventStatus;
-import com.baasflow.commons.events.EventType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Runs the {@link LoadGenerator} on startup when {@code baasflow.events.testing} is set, configured by the
+ * {@code baasflow.events.load.*} properties. Requires the optional HdrHistogram dependency.
+ */
 @Component
-public class SendingTestComponent implements CommandLineRunner {
+@ConditionalOnClass(name = "org.HdrHistogram.Histogram")
+public class LoadTestComponent implements CommandLineRunner {
     private Logger logger = LoggerFactory.getLogger(this.getClass());
 
     @Autowired
@@ -40,21 +47,38 @@ public class SendingTestComponent implements CommandLineRunner {
     @Value("${baasflow.events.testing:false}")
     boolean testing;
 
+    @Value("${baasflow.events.load.rate-per-second:0}")
+    int ratePerSecond;
+
+    @Value("${baasflow.events.load.concurrency:4}")
+    int concurrency;
+
+    @Value("${baasflow.events.load.duration:60s}")
+    Duration duration;
+
+    @Value("${baasflow.events.load.event-types:audit=1,business=1}")
+    String eventTypes;
+
+    @Value("${baasflow.events.load.payload-sizes:0,256,4096}")
+    String payloadSizes;
+
+    @Value("${baasflow.events.load.virtual-threads:false}")
+    boolean virtualThreads;
+
     @Override
     public void run(String... args) throws InterruptedException {
         if (testing) {
             logger.warn("running in testing mode");
-            Thread.sleep(1000);
-
-            while (true) {
-                int count = (int) (Math.random() * 10000);
-                if (count % 2 == 0) {
-                    eventService.sendAuditlog("source" + count, "event" + count, Math.random() > 0.3 ? EventStatus.success : EventStatus.failure);
-                } else {
-                    eventService.sendEvent("source" + count, "event" + count, EventType.business, Math.random() > 0.3 ? EventStatus.success : EventStatus.failure, "payload" + count, "payload" + count);
-                }
-                Thread.sleep(5000);
-            }
+            var options = LoadGeneratorOptions.builder()
+                    .ratePerSecond(ratePerSecond)
+                    .concurrency(concurrency)
+                    .duration(duration)
+                    .eventTypes(LoadGeneratorOptions.parseEventTypes(eventTypes))
+                    .payloadSizes(Arrays.stream(payloadSizes.split(",")).map(String::trim).map(Integer::valueOf).toList())
+                    .virtualThreads(virtualThreads)
+                    .build();
+            LoadReport report = new LoadGenerator(eventService, options).run();
+            logger.info("{}", report);
         }
     }
 }
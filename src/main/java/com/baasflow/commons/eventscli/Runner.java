@@ -24,14 +24,20 @@ import com.baasflow.commons.events.EventLogLevel;
 import com.baasflow.commons.events.EventService;
 import com.baasflow.commons.events.EventStatus;
 import com.baasflow.commons.events.EventType;
+import com.baasflow.commons.events.internal.test.LoadGenerator;
+import com.baasflow.commons.events.internal.test.LoadGeneratorOptions;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.Banner;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.util.ClassUtils;
 import picocli.CommandLine;
 import picocli.CommandLine.Command;
 
+import java.time.Duration;
+import java.util.List;
+
 @SpringBootApplication
 @Command(name = "events", mixinStandardHelpOptions = true, description = "Events CLI")
 public class Runner implements CommandLineRunner {
@@ -79,9 +85,48 @@ public class Runner implements CommandLineRunner {
     }
 
 
+    @Command(name = "load", mixinStandardHelpOptions = true, description = "Generates load and reports send and acknowledgement latencies.")
+    class LoadCommand implements Runnable {
+        @CommandLine.Option(names = {"-r", "--rate"}, description = "Events per second, 0 for a closed loop (default: ${DEFAULT-VALUE})")
+        private int rate = 0;
+        @CommandLine.Option(names = {"-c", "--concurrency"}, description = "Number of senders (default: ${DEFAULT-VALUE})")
+        private int concurrency = 4;
+        @CommandLine.Option(names = {"-d", "--duration"}, description = "Duration in seconds (default: ${DEFAULT-VALUE})")
+        private long duration = 10;
+        @CommandLine.Option(names = {"-t", "--eventTypes"}, description = "Weighted event types (default: ${DEFAULT-VALUE})")
+        private String eventTypes = "audit=1,business=1";
+        @CommandLine.Option(names = {"-s", "--payloadSizes"}, split = ",", description = "Payload sizes in bytes (default: ${DEFAULT-VALUE})")
+        private List<Integer> payloadSizes = List.of(0, 256, 4096);
+        @CommandLine.Option(names = {"-v", "--virtualThreads"}, description = "Send from virtual threads, requires Java 21")
+        private boolean virtualThreads;
+
+        @Override
+        public void run() {
+            var options = LoadGeneratorOptions.builder()
+                    .ratePerSecond(rate)
+                    .concurrency(concurrency)
+                    .duration(Duration.ofSeconds(duration))
+                    .eventTypes(LoadGeneratorOptions.parseEventTypes(eventTypes))
+                    .payloadSizes(payloadSizes)
+                    .virtualThreads(virtualThreads)
+                    .build();
+            try {
+                System.out.println(new LoadGenerator(eventService, options).run());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+
     @Override
     public void run(String... args) throws Exception {
-        new CommandLine(new SendEventCommand()).execute(args);
+        var commandLine = new CommandLine(new SendEventCommand());
+        // the load generator needs the optional HdrHistogram dependency
+        if (ClassUtils.isPresent("org.HdrHistogram.Histogram", Runner.class.getClassLoader())) {
+            commandLine.addSubcommand("load", new LoadCommand());
+        }
+        commandLine.execute(args);
     }
 
     public static void main(String[] args) {
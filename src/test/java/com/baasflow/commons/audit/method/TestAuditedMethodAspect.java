@@ -0,0 +1,144 @@
+package com.baasflow.commons.audit.method;
+
+import com.baasflow.commons.audit.rest.Audit;
+import com.baasflow.commons.audit.rest.AuditEventPublisher;
+import com.baasflow.commons.audit.rest.AuditEventPublisher.SecurityEventType;
+import com.baasflow.commons.audit.rest.ICorrelationDataProvider;
+import com.baasflow.commons.audit.rest.interceptor.AuditSecurityInterceptor;
+import com.baasflow.commons.events.EventLogLevel;
+import com.baasflow.commons.events.EventStatus;
+import com.baasflow.commons.events.EventType;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.slf4j.MDC;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class TestAuditedMethodAspect {
+
+    private final AuditEventPublisher auditEventPublisher = mock(AuditEventPublisher.class);
+    private final AuditedMethodAspect aspect = new AuditedMethodAspect("module", auditEventPublisher);
+
+    @AfterEach
+    public void clearMDC() {
+        MDC.clear();
+    }
+
+    @Test
+    public void testResolvesAuditedMethodOnce() throws NoSuchMethodException {
+        var method = Jobs.class.getMethod("settle", String.class, int.class);
+
+        var descriptor = AuditedMethodDescriptor.of(method);
+
+        assertSame(descriptor, AuditedMethodDescriptor.of(method));
+        assertTrue(descriptor.isAudited());
+        assertEquals("Jobs.settle", descriptor.getOperationId());
+        assertEquals("payments", descriptor.getDomains());
+        assertEquals(EventType.business, descriptor.getEventType());
+        assertEquals(1, descriptor.getParamCount());
+        assertEquals("batchId", descriptor.getParamName(0));
+        assertTrue(descriptor.isAddingToMDC());
+        assertFalse(AuditedMethodDescriptor.of(Jobs.class.getMethod("notAudited")).isAudited());
+    }
+
+    @Test
+    public void testSuccessfulCallIsPublished() throws Throwable {
+        MDC.put(AuditSecurityInterceptor.TENANT_ID, "tenant-1");
+        var joinPoint = joinPoint(Jobs.class.getMethod("settle", String.class, int.class), new Object[]{"b-1", 3}, () -> {
+            assertEquals("b-1", MDC.get("batchId"));
+            return new ICorrelationDataProvider() {
+                @Override
+                public Map<String, String> correlationParams() {
+                    return Map.of("settlementId", "s-1");
+                }
+            };
+        });
+
+        aspect.handleAuditedMethodCall(joinPoint);
+
+        var event = published();
+        assertEquals("Jobs.settle", event.getOperationId());
+        assertEquals("module", event.getSourceModule());
+        assertEquals("tenant-1", event.getTenantId());
+        assertEquals(EventLogLevel.INFO, event.getEventLogLevel());
+        assertEquals(EventStatus.success, event.getEventStatus());
+        assertEquals(Map.of("batchId", "b-1", "settlementId", "s-1"), event.getParams());
+        assertNull(MDC.get("batchId"));
+        assertEquals("tenant-1", MDC.get(AuditSecurityInterceptor.TENANT_ID));
+    }
+
+    @Test
+    public void testFailedCallIsPublishedAndRethrown() throws Throwable {
+        var joinPoint = joinPoint(Jobs.class.getMethod("settle", String.class, int.class), new Object[]{"b-1", 3}, () -> {
+            throw new IllegalStateException("settlement failed");
+        });
+
+        assertThrows(IllegalStateException.class, () -> aspect.handleAuditedMethodCall(joinPoint));
+
+        var event = published();
+        assertEquals(EventStatus.failure, event.getEventStatus());
+        assertEquals(IllegalStateException.class.getName(), event.getParams().get(AuditedMethodAspect.ERROR));
+        assertNull(MDC.get("batchId"));
+    }
+
+    @Test
+    public void testAsyncCallIsPublishedOnCompletion() throws Throwable {
+        var future = new CompletableFuture<String>();
+        var joinPoint = joinPoint(Jobs.class.getMethod("listen", String.class), new Object[]{"record"}, () -> future);
+
+        assertSame(future, aspect.handleAuditedMethodCall(joinPoint));
+        verifyNoInteractions(auditEventPublisher);
+
+        future.completeExceptionally(new IllegalArgumentException("invalid record"));
+        var event = published();
+        assertEquals("onPayment", event.getOperationId());
+        assertEquals("listener", event.getSourceModule());
+        assertEquals(EventStatus.failure, event.getEventStatus());
+        assertEquals(IllegalArgumentException.class.getName(), event.getParams().get(AuditedMethodAspect.ERROR));
+    }
+
+    private SecurityEventType published() {
+        var captor = ArgumentCaptor.forClass(SecurityEventType.class);
+        verify(auditEventPublisher).publish(captor.capture(), any());
+        return captor.getValue();
+    }
+
+    private static ProceedingJoinPoint joinPoint(final Method method, final Object[] args, final Call call) throws Throwable {
+        var signature = mock(MethodSignature.class);
+        when(signature.getMethod()).thenReturn(method);
+        var joinPoint = mock(ProceedingJoinPoint.class);
+        when(joinPoint.getSignature()).thenReturn(signature);
+        when(joinPoint.getArgs()).thenReturn(args);
+        when(joinPoint.proceed()).thenAnswer(invocation -> call.proceed());
+        return joinPoint;
+    }
+
+    private interface Call {
+        Object proceed() throws Throwable;
+    }
+
+    public static class Jobs {
+
+        @Audited(domains = "payments", eventType = EventType.business)
+        public Object settle(@Audit(value = "batchId", addToMDC = true) final String batchId, final int attempt) {
+            return null;
+        }
+
+        @Audited(operationId = "onPayment", sourceModule = "listener")
+        public CompletableFuture<String> listen(final String record) {
+            return CompletableFuture.completedFuture(record);
+        }
+
+        public void notAudited() {
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.baasflow.commons.audit.reactive;
+
+import com.baasflow.commons.audit.rest.Audit;
+import com.baasflow.commons.audit.rest.AuditEventPublisher;
+import com.baasflow.commons.audit.rest.AuditSecurityEvent;
+import com.baasflow.commons.audit.rest.ICorrelationDataProvider;
+import com.baasflow.commons.audit.rest.interceptor.AuditSecurityEventMapper;
+import com.baasflow.commons.audit.rest.interceptor.AuditSecurityInterceptor;
+import com.baasflow.commons.events.EventStatus;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class TestReactiveAuditWebFilter {
+
+    private final AuditEventPublisher auditEventPublisher = mock(AuditEventPublisher.class);
+    private final AuditSecurityEventMapper mapper = new AuditSecurityEventMapper();
+    private final ReactiveAuditWebFilter filter = new ReactiveAuditWebFilter("module", null, "X-baasflow-tenant-id", auditEventPublisher, mapper);
+    private final ReactiveAuditAspect aspect = new ReactiveAuditAspect(mapper);
+
+    @Test
+    public void testNonAuditedExchangeIsNotPublished() throws NoSuchMethodException {
+        var exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/health"));
+        var handler = new HandlerMethod(new Handlers(), Handlers.class.getMethod("health"));
+
+        filter.filter(exchange, routeTo(handler, HttpStatus.OK, ex -> Mono.empty())).block();
+
+        verifyNoInteractions(auditEventPublisher);
+    }
+
+    @Test
+    public void testAuditedFromHandlerMetadata() throws NoSuchMethodException {
+        var exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/status")
+                .header(AuditSecurityInterceptor.X_TRACKING_ID, "tracking-1")
+                .header("X-baasflow-tenant-id", "tenant-1"));
+        var handler = new HandlerMethod(new Handlers(), Handlers.class.getMethod("status"));
+
+        filter.filter(exchange, routeTo(handler, HttpStatus.OK, ex -> Mono.empty())).block();
+
+        var event = published();
+        assertEquals("getStatus", event.getOperationId());
+        assertEquals("tenant-1", event.getTenantId());
+        assertEquals(200, event.getStatusCode());
+        assertEquals(EventStatus.success, event.getEventStatus());
+        assertEquals("tracking-1", event.getParams().get(AuditSecurityInterceptor.REQUEST_X_TRACKING_ID));
+    }
+
+    @Test
+    public void testAuditedReactiveHandlerCollectsParamsAndResult() throws Throwable {
+        var exchange = MockServerWebExchange.from(MockServerHttpRequest.post("/transfers"));
+        var method = Handlers.class.getMethod("transfer", String.class);
+        var handler = new HandlerMethod(new Handlers(), method);
+
+        var signature = mock(MethodSignature.class);
+        when(signature.getMethod()).thenReturn(method);
+        var joinPoint = mock(ProceedingJoinPoint.class);
+        when(joinPoint.getSignature()).thenReturn(signature);
+        when(joinPoint.getArgs()).thenReturn(new Object[]{"acc-1"});
+        when(joinPoint.proceed()).thenReturn(Mono.just(ResponseEntity.accepted().body(new ICorrelationDataProvider() {
+            @Override
+            public Map<String, String> correlationParams() {
+                return Map.of("transferId", "t-1");
+            }
+        })));
+        var result = (Mono<?>) aspect.handleAnnotatedMethodCall(joinPoint);
+
+        filter.filter(exchange, routeTo(handler, HttpStatus.ACCEPTED, ex -> result.then())).block();
+
+        var event = published();
+        assertEquals("createTransfer", event.getOperationId());
+        assertEquals("acc-1", event.getParams().get("accountId"));
+        assertEquals("t-1", event.getParams().get("transferId"));
+        assertEquals(202, event.getStatusCode());
+        assertEquals(EventStatus.success, event.getEventStatus());
+    }
+
+    @Test
+    public void testFailedExchange() throws NoSuchMethodException {
+        var exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/status"));
+        var handler = new HandlerMethod(new Handlers(), Handlers.class.getMethod("status"));
+
+        var result = filter.filter(exchange, routeTo(handler, HttpStatus.OK, ex -> Mono.error(new IllegalStateException("failed"))));
+
+        assertThrows(IllegalStateException.class, result::block);
+        var event = published();
+        assertEquals(EventStatus.failure, event.getEventStatus());
+        assertEquals(500, event.getStatusCode());
+    }
+
+    private AuditEventPublisher.SecurityEventType published() {
+        var captor = ArgumentCaptor.forClass(AuditEventPublisher.SecurityEventType.class);
+        verify(auditEventPublisher).publish(captor.capture(), any());
+        return captor.getValue();
+    }
+
+    private static WebFilterChain routeTo(HandlerMethod handler, HttpStatus status, WebFilterChain next) {
+        return (ServerWebExchange exchange) -> {
+            exchange.getAttributes().put(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE, handler);
+            exchange.getResponse().setStatusCode(status);
+            return next.filter(exchange);
+        };
+    }
+
+    static class Handlers {
+        @AuditSecurityEvent(operationId = "createTransfer", domains = "payments")
+        public Mono<ResponseEntity<ICorrelationDataProvider>> transfer(@Audit("accountId") String accountId) {
+            return Mono.empty();
+        }
+
+        @AuditSecurityEvent(operationId = "getStatus", domains = "status")
+        public String status() {
+            return "ok";
+        }
+
+        public String health() {
+            return "ok";
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.baasflow.commons.audit.rest;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class TestAuditEventPublisherConfig {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private AuditEventPublisherExecutor executor;
+
+    @AfterEach
+    public void shutdown() {
+        MDC.clear();
+        if (null != executor) {
+            executor.destroy();
+        }
+    }
+
+    @Test
+    public void testDoesNotReplaceApplicationTaskExecutor() {
+        new ApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(TaskExecutionAutoConfiguration.class))
+                .withUserConfiguration(AuditEventPublisherConfig.class)
+                .run(context -> {
+                    assertEquals(1, context.getBeansOfType(AuditEventPublisherExecutor.class).size());
+                    assertTrue(context.containsBean(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME));
+                    assertEquals(Set.of(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME),
+                            context.getBeansOfType(Executor.class).keySet());
+                });
+    }
+
+    @Test
+    public void testPublishesWithGivenMDCAndRestoresWorkerMDC() throws InterruptedException {
+        executor = executor(1, 10, AuditEventPublisherConfig.RejectionPolicy.CALLER_RUNS);
+        var applicationEventPublisher = mock(ApplicationEventPublisher.class);
+        var published = new CountDownLatch(1);
+        var publishedMdc = new AtomicReference<String>();
+        doAnswer(invocation -> {
+            publishedMdc.set(MDC.get("request.TrackingId"));
+            published.countDown();
+            return null;
+        }).when(applicationEventPublisher).publishEvent(any(Object.class));
+
+        new AuditEventPublisher(applicationEventPublisher, executor)
+                .publish(new AuditEventPublisher.SecurityEventType(), Map.of("request.TrackingId", "tracking-1"));
+
+        assertTrue(published.await(5, TimeUnit.SECONDS));
+        assertEquals("tracking-1", publishedMdc.get());
+        var workerMdc = new AtomicReference<Map<String, String>>();
+        var checked = new CountDownLatch(1);
+        executor.execute(() -> {
+            workerMdc.set(MDC.getCopyOfContextMap());
+            checked.countDown();
+        });
+        assertTrue(checked.await(5, TimeUnit.SECONDS));
+        assertTrue(null == workerMdc.get() || workerMdc.get().isEmpty(), "leaked " + workerMdc.get());
+        assertTrue(registry.get("baasflow.audit.publisher.latency").timer().count() >= 1);
+    }
+
+    @Test
+    public void testDiscardsWhenQueueIsFull() throws InterruptedException {
+        executor = executor(1, 1, AuditEventPublisherConfig.RejectionPolicy.DISCARD);
+        var blocked = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        executor.execute(() -> {
+            blocked.countDown();
+            await(release);
+        });
+        assertTrue(blocked.await(5, TimeUnit.SECONDS));
+        executor.execute(() -> {
+        });
+        executor.execute(() -> {
+        });
+
+        assertEquals(1, registry.get("baasflow.audit.publisher.queue.size").gauge().value());
+        assertEquals(1, registry.get("baasflow.audit.publisher.rejected").tag("policy", "DISCARD").counter().count());
+        release.countDown();
+    }
+
+    private AuditEventPublisherExecutor executor(int poolSize, int queueCapacity, AuditEventPublisherConfig.RejectionPolicy rejectionPolicy) {
+        @SuppressWarnings("unchecked")
+        ObjectProvider<MeterRegistry> meterRegistry = mock(ObjectProvider.class);
+        when(meterRegistry.getIfAvailable()).thenReturn(registry);
+        return new AuditEventPublisherConfig().auditEventPublisherExecutor(poolSize, poolSize, queueCapacity, rejectionPolicy, false, meterRegistry);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.baasflow.commons.audit.rest.interceptor;
+
+import com.baasflow.commons.audit.rest.Audit;
+import com.baasflow.commons.audit.rest.AuditSecurityEvent;
+import com.baasflow.commons.events.EventLogLevel;
+import com.baasflow.commons.events.EventType;
+import io.swagger.v3.oas.annotations.Operation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.web.bind.annotation.PathVariable;
+
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestAuditHandlerDescriptor {
+
+    @AfterEach
+    public void clearMDC() {
+        MDC.clear();
+    }
+
+    @Test
+    public void testResolvesAuditedHandlerOnce() throws NoSuchMethodException {
+        var method = Handlers.class.getMethod("transfer", String.class, String.class, int.class);
+
+        var descriptor = AuditHandlerDescriptor.of(method);
+
+        assertSame(descriptor, AuditHandlerDescriptor.of(method));
+        assertTrue(descriptor.isAudited());
+        assertEquals("createTransfer", descriptor.getOperationId());
+        assertEquals("payments", descriptor.getDomains());
+        assertEquals(EventType.business, descriptor.getEventType());
+        assertEquals(EventLogLevel.INFO, descriptor.getEventLogLevel());
+        assertArrayEquals(new String[]{"X-Request-Id"}, descriptor.getHeaderNames());
+        assertEquals(2, descriptor.getParamCount());
+        assertEquals(0, descriptor.getParamIndex(0));
+        assertEquals("accountId", descriptor.getParamName(0));
+        assertTrue(descriptor.isParamAddToMDC(0));
+        assertEquals(2, descriptor.getParamIndex(1));
+        assertEquals("amount", descriptor.getParamName(1));
+        assertFalse(descriptor.isParamAddToMDC(1));
+    }
+
+    @Test
+    public void testNotAuditedHandler() throws NoSuchMethodException {
+        var descriptor = AuditHandlerDescriptor.of(Handlers.class.getMethod("health"));
+
+        assertFalse(descriptor.isAudited());
+        assertEquals(0, descriptor.getParamCount());
+        assertEquals(0, descriptor.getHeaderNames().length);
+    }
+
+    @Test
+    public void testPopulatesContextFromDescriptor() throws NoSuchMethodException {
+        var descriptor = AuditHandlerDescriptor.of(Handlers.class.getMethod("transfer", String.class, String.class, int.class));
+        var context = new AuditSecurityEventContext("module");
+
+        new AuditSecurityEventMapper().toAuditSecurityEventContext(descriptor, context);
+        context.populateAuditInfoFromMethodParams(descriptor, new Object[]{"acc-1", "ignored", 42});
+
+        assertEquals("createTransfer", context.getOperationId());
+        assertEquals("module", context.getSourceModule());
+        assertEquals(Map.of("accountId", Set.of("acc-1"), "amount", Set.of("42")), context.getParams());
+        assertEquals("acc-1", MDC.get("accountId"));
+        assertNull(MDC.get("amount"));
+    }
+
+    static class Handlers {
+        @AuditSecurityEvent(domains = "payments", eventType = EventType.business, headerNames = "X-Request-Id")
+        @Operation(operationId = "createTransfer")
+        public void transfer(@Audit(value = "accountId", addToMDC = true) @PathVariable(name = "id") String accountId,
+                             String note,
+                             @Audit("amount") int amount) {
+        }
+
+        public void health() {
+        }
+    }
+}
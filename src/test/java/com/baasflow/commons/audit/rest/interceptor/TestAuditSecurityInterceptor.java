@@ -0,0 +1,129 @@
+package com.baasflow.commons.audit.rest.interceptor;
+
+import com.baasflow.commons.audit.rest.AuditEventPublisher;
+import com.baasflow.commons.audit.rest.AuditSecurityEvent;
+import com.baasflow.commons.audit.rest.ICorrelationDataProvider;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.aop.aspectj.MethodInvocationProceedingJoinPoint;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.context.request.async.StandardServletAsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.method.HandlerMethod;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class TestAuditSecurityInterceptor {
+
+    private final AuditTracking auditTracking = spy(new AuditTracking(null, "X-baasflow-tenant-id"));
+    private final AuditSecurityEventContext context = spy(new AuditSecurityEventContext("module"));
+    private final AuditEventPublisher auditEventPublisher = mock(AuditEventPublisher.class);
+    private final AuditSecurityInterceptor interceptor = new AuditSecurityInterceptor(auditTracking, context, auditEventPublisher, new AuditSecurityEventMapper());
+
+    @AfterEach
+    public void clearMDC() {
+        MDC.clear();
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    public void testNonAuditedHandlerSkipsContext() throws NoSuchMethodException {
+        var request = new MockHttpServletRequest("GET", "/health");
+        var response = new MockHttpServletResponse();
+        var handler = new HandlerMethod(new Handlers(), Handlers.class.getMethod("health"));
+
+        assertTrue(interceptor.preHandle(request, response, handler));
+        interceptor.afterCompletion(request, response, handler, null);
+        assertTrue(interceptor.preHandle(request, response, "static resource"));
+
+        verifyNoInteractions(auditTracking, context, auditEventPublisher);
+        assertNull(MDC.get(AuditSecurityInterceptor.REQUEST_X_TRACKING_ID));
+    }
+
+    @Test
+    public void testAuditedHandlerPopulatesContext() throws NoSuchMethodException {
+        var request = new MockHttpServletRequest("POST", "/transfers");
+        request.addHeader(AuditSecurityInterceptor.X_TRACKING_ID, "tracking-1");
+        request.addHeader("X-baasflow-tenant-id", "tenant-1");
+        request.addHeader("X-Request-Id", "request-1");
+        var response = new MockHttpServletResponse();
+        var handler = new HandlerMethod(new Handlers(), Handlers.class.getMethod("transfer"));
+
+        assertTrue(interceptor.preHandle(request, response, handler));
+        interceptor.afterCompletion(request, response, handler, null);
+
+        assertTrue(context.isPreHandled());
+        assertEquals("tenant-1", context.getTenant());
+        assertEquals("tracking-1", context.getParams().get(AuditSecurityInterceptor.REQUEST_X_TRACKING_ID).iterator().next());
+        assertEquals("request-1", context.getParams().get("X-Request-Id").iterator().next());
+        assertEquals("tracking-1", MDC.get(AuditSecurityInterceptor.REQUEST_X_TRACKING_ID));
+        verify(auditEventPublisher).publish(any(), any());
+    }
+
+    @Test
+    public void testAsyncResultIsCollectedWithoutBlocking() throws Throwable {
+        var request = new MockHttpServletRequest("POST", "/transfers");
+        request.setAsyncSupported(true);
+        var response = new MockHttpServletResponse();
+        var method = Handlers.class.getMethod("transfer");
+        var handler = new HandlerMethod(new Handlers(), method);
+        assertTrue(interceptor.preHandle(request, response, handler));
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, response));
+
+        var pending = new CompletableFuture<ResponseEntity<ICorrelationDataProvider>>();
+        var signature = mock(MethodSignature.class);
+        when(signature.getMethod()).thenReturn(method);
+        var joinPoint = mock(MethodInvocationProceedingJoinPoint.class);
+        when(joinPoint.getSignature()).thenReturn(signature);
+        when(joinPoint.getArgs()).thenReturn(new Object[0]);
+        when(joinPoint.proceed()).thenReturn(pending);
+
+        assertSame(pending, interceptor.handleAnnotatedMethodCall(joinPoint));
+        assertFalse(context.isPostHandled());
+
+        var asyncManager = WebAsyncUtils.getAsyncManager(request);
+        asyncManager.setAsyncWebRequest(new StandardServletAsyncWebRequest(request, response));
+        var deferredResult = new DeferredResult<ResponseEntity<ICorrelationDataProvider>>();
+        pending.whenComplete((result, e) -> deferredResult.setResult(result));
+        asyncManager.startDeferredResultProcessing(deferredResult);
+
+        pending.complete(ResponseEntity.accepted().body(new ICorrelationDataProvider() {
+            @Override
+            public Map<String, String> correlationParams() {
+                return Map.of("transferId", "t-1");
+            }
+        }));
+
+        assertTrue(context.isPostHandled());
+        assertEquals(202, context.getStatusCode());
+        assertEquals(Set.of("t-1"), context.getParams().get("transferId"));
+
+        // async dispatch: the handler is Spring's wrapper of the concurrent result
+        response.setStatus(202);
+        interceptor.afterCompletion(request, response, "concurrent result handler", null);
+        interceptor.afterCompletion(request, response, "concurrent result handler", null);
+        verify(auditEventPublisher, times(1)).publish(any(), any());
+    }
+
+    static class Handlers {
+        @AuditSecurityEvent(operationId = "createTransfer", domains = "payments", headerNames = "X-Request-Id")
+        public void transfer() {
+        }
+
+        public void health() {
+        }
+    }
+}
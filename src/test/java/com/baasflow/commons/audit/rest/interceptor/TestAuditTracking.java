@@ -0,0 +1,49 @@
+package com.baasflow.commons.audit.rest.interceptor;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestAuditTracking {
+
+    @AfterEach
+    public void clearMDC() {
+        MDC.clear();
+    }
+
+    @Test
+    public void testResolvesIdsOncePerRequest() {
+        var auditTracking = new AuditTracking("X-Session-Id", "X-baasflow-tenant-id");
+        auditTracking.init();
+        var request = new MockHttpServletRequest();
+        request.addHeader("X-Session-Id", "session-1");
+
+        var ids = auditTracking.resolve(request);
+
+        assertSame(ids, auditTracking.resolve(request));
+        assertEquals("session-1", ids.trackingId());
+        assertEquals("session-1", ids.sessionId());
+        assertEquals("default", ids.tenantId());
+        assertEquals("session-1", MDC.get(AuditSecurityInterceptor.REQUEST_SESSION_ID));
+        assertEquals("default", MDC.get(AuditSecurityInterceptor.TENANT_ID));
+    }
+
+    @Test
+    public void testFilterScopesMDCToRequest() throws Exception {
+        var filter = new AuditTrackingFilter(new AuditTracking(null, "X-baasflow-tenant-id"));
+        var request = new MockHttpServletRequest();
+        request.addHeader(AuditSecurityInterceptor.X_TRACKING_ID, "tracking-1");
+        var seen = new AtomicReference<String>();
+
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> seen.set(MDC.get(AuditSecurityInterceptor.REQUEST_X_TRACKING_ID)));
+
+        assertEquals("tracking-1", seen.get());
+        assertNull(MDC.get(AuditSecurityInterceptor.REQUEST_X_TRACKING_ID));
+    }
+}
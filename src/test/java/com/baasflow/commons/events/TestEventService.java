@@ -1,17 +1,28 @@
 package com.baasflow.commons.events;
 
+import com.baasflow.commons.events.internal.EventBuilder;
+import com.baasflow.commons.events.internal.EventMetrics;
+import com.baasflow.commons.events.internal.EventSampler;
 import com.baasflow.commons.events.internal.KafkaSender;
+import com.baasflow.commons.events.internal.StackTraceEncoder;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 
 class TestEventService {
@@ -19,9 +30,7 @@ class TestEventService {
 
     @Test
     public void testSendWithBuilder() throws Exception {
-        EventService eventService = new EventService();
-        eventService.kafkaSender = mock(KafkaSender.class);
-
+        EventService eventService = eventService();
         ArgumentCaptor<Event> valueCapture = ArgumentCaptor.forClass(Event.class);
         doReturn(null).when(eventService.kafkaSender).send(valueCapture.capture());
 
@@ -73,6 +82,95 @@ class TestEventService {
         }
     }
 
+    @Test
+    public void testAuditedEventFailureIsSentInOneTransaction() throws Exception {
+        EventService eventService = mockEventService(EventStatus.failure);
+        doReturn(true).when(eventService.kafkaSender).isTransactional(EventType.audit);
+
+        assertThrows(IllegalStateException.class, () -> eventService.auditedEvent(event -> event.setEvent("test event"), event -> {
+            throw new IllegalStateException("test error while processing");
+        }));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Event>> transaction = ArgumentCaptor.forClass(List.class);
+        verify(eventService.kafkaSender).sendTransactional(transaction.capture());
+        verify(eventService.kafkaSender, never()).send(any());
+        assertEquals(2, transaction.getValue().size());
+        assertEquals(transaction.getValue().get(0).getId().toString(),
+                transaction.getValue().get(1).getCorrelationIds().get("originalEventId"));
+    }
+
+    @Test
+    public void testAuditedEventAsyncFailureIsNotCommittedOnCompletingThread() throws Exception {
+        EventService eventService = mockEventService(EventStatus.failure);
+        doReturn(true).when(eventService.kafkaSender).isTransactional(EventType.audit);
+
+        CompletableFuture<Object> result = eventService.auditedEventAsync(event -> event.setEvent("test event"),
+                event -> CompletableFuture.failedFuture(new IllegalStateException("test error while processing")));
+
+        assertThrows(ExecutionException.class, result::get);
+        verify(eventService.kafkaSender).sendTransactionalAsync(argThat(events -> events.size() == 2));
+        verify(eventService.kafkaSender, never()).sendTransactional(any());
+    }
+
+    @Test
+    public void testAuditedEventAsyncSendsWhenStageCompletes() throws Exception {
+        EventService eventService = mockEventService(EventStatus.success);
+        CompletableFuture<String> work = new CompletableFuture<>();
+
+        CompletableFuture<String> result = eventService.auditedEventAsync(event -> event.setEvent("test event"), event -> work);
+
+        verify(eventService.kafkaSender, never()).send(any());
+        assertFalse(result.isDone());
+
+        work.complete("done");
+        verify(eventService.kafkaSender).send(any());
+        assertEquals("done", result.get());
+    }
+
+    @Test
+    public void testAuditedEventAsyncFails() throws Exception {
+        EventService eventService = mockEventService(EventStatus.failure);
+        ArgumentCaptor<Event> sent = ArgumentCaptor.forClass(Event.class);
+
+        CompletableFuture<Object> result = eventService.auditedEventAsync(event -> event.setEvent("test event"),
+                event -> CompletableFuture.supplyAsync(() -> {
+                    throw new IllegalStateException("test error while processing");
+                }));
+
+        ExecutionException e = assertThrows(ExecutionException.class, result::get);
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+        verify(eventService.kafkaSender, times(2)).send(sent.capture());
+        assertEquals(EventLogLevel.ERROR, sent.getAllValues().get(1).getEventLogLevel());
+        assertTrue(sent.getAllValues().get(1).getPayload().contains("test error while processing"));
+        assertEquals("1", sent.getAllValues().get(1).getCorrelationIds().get("stackTraceOccurrence"));
+    }
+
+    @Test
+    public void testAuditedEventAsyncPropagatesMdc() throws Exception {
+        EventService eventService = mockEventService(EventStatus.success);
+        AtomicReference<String> sentWithMdc = new AtomicReference<>();
+        doAnswer(invocationOnMock -> {
+            sentWithMdc.set(MDC.get("requestId"));
+            return null;
+        }).when(eventService.kafkaSender).send(any());
+
+        CompletableFuture<Void> work = new CompletableFuture<>();
+        MDC.put("requestId", "r-1");
+        CompletableFuture<Void> result;
+        try {
+            result = eventService.auditedEventAsync(event -> event, event -> work);
+        } finally {
+            MDC.clear();
+        }
+
+        Thread completer = new Thread(() -> work.complete(null));
+        completer.start();
+        completer.join();
+        result.get();
+        assertEquals("r-1", sentWithMdc.get());
+    }
+
     @Test
     public void testAuditedEventDefaultTypeAndStatus() throws Exception {
         EventService eventService = mockEventService(EventStatus.success);
@@ -82,9 +180,73 @@ class TestEventService {
         });
     }
 
+    @Test
+    public void testSendEventsAggregatesPerEventResults() throws Exception {
+        EventService eventService = eventService();
+        Event first = EventBuilder.createEventBuilder().setEventType(EventType.business).build();
+        Event second = EventBuilder.createEventBuilder().setEventType(EventType.business).build();
+        RuntimeException failure = new RuntimeException("broker unavailable");
+        doReturn(List.of(CompletableFuture.completedFuture(null), CompletableFuture.failedFuture(failure)))
+                .when(eventService.kafkaSender).sendAll(any());
+
+        List<EventSendResult> results = eventService.sendEvents(Stream.of(first, second)).get();
+
+        assertEquals(2, results.size());
+        assertSame(first, results.get(0).getEvent());
+        assertTrue(results.get(0).isSuccess());
+        assertSame(second, results.get(1).getEvent());
+        assertFalse(results.get(1).isSuccess());
+        assertSame(failure, results.get(1).getException());
+    }
+
+    @Test
+    public void testSupplierIsNotCalledForFilteredEvents() throws Exception {
+        EventService eventService = eventService();
+        doReturn(false).when(eventService.kafkaSender).isEnabled(EventType.technical, EventLogLevel.DEBUG);
+
+        var future = eventService.sendEventAsync(EventType.technical, EventLogLevel.DEBUG, () -> {
+            throw new AssertionError("filtered event must not be built");
+        });
+
+        assertNull(future.get());
+        verify(eventService.kafkaSender, never()).send(any());
+    }
+
+    @Test
+    public void testSupplierBuilderIsCompleted() throws Exception {
+        EventService eventService = eventService();
+        doReturn(true).when(eventService.kafkaSender).isEnabled(null, EventLogLevel.DEBUG);
+        ArgumentCaptor<Event> valueCapture = ArgumentCaptor.forClass(Event.class);
+        doReturn(null).when(eventService.kafkaSender).send(valueCapture.capture());
+
+        eventService.sendEvent(EventLogLevel.DEBUG, () -> Event.newBuilder()
+                .setEventType(EventType.technical)
+                .setSourceModule("source module"));
+
+        Event captured = valueCapture.getValue();
+        assertNotNull(captured.getId());
+        assertNotNull(captured.getEventTimestamp());
+        assertEquals(EventLogLevel.DEBUG, captured.getEventLogLevel());
+        assertEquals(EventType.technical, captured.getEventType());
+    }
+
+    @Test
+    public void testUntypedSupplierIsSampledAfterBuilding() throws Exception {
+        EventService eventService = eventService();
+        doReturn(true).when(eventService.kafkaSender).isEnabled(null, EventLogLevel.DEBUG);
+        doReturn(true).when(eventService.eventSampler).isSampledOut(null, EventLogLevel.DEBUG, null);
+
+        eventService.sendEvent(EventLogLevel.DEBUG, () -> Event.newBuilder()
+                .setEventType(EventType.audit)
+                .setSourceModule("source module"));
+
+        verify(eventService.eventSampler, never()).isSampledOut(null, EventLogLevel.DEBUG, null);
+        verify(eventService.eventSampler).isSampledOut(any(Event.class));
+        verify(eventService.kafkaSender).send(any());
+    }
+
     private static EventService mockEventService(EventStatus expectedStatus) throws IOException {
-        EventService eventService = new EventService();
-        eventService.kafkaSender = mock(KafkaSender.class);
+        EventService eventService = eventService();
         doAnswer(invocationOnMock -> {
             logger.info("sending to kafka: " + invocationOnMock.getArgument(0));
             Event event = invocationOnMock.getArgument(0, Event.class);
@@ -95,4 +257,17 @@ class TestEventService {
         }).when(eventService.kafkaSender).send(any());
         return eventService;
     }
+
+    /**
+     * An EventService with a mocked sender and sampler; tests stub only what they vary.
+     */
+    private static EventService eventService() {
+        EventService eventService = new EventService();
+        eventService.builder = new EventBuilder();
+        eventService.kafkaSender = mock(KafkaSender.class);
+        eventService.eventMetrics = new EventMetrics();
+        eventService.eventSampler = mock(EventSampler.class);
+        eventService.stackTraceEncoder = new StackTraceEncoder();
+        return eventService;
+    }
 }
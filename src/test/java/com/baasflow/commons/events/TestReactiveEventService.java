@@ -0,0 +1,67 @@
+package com.baasflow.commons.events;
+
+import com.baasflow.commons.events.internal.EventBuilder;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.SendResult;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TestReactiveEventService {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testSendEvent() {
+        var eventService = mock(EventService.class);
+        SendResult<String, Event> sendResult = new SendResult<>(null, null);
+        when(eventService.sendEventAsync(any(Event.class))).thenReturn(CompletableFuture.completedFuture(sendResult));
+        when(eventService.sendEventAsync(any(Function.class))).thenReturn(CompletableFuture.completedFuture(null));
+        var reactiveEventService = reactiveEventService(eventService);
+
+        assertSame(sendResult, reactiveEventService.sendEvent(EventBuilder.createEventBuilder().setEventType(EventType.audit).build()).block());
+        assertNull(reactiveEventService.sendEvent(builder -> builder.setEventType(EventType.audit)).block());
+    }
+
+    @Test
+    public void testSendEventsBoundsInFlightAndReportsFailures() {
+        var eventService = mock(EventService.class);
+        var inFlight = new AtomicInteger();
+        var maxInFlight = new AtomicInteger();
+        when(eventService.sendEventAsync(any(Event.class))).thenAnswer(invocation -> {
+            Event event = invocation.getArgument(0);
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            if ("failing".equals(event.getEvent())) {
+                inFlight.decrementAndGet();
+                return CompletableFuture.failedFuture(new IllegalStateException("broker down"));
+            }
+            return CompletableFuture.supplyAsync(() -> {
+                inFlight.decrementAndGet();
+                return new SendResult<String, Event>(null, null);
+            });
+        });
+        var events = Flux.range(0, 100)
+                .map(i -> EventBuilder.createEventBuilder().setEventType(EventType.business).setEvent(i == 42 ? "failing" : "event-" + i).build());
+
+        List<EventSendResult> results = reactiveEventService(eventService).sendEvents(events, 8).collectList().block();
+
+        assertEquals(100, results.size());
+        assertEquals("event-0", results.get(0).getEvent().getEvent());
+        assertFalse(results.get(42).isSuccess());
+        assertEquals(99, results.stream().filter(EventSendResult::isSuccess).count());
+        assertTrue(maxInFlight.get() <= 8, "max in flight " + maxInFlight.get());
+    }
+
+    private static ReactiveEventService reactiveEventService(EventService eventService) {
+        var reactiveEventService = new ReactiveEventService();
+        reactiveEventService.eventService = eventService;
+        return reactiveEventService;
+    }
+}
@@ -0,0 +1,113 @@
+package com.baasflow.commons.events.internal;
+
+import com.baasflow.commons.events.Event;
+import com.baasflow.commons.events.EventStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class TestCircuitBreaker {
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    public void testOpensOnFailureRateAndClosesAfterSuccessfulProbes() {
+        var breaker = new CircuitBreaker("audit", properties(), null, now::get);
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(breaker.tryAcquire());
+            breaker.onResult(1_000, false);
+        }
+        assertTrue(breaker.tryAcquire());
+        breaker.onResult(1_000, true);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState(), "1 of 4 failed");
+        breaker.onResult(1_000, true);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState(), "2 of 4 failed in the window");
+
+        assertFalse(breaker.tryAcquire());
+        assertEquals(1, breaker.getShortCircuited());
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        assertTrue(breaker.tryAcquire());
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire(), "only two probes while half-open");
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        breaker.onResult(1_000, false);
+        breaker.onResult(1_000, false);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void testFailedProbeReopensAndSlowCallsOpen() {
+        var breaker = new CircuitBreaker("audit", properties(), null, now::get);
+        for (int i = 0; i < 4; i++) {
+            breaker.onResult(TimeUnit.SECONDS.toNanos(3), false);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        assertTrue(breaker.tryAcquire());
+        breaker.onResult(1_000, true);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testOpenBreakerSkipsKafkaTemplate() throws Exception {
+        KafkaTemplate<String, Event> kafkaTemplate = mock(KafkaTemplate.class);
+        doReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")))
+                .when(kafkaTemplate).send(anyString(), anyString(), any(Event.class));
+        var channel = new EventsConfigProperties.Event();
+        channel.setTopic("auditlog");
+        channel.getKafka().setKafkaTemplate(kafkaTemplate);
+        channel.setCircuitBreaker(EventsConfigProperties.CircuitBreakerProperties.builder().enabled(true).fallback(EventsConfigProperties.CircuitBreakerFallback.DROP).build());
+        var properties = new EventsConfigProperties();
+        properties.setChannels(Map.of("audit", channel));
+        properties.getCircuitBreaker().setMinimumCalls(2);
+
+        var kafkaSender = new KafkaSender();
+        kafkaSender.eventsConfigProperties = properties;
+        kafkaSender.eventSpool = new EventSpool();
+        kafkaSender.eventSpool.eventsConfigProperties = properties;
+        kafkaSender.eventMetrics = new EventMetrics();
+        kafkaSender.meterRegistry = mock(ObjectProvider.class);
+        kafkaSender.kafkaHealthIndicator = mock(KafkaHealthIndicator.class);
+        kafkaSender.init();
+
+        Event event = new EventBuilder().auditlogEvent("sample-module", "event-happened", EventStatus.success);
+        for (int i = 0; i < 2; i++) {
+            assertThrows(ExecutionException.class, () -> kafkaSender.send(event).get());
+        }
+        var shortCircuited = kafkaSender.send(event);
+
+        var e = assertThrows(ExecutionException.class, shortCircuited::get);
+        assertInstanceOf(RejectedExecutionException.class, e.getCause());
+        verify(kafkaTemplate, times(2)).send(anyString(), anyString(), any(Event.class));
+    }
+
+    private static EventsConfigProperties.CircuitBreakerProperties properties() {
+        return EventsConfigProperties.CircuitBreakerProperties.builder()
+                .enabled(true)
+                .windowSize(4)
+                .minimumCalls(4)
+                .failureRateThreshold(50)
+                .slowCallDurationMs(2_000)
+                .slowCallRateThreshold(100)
+                .openDurationMs(10_000)
+                .halfOpenProbes(2)
+                .fallback(EventsConfigProperties.CircuitBreakerFallback.DROP)
+                .build();
+    }
+}
@@ -0,0 +1,185 @@
+package com.baasflow.commons.events.internal;
+
+import com.baasflow.commons.events.Event;
+import com.baasflow.commons.events.EventType;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.specific.SpecificDatumReader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestEventAvroSerializer {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testConfluentWireFormat() throws Exception {
+        var serializer = new EventAvroSerializer(topic -> EventAvroSerializer.confluentHeader(42));
+        Event event = event("confluent");
+
+        byte[] record = serializer.serialize("events", event);
+
+        assertEquals(EventAvroSerializer.CONFLUENT_MAGIC_BYTE, record[0]);
+        assertEquals(42, ByteBuffer.wrap(record, 1, 4).getInt());
+        assertArrayEquals(avroBinary(event), Arrays.copyOfRange(record, 5, record.length));
+        assertEquals(event.getId(), decode(record, 5).getId());
+    }
+
+    @Test
+    public void testGlueWireFormat() throws Exception {
+        UUID schemaVersionId = UUID.randomUUID();
+        var serializer = new EventAvroSerializer(topic -> EventAvroSerializer.glueHeader(schemaVersionId));
+        Event event = event("glue");
+
+        byte[] record = serializer.serialize("events", event);
+
+        assertEquals(EventAvroSerializer.GLUE_HEADER_VERSION_BYTE, record[0]);
+        assertEquals(EventAvroSerializer.GLUE_COMPRESSION_NONE, record[1]);
+        var header = ByteBuffer.wrap(record, 2, 16);
+        assertEquals(schemaVersionId, new UUID(header.getLong(), header.getLong()));
+        assertArrayEquals(avroBinary(event), Arrays.copyOfRange(record, 18, record.length));
+    }
+
+    @Test
+    public void testSchemaIsResolvedOncePerTopic() {
+        var resolved = new AtomicInteger();
+        var serializer = new EventAvroSerializer(topic -> EventAvroSerializer.confluentHeader(resolved.incrementAndGet()));
+
+        serializer.resolve("events");
+        serializer.serialize("events", event("first"));
+        serializer.serialize("events", event("second"));
+        byte[] other = serializer.serialize("auditlog", event("third"));
+
+        assertEquals(2, resolved.get());
+        assertEquals(2, ByteBuffer.wrap(other, 1, 4).getInt());
+        assertNull(serializer.serialize("events", null));
+    }
+
+    @Test
+    public void testRegistersSchemaAtConfluentRegistry() throws Exception {
+        var registry = standInRegistry(new AtomicInteger(7));
+        try {
+            var serializer = EventAvroSerializer.confluent(url(registry) + "/", null);
+            byte[] record = serializer.serialize("events", event("registered"));
+            assertEquals(7, ByteBuffer.wrap(record, 1, 4).getInt());
+        } finally {
+            registry.stop(0);
+        }
+    }
+
+    @Test
+    public void testStartsFromSchemaCacheFileWithoutRegistry() throws Exception {
+        Path cachePath = directory.resolve("schemas.properties");
+        var registry = standInRegistry(new AtomicInteger(7));
+        String url = url(registry);
+        EventAvroSerializer.confluent(url, new SchemaCacheFile(cachePath)).resolve("events");
+        registry.stop(0);
+        assertTrue(Files.exists(cachePath));
+
+        var serializer = EventAvroSerializer.confluent(url, new SchemaCacheFile(cachePath));
+        byte[] record = serializer.serialize("events", event("offline"));
+        assertEquals(7, ByteBuffer.wrap(record, 1, 4).getInt());
+    }
+
+    @Test
+    public void testRefreshesCachedSchemaIdInBackground() throws Exception {
+        Path cachePath = directory.resolve("schemas.properties");
+        var schemaId = new AtomicInteger(7);
+        var registry = standInRegistry(schemaId);
+        try {
+            EventAvroSerializer.confluent(url(registry), new SchemaCacheFile(cachePath)).resolve("events");
+            schemaId.set(8);
+
+            var serializer = EventAvroSerializer.confluent(url(registry), new SchemaCacheFile(cachePath));
+            assertEquals(7, ByteBuffer.wrap(serializer.serialize("events", event("cached")), 1, 4).getInt());
+
+            long deadline = System.currentTimeMillis() + 5_000;
+            int refreshed;
+            do {
+                Thread.sleep(10);
+                refreshed = ByteBuffer.wrap(serializer.serialize("events", event("refreshed")), 1, 4).getInt();
+            } while (refreshed != 8 && System.currentTimeMillis() < deadline);
+            assertEquals(8, refreshed);
+        } finally {
+            registry.stop(0);
+        }
+    }
+
+    @Test
+    public void testRefreshesCachedTopicsOnSharedThread() throws Exception {
+        Path cachePath = directory.resolve("schemas.properties");
+        var warmUp = new EventAvroSerializer(topic -> EventAvroSerializer.confluentHeader(7), "stand-in", new SchemaCacheFile(cachePath));
+        warmUp.resolve("audit");
+        warmUp.resolve("business");
+
+        Set<String> refreshThreads = ConcurrentHashMap.newKeySet();
+        var refreshes = new CountDownLatch(2);
+        var serializer = new EventAvroSerializer(topic -> {
+            refreshThreads.add(Thread.currentThread().getName());
+            refreshes.countDown();
+            return EventAvroSerializer.confluentHeader(7);
+        }, "stand-in", new SchemaCacheFile(cachePath));
+        serializer.resolve("audit");
+        serializer.resolve("business");
+        serializer.resolve("audit");
+
+        assertTrue(refreshes.await(5, TimeUnit.SECONDS));
+        assertEquals(Set.of("baasflow-events-schema-refresh"), refreshThreads);
+        assertEquals(7, ByteBuffer.wrap(serializer.serialize("audit", event("cached")), 1, 4).getInt());
+    }
+
+    /**
+     * Stands in for a Confluent schema registry, answering every registration of the Event schema with the given id.
+     */
+    private static HttpServer standInRegistry(AtomicInteger schemaId) throws IOException {
+        var server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/subjects/events-value/versions", exchange -> {
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            byte[] response = (body.contains("com.baasflow.commons.events") ? "{\"id\":" + schemaId.get() + "}" : "{}").getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, response.length);
+            exchange.getResponseBody().write(response);
+            exchange.close();
+        });
+        server.start();
+        return server;
+    }
+
+    private static String url(HttpServer server) {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    private static byte[] avroBinary(Event event) throws Exception {
+        ByteBuffer singleObject = event.toByteBuffer();
+        // single object encoding: 2 marker bytes and the 8 byte schema fingerprint precede the binary encoding
+        return Arrays.copyOfRange(singleObject.array(), 10, singleObject.limit());
+    }
+
+    private static Event decode(byte[] record, int offset) throws Exception {
+        return new SpecificDatumReader<>(Event.class)
+                .read(null, DecoderFactory.get().binaryDecoder(record, offset, record.length - offset, null));
+    }
+
+    private static Event event(String name) {
+        return EventBuilder.createEventBuilder()
+                .setEventType(EventType.business)
+                .setEvent(name)
+                .build();
+    }
+}
@@ -0,0 +1,112 @@
+package com.baasflow.commons.events.internal;
+
+import com.baasflow.commons.events.Event;
+import com.baasflow.commons.events.EventType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestEventDispatchQueue {
+
+    @Test
+    public void testSenderThreadSendsQueuedEvents() throws Exception {
+        List<Event> sent = new ArrayList<>();
+        var queue = new EventDispatchQueue("generic", properties(EventsConfigProperties.OverflowPolicy.BLOCK, 1),
+                event -> {
+                    sent.add(event);
+                    return CompletableFuture.completedFuture(null);
+                }, event -> fail("nothing should be spilled"), null);
+
+        Event event = event();
+        queue.offer(event).get(5, TimeUnit.SECONDS);
+        queue.shutdown(Duration.ofSeconds(1));
+
+        assertEquals(List.of(event), sent);
+    }
+
+    @Test
+    public void testDropNewest() {
+        var meterRegistry = new SimpleMeterRegistry();
+        var queue = new EventDispatchQueue("generic", properties(EventsConfigProperties.OverflowPolicy.DROP_NEWEST, 0),
+                event -> CompletableFuture.completedFuture(null), event -> fail("nothing should be spilled"), meterRegistry);
+
+        var first = queue.offer(event());
+        var second = queue.offer(event());
+
+        assertFalse(first.isDone());
+        assertRejected(second);
+        assertEquals(1, queue.getQueuedEvents());
+        assertEquals(1, meterRegistry.get("baasflow.events.dispatch.dropped").functionCounter().count());
+        assertEquals(1, meterRegistry.get("baasflow.events.dispatch.queue.events").gauge().value());
+    }
+
+    @Test
+    public void testDropOldest() {
+        var queue = new EventDispatchQueue("generic", properties(EventsConfigProperties.OverflowPolicy.DROP_OLDEST, 0),
+                event -> CompletableFuture.completedFuture(null), event -> fail("nothing should be spilled"), null);
+
+        var first = queue.offer(event());
+        var second = queue.offer(event());
+
+        assertRejected(first);
+        assertFalse(second.isDone());
+        assertEquals(1, queue.getQueuedEvents());
+        assertEquals(1, queue.getDropped());
+    }
+
+    @Test
+    public void testBlockTimesOut() {
+        var queue = new EventDispatchQueue("generic", properties(EventsConfigProperties.OverflowPolicy.BLOCK, 0),
+                event -> CompletableFuture.completedFuture(null), event -> fail("nothing should be spilled"), null);
+
+        queue.offer(event());
+        assertRejected(queue.offer(event()));
+        assertEquals(1, queue.getDropped());
+    }
+
+    @Test
+    public void testSpillToDisk() throws Exception {
+        List<Event> spilled = new ArrayList<>();
+        var queue = new EventDispatchQueue("generic", properties(EventsConfigProperties.OverflowPolicy.SPILL_TO_DISK, 0),
+                event -> CompletableFuture.completedFuture(null), spilled::add, null);
+
+        queue.offer(event());
+        Event overflow = event();
+        assertNull(queue.offer(overflow).get());
+
+        assertEquals(List.of(overflow), spilled);
+        assertEquals(1, queue.getSpilled());
+    }
+
+    private static void assertRejected(CompletableFuture<?> future) {
+        var e = assertThrows(ExecutionException.class, future::get);
+        assertInstanceOf(RejectedExecutionException.class, e.getCause());
+    }
+
+    private static EventsConfigProperties.DispatchProperties properties(EventsConfigProperties.OverflowPolicy overflowPolicy, int senderThreads) {
+        return EventsConfigProperties.DispatchProperties.builder()
+                .enabled(true)
+                .maxQueuedEvents(1)
+                .maxQueuedBytes(1024L)
+                .senderThreads(senderThreads)
+                .overflowPolicy(overflowPolicy)
+                .blockTimeoutMs(50)
+                .build();
+    }
+
+    private static Event event() {
+        return EventBuilder.createEventBuilder()
+                .setEventType(EventType.business)
+                .setPayload("payload")
+                .build();
+    }
+}
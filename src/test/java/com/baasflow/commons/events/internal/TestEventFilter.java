@@ -0,0 +1,75 @@
+package com.baasflow.commons.events.internal;
+
+import com.baasflow.commons.events.EventLogLevel;
+import com.baasflow.commons.events.EventType;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestEventFilter {
+
+    @Test
+    public void testChannelSettingsOverrideGlobalOnes() {
+        var global = new EventsConfigProperties.FilterProperties();
+        global.setMinLevel(EventLogLevel.INFO);
+        global.setDeniedSourceModules(Set.of("noisy"));
+        var local = new EventsConfigProperties.FilterProperties();
+        local.setMinLevel(EventLogLevel.WARN);
+
+        var filter = EventFilter.create(global, local);
+
+        assertFalse(filter.acceptsLevel(EventLogLevel.INFO));
+        assertTrue(filter.acceptsLevel(EventLogLevel.ERROR));
+        assertTrue(filter.acceptsLevel(null));
+        assertFalse(filter.accepts(EventLogLevel.ERROR, "noisy", "event"));
+        assertTrue(filter.accepts(EventLogLevel.ERROR, "quiet", "event"));
+        assertSame(EventFilter.ACCEPT_ALL, EventFilter.create(new EventsConfigProperties.FilterProperties(), null));
+    }
+
+    @Test
+    public void testAllowListsRejectMissingNames() {
+        var properties = new EventsConfigProperties.FilterProperties();
+        properties.setAllowedEvents(Set.of("payment"));
+        properties.setDeniedEvents(Set.of("payment-debug"));
+
+        var filter = EventFilter.create(properties, null);
+
+        assertTrue(filter.accepts(EventLogLevel.DEBUG, null, "payment"));
+        assertFalse(filter.accepts(EventLogLevel.DEBUG, null, "payment-debug"));
+        assertFalse(filter.accepts(EventLogLevel.DEBUG, null, "other"));
+        assertFalse(filter.accepts(EventLogLevel.DEBUG, null, null));
+    }
+
+    @Test
+    public void testRoutingTableIsEnabledIfAnyRouteAccepts() {
+        var debug = new EventsConfigProperties.FilterProperties();
+        debug.setMinLevel(EventLogLevel.DEBUG);
+        var warn = new EventsConfigProperties.FilterProperties();
+        warn.setMinLevel(EventLogLevel.WARN);
+        var global = new EventsConfigProperties.FilterProperties();
+
+        Map<String, Route> channels = new LinkedHashMap<>();
+        channels.put("technical", route("technical", EventFilter.create(global, warn)));
+        channels.put("business", route("business", EventFilter.create(global, debug)));
+        var routing = new EventsConfigProperties.RoutingProperties();
+        routing.setIgnoredEventTypes(Set.of(EventType.unspecified));
+        var table = RoutingTable.create(channels, routing);
+
+        assertFalse(table.isEnabled(EventType.technical, EventLogLevel.INFO));
+        assertTrue(table.isEnabled(EventType.technical, EventLogLevel.WARN));
+        assertTrue(table.isEnabled(null, EventLogLevel.DEBUG));
+        assertFalse(table.isEnabled(null, EventLogLevel.TRACE));
+        assertFalse(table.isEnabled(EventType.unspecified, EventLogLevel.ERROR));
+        assertTrue(table.isEnabled(EventType.audit, EventLogLevel.TRACE), "unrouted event types must still fail on send");
+    }
+
+    private static Route route(String name, EventFilter filter) {
+        var properties = new EventsConfigProperties.Event();
+        properties.setTopic(name + "-topic");
+        return new Route(name, properties, filter, false, null, route -> null);
+    }
+}
@@ -0,0 +1,117 @@
+package com.baasflow.commons.events.internal;
+
+import com.baasflow.commons.events.Event;
+import com.baasflow.commons.events.EventIdGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+class TestEventIdGenerator {
+
+    @AfterEach
+    public void resetEventBuilder() {
+        EventBuilder.configure(EventIdGenerator.random(), Clock.systemUTC());
+    }
+
+    @Test
+    public void testTimeOrderedIds() {
+        var clock = Clock.fixed(Instant.ofEpochMilli(1_700_000_000_000L), ZoneOffset.UTC);
+        var generator = EventIdGenerator.timeOrdered(clock);
+
+        UUID previous = generator.nextId();
+        assertEquals(7, previous.version());
+        assertEquals(2, previous.variant());
+        assertEquals(1_700_000_000_000L, previous.getMostSignificantBits() >>> 16);
+        // more ids than the counter holds within the fixed millisecond
+        for (int i = 0; i < 10_000; i++) {
+            UUID id = generator.nextId();
+            assertTrue(compareUnsigned(previous, id) < 0, previous + " < " + id);
+            previous = id;
+        }
+        assertTrue((previous.getMostSignificantBits() >>> 16) > 1_700_000_000_000L);
+    }
+
+    @Test
+    public void testSuppliedIds() {
+        var supplied = UUID.randomUUID();
+        var fallback = UUID.randomUUID();
+
+        assertEquals(supplied, EventIdGenerator.supplied(() -> supplied, () -> fallback).nextId());
+        assertEquals(fallback, EventIdGenerator.supplied(() -> null, () -> fallback).nextId());
+    }
+
+    @Test
+    public void testEventBuilderUsesConfiguredGeneratorAndClock() throws InterruptedException {
+        var id = UUID.randomUUID();
+        try (var clock = new CoarseClock(5)) {
+            EventBuilder.configure(() -> id, clock);
+            var first = EventBuilder.createEventBuilder().build();
+
+            assertEquals(id, first.getId());
+            assertEquals(clock.instant(), first.getEventTimestamp());
+            Thread.sleep(50);
+            assertTrue(clock.instant().isAfter(first.getEventTimestamp()));
+        }
+    }
+
+    @Test
+    public void testCoarseClockInOtherZones() {
+        try (var clock = new CoarseClock(5)) {
+            assertSame(clock, clock.withZone(ZoneOffset.UTC));
+            assertSame(clock, clock.withZone(ZoneId.of("UTC")));
+
+            var zoned = clock.withZone(ZoneId.of("Europe/Budapest"));
+            assertEquals(ZoneId.of("Europe/Budapest"), zoned.getZone());
+            assertEquals(clock.instant(), zoned.instant());
+            assertSame(clock, zoned.withZone(ZoneOffset.UTC));
+        }
+    }
+
+    @Test
+    public void testContextsKeepTheirOwnConfiguration() throws InterruptedException {
+        var firstId = UUID.randomUUID();
+        var secondId = UUID.randomUUID();
+        EventBuilder first = eventBuilder(firstId);
+        EventBuilder second = eventBuilder(secondId);
+        first.init();
+        second.init();
+
+        assertEquals(firstId, first.newEventBuilder().build().getId());
+        assertEquals(secondId, second.newEventBuilder().build().getId());
+        assertEquals(firstId, first.completeEventBuilder(Event.newBuilder()).build().getId());
+        assertNotEquals(secondId, EventBuilder.createEventBuilder().build().getId(), "the static fallback is untouched");
+
+        second.shutdown();
+        Instant before = first.newEventBuilder().build().getEventTimestamp();
+        Thread.sleep(50);
+        assertTrue(first.newEventBuilder().build().getEventTimestamp().isAfter(before), "closing one context leaves the other's clock running");
+        first.shutdown();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static EventBuilder eventBuilder(UUID id) {
+        var properties = new EventsConfigProperties();
+        properties.setClockResolutionMs(5);
+        var eventBuilder = new EventBuilder();
+        eventBuilder.eventsConfigProperties = properties;
+        eventBuilder.eventIdGenerator = mock(ObjectProvider.class);
+        doReturn((EventIdGenerator) () -> id).when(eventBuilder.eventIdGenerator).getIfAvailable(any());
+        return eventBuilder;
+    }
+
+    private static int compareUnsigned(UUID a, UUID b) {
+        int most = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+        return most != 0 ? most : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+    }
+}
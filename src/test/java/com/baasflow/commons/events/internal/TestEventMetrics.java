@@ -0,0 +1,72 @@
+package com.baasflow.commons.events.internal;
+
+import com.baasflow.commons.events.Event;
+import com.baasflow.commons.events.EventType;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.kafka.core.KafkaProducerException;
+
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+class TestEventMetrics {
+
+    @Test
+    public void testRecordsSendPipeline() {
+        var registry = new SimpleMeterRegistry();
+        EventMetrics metrics = metrics(registry);
+        Event event = EventBuilder.createEventBuilder().setEventType(EventType.audit).build();
+
+        metrics.recordBuild(EventType.audit, 1_000);
+        long first = metrics.sending("audit");
+        long second = metrics.sending("audit");
+        assertEquals(2, registry.get("baasflow.events.in.flight").tag("channel", "audit").gauge().value());
+
+        metrics.recordSent("audit", event, first, null);
+        metrics.recordSent("audit", event, second, new CompletionException(new KafkaProducerException(null, "failed", new TimeoutException("expired"))));
+
+        assertEquals(0, registry.get("baasflow.events.in.flight").gauge().value());
+        assertEquals(1, registry.get("baasflow.events.build").tag("event.type", "audit").timer().count());
+        assertEquals(1, registry.get("baasflow.events.send").tags("channel", "audit", "event.type", "audit", "status", "success").timer().count());
+        assertEquals(1, registry.get("baasflow.events.send").tags("status", "failure").timer().count());
+        assertEquals(1, registry.get("baasflow.events.send.failures").tag("exception", "TimeoutException").counter().count());
+    }
+
+    @Test
+    public void testTimedSerializer() {
+        var registry = new SimpleMeterRegistry();
+        var serializer = metrics(registry).timed(new EventAvroSerializer(topic -> EventAvroSerializer.confluentHeader(1)));
+        Event event = EventBuilder.createEventBuilder().setEventType(EventType.business).setEvent("sized").build();
+
+        byte[] data = serializer.serialize("events", event);
+
+        assertEquals(1, registry.get("baasflow.events.serialization").tags("topic", "events", "event.type", "business").timer().count());
+        assertEquals(data.length, registry.get("baasflow.events.serialized.size").summary().totalAmount());
+    }
+
+    @Test
+    public void testNoOpWithoutRegistry() {
+        EventMetrics metrics = new EventMetrics();
+        var serializer = new EventAvroSerializer(topic -> EventAvroSerializer.confluentHeader(1));
+
+        assertSame(serializer, metrics.timed(serializer));
+        assertEquals(0, metrics.sending("audit"));
+        metrics.recordBuild(EventType.audit, 1);
+    }
+
+    private static EventMetrics metrics(SimpleMeterRegistry registry) {
+        ObjectProvider<MeterRegistry> provider = mock(ObjectProvider.class);
+        doReturn(registry).when(provider).getIfAvailable();
+        EventMetrics metrics = new EventMetrics();
+        metrics.eventsConfigProperties = new EventsConfigProperties();
+        metrics.meterRegistry = provider;
+        metrics.init();
+        return metrics;
+    }
+}
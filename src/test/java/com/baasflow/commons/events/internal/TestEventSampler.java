@@ -0,0 +1,151 @@
+package com.baasflow.commons.events.internal;
+
+import com.baasflow.commons.events.Event;
+import com.baasflow.commons.events.EventLogLevel;
+import com.baasflow.commons.events.EventType;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class TestEventSampler {
+    private EventSampler sampler;
+
+    @AfterEach
+    public void shutdown() {
+        sampler.shutdown();
+    }
+
+    @Test
+    public void testMostSpecificRateWinsAndAuditIsNeverSampled() {
+        var properties = new EventsConfigProperties();
+        properties.getSampling().setEnabled(true);
+        properties.getSampling().setLevelRates(Map.of(EventLogLevel.DEBUG, 0.0));
+        properties.getSampling().setEventRates(Map.of("heartbeat", 0.0, "payment", 1.0));
+        sampler = sampler(properties, 0.0);
+
+        assertFalse(sampler.isSampledOut(EventType.audit, EventLogLevel.DEBUG, "heartbeat"));
+        assertTrue(sampler.isSampledOut(EventType.business, EventLogLevel.ERROR, "heartbeat"));
+        assertFalse(sampler.isSampledOut(EventType.business, EventLogLevel.DEBUG, "payment"));
+        assertTrue(sampler.isSampledOut(EventType.business, EventLogLevel.DEBUG, null));
+        assertFalse(sampler.isSampledOut(null, EventLogLevel.DEBUG, null), "an event of unknown type may be an audit event");
+        assertTrue(sampler.isSampledOut(EventType.technical, EventLogLevel.INFO, "other"), "technical channel rate is 0");
+        assertFalse(sampler.isSampledOut(EventType.business, EventLogLevel.INFO, "other"));
+        assertTrue(sampler.isNameSensitive());
+    }
+
+    @Test
+    public void testAdaptiveRateShedsSheddableTypesUnderPressure() {
+        var properties = new EventsConfigProperties();
+        properties.getSampling().setEnabled(true);
+        properties.getSampling().setAdaptive(true);
+        properties.getSampling().setAdjustIntervalMs(3_600_000);
+        sampler = sampler(properties, 1.0);
+        var technical = sampler.channelState("technical");
+
+        sampler.adjust(technical, 800, 0.1);
+        sampler.adjust(technical, 10, 0.9);
+        assertEquals(0.25, technical.getAdaptiveRate(), 1e-9);
+        assertEquals(0.25, sampler.rate(EventType.technical, EventLogLevel.INFO, null), 1e-9);
+        assertEquals(1.0, sampler.rate(EventType.business, EventLogLevel.INFO, null), 1e-9);
+
+        for (int i = 0; i < 20; i++) {
+            sampler.adjust(technical, 800, 0.9);
+        }
+        assertEquals(0.01, technical.getAdaptiveRate(), 1e-9);
+
+        for (int i = 0; i < 20; i++) {
+            sampler.adjust(technical, 10, 0.1);
+        }
+        assertEquals(1.0, technical.getAdaptiveRate(), 1e-9);
+    }
+
+    @Test
+    public void testSummaryReportsSampledOutCounts() throws Exception {
+        var properties = new EventsConfigProperties();
+        properties.getSampling().setEnabled(true);
+        properties.getSampling().setSummaryIntervalMs(0);
+        sampler = sampler(properties, 0.0);
+        for (int i = 0; i < 3; i++) {
+            sampler.isSampledOut(EventType.technical, EventLogLevel.DEBUG, "cache_miss");
+        }
+
+        sampler.sendSummary();
+        sampler.sendSummary();
+
+        ArgumentCaptor<Event> summary = ArgumentCaptor.forClass(Event.class);
+        verify(sampler.kafkaSender, times(1)).send(summary.capture());
+        assertEquals(EventSampler.SUMMARY_EVENT, summary.getValue().getEvent());
+        var count = new JSONObject(summary.getValue().getPayload()).getJSONArray("counts").getJSONObject(0);
+        assertEquals("cache_miss", count.getString("event"));
+        assertEquals("DEBUG", count.getString("eventLogLevel"));
+        assertEquals(3, count.getLong("count"));
+    }
+
+    @Test
+    public void testSummariesDoNotLoseConcurrentCounts() throws Exception {
+        var properties = new EventsConfigProperties();
+        properties.getSampling().setEnabled(true);
+        properties.getSampling().setSummaryIntervalMs(0);
+        sampler = sampler(properties, 0.0);
+
+        int perThread = 20_000;
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            threads.add(new Thread(() -> {
+                for (int j = 0; j < perThread; j++) {
+                    sampler.isSampledOut(EventType.technical, EventLogLevel.DEBUG, "cache_miss");
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        while (threads.stream().anyMatch(Thread::isAlive)) {
+            sampler.sendSummary();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        sampler.sendSummary();
+
+        ArgumentCaptor<Event> summaries = ArgumentCaptor.forClass(Event.class);
+        verify(sampler.kafkaSender, atLeastOnce()).send(summaries.capture());
+        long total = summaries.getAllValues().stream()
+                .mapToLong(summary -> new JSONObject(summary.getPayload()).getJSONArray("counts").getJSONObject(0).getLong("count"))
+                .sum();
+        assertEquals(4L * perThread, total);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static EventSampler sampler(EventsConfigProperties properties, double technicalRate) {
+        Map<String, Route> routes = new LinkedHashMap<>();
+        Map<String, EventsConfigProperties.Event> channels = new LinkedHashMap<>();
+        for (String name : new String[]{"audit", "business", "technical"}) {
+            var channel = new EventsConfigProperties.Event();
+            channel.setTopic(name + "-topic");
+            channels.put(name, channel);
+            routes.put(name, new Route(name, channel, EventFilter.ACCEPT_ALL, false, null, route -> null));
+        }
+        channels.get("technical").setSamplingRate(technicalRate);
+        properties.setChannels(channels);
+        properties.getRouting().getIgnoredEventTypes().add(EventType.unspecified);
+
+        var sampler = new EventSampler();
+        sampler.eventsConfigProperties = properties;
+        sampler.kafkaSender = mock(KafkaSender.class);
+        sampler.eventBuilder = new EventBuilder();
+        sampler.meterRegistry = mock(ObjectProvider.class);
+        doReturn(RoutingTable.create(routes, properties.getRouting())).when(sampler.kafkaSender).getRoutingTable();
+        sampler.init();
+        return sampler;
+    }
+}
@@ -0,0 +1,182 @@
+package com.baasflow.commons.events.internal;
+
+import com.baasflow.commons.events.Event;
+import com.baasflow.commons.events.EventStatus;
+import com.baasflow.commons.events.EventType;
+import org.apache.kafka.common.errors.RecordTooLargeException;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.BiFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+class TestEventSpool {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testReplaysInOrderAfterRestart() throws Exception {
+        List<Event> events = List.of(event("first"), event("second"), event("third"));
+
+        EventSpool spool = spool(16 * 1024, 1024 * 1024);
+        events.forEach(event -> assertTrue(spool.append("audit", event)));
+        spool.shutdown();
+
+        EventSpool restarted = spool(16 * 1024, 1024 * 1024);
+        doReturn(true).when(restarted.kafkaHealthIndicator).isHealthy();
+        List<Event> replayed = new ArrayList<>();
+        restarted.replay(collectingSender(replayed));
+
+        assertEquals(events.stream().map(Event::getId).toList(), replayed.stream().map(Event::getId).toList());
+        restarted.replay(collectingSender(replayed));
+        assertEquals(3, replayed.size(), "replayed events must not be sent again");
+    }
+
+    @Test
+    public void testProbesWithSingleEventWhileUnhealthy() throws Exception {
+        EventSpool spool = spool(16 * 1024, 1024 * 1024);
+        spool.append("audit", event("first"));
+        spool.append("audit", event("second"));
+
+        List<Event> replayed = new ArrayList<>();
+        spool.replay(collectingSender(replayed));
+        assertEquals(1, replayed.size());
+
+        spool.replay((channel, event) -> CompletableFuture.failedFuture(new RuntimeException("still down")));
+        doReturn(true).when(spool.kafkaHealthIndicator).isHealthy();
+        spool.replay(collectingSender(replayed));
+        assertEquals(2, replayed.size());
+        assertEquals("second", replayed.get(1).getEvent());
+    }
+
+    @Test
+    public void testRotatesSegmentsAndEnforcesSizeCap() throws Exception {
+        EventSpool spool = spool(1024, 2048);
+        int spooled = 0;
+        while (spool.append("audit", event("event-" + spooled))) {
+            spooled++;
+        }
+
+        assertTrue(spooled > 1);
+        assertEquals(2, spool.getSegmentCount());
+
+        doReturn(true).when(spool.kafkaHealthIndicator).isHealthy();
+        List<Event> replayed = new ArrayList<>();
+        spool.replay(collectingSender(replayed));
+        assertEquals(spooled, replayed.size());
+        try (var files = Files.list(directory)) {
+            assertTrue(files.count() <= 1, "fully replayed segments are deleted");
+        }
+    }
+
+    @Test
+    public void testQuarantinesRecordsThatCannotBeDelivered() throws Exception {
+        EventSpool spool = spool(16 * 1024, 1024 * 1024);
+        spool.append("audit", event("too-large"));
+        spool.append("removed", event("unknown-channel"));
+        spool.append("audit", event("timed-out"));
+        doReturn(true).when(spool.kafkaHealthIndicator).isHealthy();
+
+        List<Event> replayed = new ArrayList<>();
+        spool.replay((channel, event) -> switch (event.getEvent()) {
+            case "too-large" -> CompletableFuture.failedFuture(new RecordTooLargeException("record too large"));
+            case "unknown-channel" -> throw new EventSpool.UnknownChannelException(channel);
+            default -> CompletableFuture.failedFuture(new TimeoutException("no ack"));
+        });
+        assertEquals(2, spool.getQuarantinedCount());
+        assertTrue(Files.size(directory.resolve("quarantine.spool")) > 0);
+
+        spool.replay(collectingSender(replayed));
+        assertEquals(List.of("timed-out"), replayed.stream().map(Event::getEvent).toList(), "retriable failures stay in the spool");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testSpooledSendsCompleteWithoutFailure() throws Exception {
+        KafkaTemplate<String, Event> kafkaTemplate = mock(KafkaTemplate.class);
+        KafkaSender kafkaSender = sender(kafkaTemplate);
+        Event event = new EventBuilder().auditlogEvent("sample-module", "event-happened", EventStatus.success);
+
+        doReturn(CompletableFuture.failedFuture(new TimeoutException("no ack")))
+                .when(kafkaTemplate).send(anyString(), anyString(), any(Event.class));
+        assertNull(kafkaSender.send(event).get(), "spooled on the writer thread, the caller must not retry");
+
+        doThrow(new TimeoutException("no metadata")).when(kafkaTemplate).send(anyString(), anyString(), any(Event.class));
+        assertNull(kafkaSender.send(event).get(), "spooled, not rethrown");
+
+        doReturn(CompletableFuture.failedFuture(new RecordTooLargeException("record too large")))
+                .when(kafkaTemplate).send(anyString(), anyString(), any(Event.class));
+        var e = assertThrows(ExecutionException.class, () -> kafkaSender.send(event).get());
+        assertInstanceOf(RecordTooLargeException.class, e.getCause(), "not spooled, replaying cannot fix it");
+
+        List<Event> replayed = new ArrayList<>();
+        doReturn(true).when(kafkaSender.eventSpool.kafkaHealthIndicator).isHealthy();
+        kafkaSender.eventSpool.replay(collectingSender(replayed));
+        assertEquals(2, replayed.size());
+    }
+
+    private KafkaSender sender(KafkaTemplate<String, Event> kafkaTemplate) throws Exception {
+        EventSpool spool = spool(16 * 1024, 1024 * 1024);
+        spool.eventsConfigProperties.getChannels().get("audit").getKafka().setKafkaTemplate(kafkaTemplate);
+
+        var kafkaSender = new KafkaSender();
+        kafkaSender.eventsConfigProperties = spool.eventsConfigProperties;
+        kafkaSender.eventSpool = spool;
+        kafkaSender.eventMetrics = new EventMetrics();
+        kafkaSender.meterRegistry = mock(ObjectProvider.class);
+        kafkaSender.kafkaHealthIndicator = mock(KafkaHealthIndicator.class);
+        kafkaSender.init();
+        return kafkaSender;
+    }
+
+    private EventSpool spool(int segmentSizeBytes, long maxTotalBytes) throws Exception {
+        var channel = new EventsConfigProperties.Event();
+        channel.setTopic("auditlog");
+        var properties = new EventsConfigProperties();
+        properties.setChannels(Map.of("audit", channel));
+        properties.getSpool().setEnabled(true);
+        properties.getSpool().setDirectory(directory.toString());
+        properties.getSpool().setSegmentSizeBytes(segmentSizeBytes);
+        properties.getSpool().setMaxTotalBytes(maxTotalBytes);
+
+        EventSpool spool = new EventSpool();
+        spool.eventsConfigProperties = properties;
+        spool.kafkaHealthIndicator = mock(KafkaHealthIndicator.class);
+        spool.meterRegistry = mock(ObjectProvider.class);
+        spool.init();
+        return spool;
+    }
+
+    private static BiFunction<String, Event, CompletableFuture<SendResult<String, Event>>> collectingSender(List<Event> replayed) {
+        return (channel, event) -> {
+            assertEquals("audit", channel);
+            replayed.add(event);
+            return CompletableFuture.completedFuture(null);
+        };
+    }
+
+    private static Event event(String name) {
+        return EventBuilder.createEventBuilder()
+                .setEventType(EventType.audit)
+                .setEvent(name)
+                .build();
+    }
+}
@@ -0,0 +1,134 @@
+package com.baasflow.commons.events.internal;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Status;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestKafkaHealthIndicator {
+
+    @Test
+    public void testSingleFailureDoesNotMakeChannelDown() {
+        var indicator = indicator(Map.of("audit", TestKafkaHealthIndicator::reachable));
+        for (int i = 0; i < 20; i++) {
+            indicator.record("audit", TimeUnit.MILLISECONDS.toNanos(5), false);
+        }
+        indicator.record("audit", TimeUnit.SECONDS.toNanos(5), true);
+
+        indicator.evaluate();
+
+        assertEquals(Status.UP, indicator.health().getStatus());
+        assertTrue(indicator.isHealthy());
+    }
+
+    @Test
+    public void testFailureRateAndLatencyMakeChannelDown() {
+        Map<String, Supplier<CompletionStage<?>>> probes = new LinkedHashMap<>();
+        probes.put("audit", TestKafkaHealthIndicator::reachable);
+        probes.put("business", TestKafkaHealthIndicator::reachable);
+        var indicator = indicator(probes);
+        for (int i = 0; i < 10; i++) {
+            indicator.record("audit", TimeUnit.MILLISECONDS.toNanos(5), i % 2 == 0);
+            indicator.record("business", TimeUnit.SECONDS.toNanos(6), false);
+        }
+
+        indicator.evaluate();
+
+        var health = indicator.health();
+        assertEquals(Status.DOWN, health.getStatus());
+        assertEquals(Status.DOWN, indicator.channelStatus("audit"));
+        assertEquals(Status.DOWN, indicator.channelStatus("business"));
+        assertEquals(50, ((Map<?, ?>) health.getDetails().get("audit")).get("failureRate"));
+        assertEquals(6_000L, ((Map<?, ?>) health.getDetails().get("business")).get("p99AckMs"));
+    }
+
+    @Test
+    public void testQuietChannelsAreProbed() {
+        Map<String, Supplier<CompletionStage<?>>> probes = new LinkedHashMap<>();
+        probes.put("audit", TestKafkaHealthIndicator::reachable);
+        probes.put("business", () -> CompletableFuture.failedFuture(new IllegalStateException("no metadata")));
+        var indicator = indicator(probes);
+        indicator.evaluate();
+        assertEquals(Status.UNKNOWN, indicator.health().getStatus(), "not probed yet");
+
+        indicator.probeQuietChannels();
+        indicator.evaluate();
+
+        assertEquals(Status.UP, indicator.channelStatus("audit"));
+        assertEquals(Status.DOWN, indicator.channelStatus("business"));
+        assertEquals(Status.DOWN, indicator.health().getStatus());
+        assertTrue(((Map<?, ?>) indicator.health().getDetails().get("business")).get("lastProbeError").toString().contains("no metadata"));
+    }
+
+    @Test
+    public void testHangingProbeTimesOutWithoutBlocking() throws InterruptedException {
+        var probes = new AtomicInteger();
+        var indicator = indicator(Map.of("audit", () -> {
+            probes.incrementAndGet();
+            return new CompletableFuture<>();
+        }));
+        indicator.eventsConfigProperties.getHealth().setProbeTimeoutMs(50);
+
+        indicator.probeQuietChannels();
+        indicator.probeQuietChannels();
+        assertEquals(1, probes.get(), "a probe still running is not started again");
+        Thread.sleep(200);
+        indicator.evaluate();
+
+        assertEquals(Status.DOWN, indicator.channelStatus("audit"));
+        assertEquals("timed out after 50 ms", ((Map<?, ?>) indicator.health().getDetails().get("audit")).get("lastProbeError"));
+        indicator.probeQuietChannels();
+        assertEquals(2, probes.get());
+    }
+
+    @Test
+    public void testAdminPropertiesKeepConnectionSettings() {
+        var producerProperties = KafkaSetup.producerProperties(new EventsConfigProperties().getKafka(), null);
+        producerProperties.put("bootstrap.servers", "broker:9092");
+        producerProperties.put("security.protocol", "SASL_SSL");
+
+        var adminProperties = TopicProbes.adminProperties(producerProperties, 2_000);
+
+        assertEquals("broker:9092", adminProperties.get("bootstrap.servers"));
+        assertEquals("SASL_SSL", adminProperties.get("security.protocol"));
+        assertEquals(2_000, adminProperties.get("default.api.timeout.ms"));
+        assertFalse(adminProperties.containsKey("value.serializer"));
+        assertFalse(adminProperties.containsKey("linger.ms"));
+    }
+
+    @Test
+    public void testIdleChannelDoesNotHoldBackActiveOne() {
+        Map<String, Supplier<CompletionStage<?>>> probes = new LinkedHashMap<>();
+        probes.put("audit", TestKafkaHealthIndicator::reachable);
+        probes.put("business", null);
+        var indicator = indicator(probes);
+        for (int i = 0; i < 20; i++) {
+            indicator.record("audit", TimeUnit.MILLISECONDS.toNanos(5), false);
+        }
+
+        indicator.evaluate();
+
+        assertEquals(Status.UNKNOWN, indicator.channelStatus("business"));
+        assertEquals(Status.UP, indicator.health().getStatus());
+        assertTrue(indicator.isHealthy(), "spool replay is not stuck at one probe per round");
+    }
+
+    private static CompletionStage<?> reachable() {
+        return CompletableFuture.completedFuture(null);
+    }
+
+    private static KafkaHealthIndicator indicator(Map<String, Supplier<CompletionStage<?>>> probes) {
+        var indicator = new KafkaHealthIndicator();
+        indicator.eventsConfigProperties = new EventsConfigProperties();
+        indicator.register(probes);
+        return indicator;
+    }
+}
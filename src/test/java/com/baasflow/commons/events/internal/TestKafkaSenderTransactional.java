@@ -0,0 +1,159 @@
+package com.baasflow.commons.events.internal;
+
+import com.baasflow.commons.events.Event;
+import com.baasflow.commons.events.EventStatus;
+import com.baasflow.commons.events.EventType;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.mock.MockProducerFactory;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class TestKafkaSenderTransactional {
+
+    @Test
+    public void testEventsAreCommittedTogetherWithSameKey() throws Exception {
+        var producer = new SharedMockProducer();
+        producer.initTransactions();
+        var kafkaTemplate = new KafkaTemplate<>(new MockProducerFactory<>((transactional, id) -> producer, "tx-"));
+        kafkaTemplate.setAllowNonTransactional(true);
+        var kafkaSender = kafkaSender(kafkaTemplate);
+
+        assertTrue(kafkaSender.isTransactional(EventType.audit));
+        Event audit = event(EventType.audit, EventStatus.failure);
+        Event error = event(EventType.audit, EventStatus.failure);
+        var futures = kafkaSender.sendTransactional(List.of(audit, error));
+
+        assertEquals(2, futures.size());
+        futures.forEach(future -> assertTrue(future.isDone() && !future.isCompletedExceptionally()));
+        assertTrue(producer.transactionCommitted());
+        List<ProducerRecord<String, Event>> sent = producer.history();
+        assertEquals(List.of(audit.getId().toString(), audit.getId().toString()), sent.stream().map(ProducerRecord::key).toList());
+        assertEquals(List.of(audit, error), sent.stream().map(ProducerRecord::value).toList());
+    }
+
+    @Test
+    public void testAsyncTransactionIsCommittedOnTransactionThread() throws Exception {
+        AtomicReference<String> committer = new AtomicReference<>();
+        var producer = new SharedMockProducer() {
+            @Override
+            public void commitTransaction() {
+                committer.set(Thread.currentThread().getName());
+                super.commitTransaction();
+            }
+        };
+        producer.initTransactions();
+        var kafkaTemplate = new KafkaTemplate<>(new MockProducerFactory<>((transactional, id) -> producer, "tx-"));
+        kafkaTemplate.setAllowNonTransactional(true);
+        var kafkaSender = kafkaSender(kafkaTemplate);
+
+        var futures = kafkaSender.sendTransactionalAsync(List.of(event(EventType.audit, EventStatus.failure), event(EventType.audit, EventStatus.failure)))
+                .get(10, TimeUnit.SECONDS);
+        kafkaSender.shutdown();
+
+        assertEquals(2, futures.size());
+        futures.forEach(future -> assertTrue(future.isDone() && !future.isCompletedExceptionally()));
+        assertEquals("baasflow-events-transactions", committer.get());
+    }
+
+    @Test
+    public void testRoundRobinPoolSendsTransactionWithOneProducer() {
+        List<SharedMockProducer> producers = List.of(new SharedMockProducer(), new SharedMockProducer());
+        List<KafkaTemplate<String, Event>> kafkaTemplates = producers.stream().map(producer -> {
+            producer.initTransactions();
+            var kafkaTemplate = new KafkaTemplate<>(new MockProducerFactory<>((transactional, id) -> producer, "tx-"));
+            kafkaTemplate.setAllowNonTransactional(true);
+            return kafkaTemplate;
+        }).toList();
+        var kafkaSender = kafkaSender(new ProducerPool(kafkaTemplates, EventsConfigProperties.ProducerSelection.ROUND_ROBIN));
+
+        assertTrue(kafkaSender.isTransactional(EventType.audit));
+        for (int i = 0; i < 4; i++) {
+            var futures = kafkaSender.sendTransactional(List.of(event(EventType.audit, EventStatus.failure), event(EventType.audit, EventStatus.failure)));
+            futures.forEach(future -> assertTrue(future.isDone() && !future.isCompletedExceptionally()));
+        }
+        producers.forEach(producer -> assertEquals(0, producer.history().size() % 2, "both events of a transaction on one producer"));
+        assertEquals(8, producers.stream().mapToInt(producer -> producer.history().size()).sum());
+    }
+
+    @Test
+    public void testNonTransactionalChannelIsRejected() {
+        var producer = new SharedMockProducer();
+        var kafkaSender = kafkaSender(new KafkaTemplate<>(new MockProducerFactory<>(() -> producer)));
+
+        assertFalse(kafkaSender.isTransactional(EventType.audit));
+        assertThrows(IllegalStateException.class, () -> kafkaSender.sendTransactional(List.of(event(EventType.audit, EventStatus.success))));
+        assertTrue(producer.history().isEmpty());
+    }
+
+    private static KafkaSender kafkaSender(KafkaTemplate<String, Event> kafkaTemplate) {
+        var channel = new EventsConfigProperties.Event();
+        channel.getKafka().setKafkaTemplate(kafkaTemplate);
+        return kafkaSender(channel);
+    }
+
+    private static KafkaSender kafkaSender(ProducerPool producerPool) {
+        var channel = new EventsConfigProperties.Event();
+        channel.getKafka().setProducerPool(producerPool);
+        channel.getKafka().setKafkaTemplate(producerPool.getKafkaTemplates().get(0));
+        return kafkaSender(channel);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static KafkaSender kafkaSender(EventsConfigProperties.Event channel) {
+        channel.setTopic("auditlog");
+        Map<String, EventsConfigProperties.Event> channels = new LinkedHashMap<>();
+        channels.put("audit", channel);
+        var properties = new EventsConfigProperties();
+        properties.setChannels(channels);
+
+        var kafkaSender = new KafkaSender();
+        kafkaSender.eventsConfigProperties = properties;
+        kafkaSender.eventSpool = new EventSpool();
+        kafkaSender.eventSpool.eventsConfigProperties = properties;
+        kafkaSender.eventMetrics = new EventMetrics();
+        kafkaSender.meterRegistry = mock(ObjectProvider.class);
+        kafkaSender.kafkaHealthIndicator = mock(KafkaHealthIndicator.class);
+        kafkaSender.init();
+        return kafkaSender;
+    }
+
+    private static Event event(EventType eventType, EventStatus eventStatus) {
+        return EventBuilder.createEventBuilder()
+                .setEventType(eventType)
+                .setEventStatus(eventStatus)
+                .setSourceModule("sample-module")
+                .setEvent("event-happened")
+                .build();
+    }
+
+    /**
+     * KafkaTemplate closes the producer after every non-transactional use, which a factory of a single mock producer
+     * must survive.
+     */
+    private static class SharedMockProducer extends MockProducer<String, Event> {
+        SharedMockProducer() {
+            super(true, new StringSerializer(), (topic, event) -> new byte[0]);
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public void close(Duration timeout) {
+        }
+    }
+}
@@ -1,9 +1,22 @@
 package com.baasflow.commons.events.internal;
 
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class TestKafkaSetupProperties {
 
@@ -19,4 +32,113 @@ class TestKafkaSetupProperties {
         local.setBrokers("local");
         assertEquals("local", KafkaSetup.getLocalOrFallback(global, local, EventsConfigProperties.KafkaProperties::getBrokers));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testProducerTuningPresets() {
+        EventsConfigProperties.KafkaProperties global = new EventsConfigProperties.KafkaProperties();
+        EventsConfigProperties.KafkaProperties local = new EventsConfigProperties.KafkaProperties();
+        assertNull(KafkaSetup.getTuning(global, local, EventsConfigProperties.KafkaProperties::getAcks));
+
+        global.setPreset(ProducerPreset.THROUGHPUT);
+        assertEquals("1", KafkaSetup.getTuning(global, local, EventsConfigProperties.KafkaProperties::getAcks));
+
+        global.setAcks("0");
+        assertEquals("0", KafkaSetup.getTuning(global, local, EventsConfigProperties.KafkaProperties::getAcks));
+
+        local.setPreset(ProducerPreset.DURABLE_AUDIT);
+        assertEquals("all", KafkaSetup.getTuning(global, local, EventsConfigProperties.KafkaProperties::getAcks));
+        assertEquals(64L * 1024 * 1024, KafkaSetup.getTuning(global, local, EventsConfigProperties.KafkaProperties::getBufferMemory));
+
+        local.setAcks("1");
+        assertEquals("1", KafkaSetup.getTuning(global, local, EventsConfigProperties.KafkaProperties::getAcks));
+    }
+
+    @Test
+    public void testPresetsBuildProducersWithDefaultTimeouts() {
+        EventsConfigProperties.KafkaProperties global = new EventsConfigProperties().getKafka();
+        global.setBrokers("localhost:9092");
+        for (ProducerPreset preset : ProducerPreset.values()) {
+            EventsConfigProperties.KafkaProperties local = new EventsConfigProperties.KafkaProperties();
+            local.setPreset(preset);
+            Map<String, Object> properties = new HashMap<>(KafkaSetup.producerProperties(global, local));
+            properties.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class.getName());
+
+            // constructing the producer validates the configuration without connecting to the brokers
+            new KafkaProducer<String, byte[]>(properties).close(Duration.ZERO);
+        }
+    }
+
+    @Test
+    public void testDeliveryTimeoutCoversLinger() {
+        EventsConfigProperties.KafkaProperties global = new EventsConfigProperties().getKafka();
+        EventsConfigProperties.KafkaProperties local = new EventsConfigProperties.KafkaProperties();
+        local.setLingerMs(100);
+
+        assertEquals(5_100, KafkaSetup.producerProperties(global, local).get(ProducerConfig.DELIVERY_TIMEOUT_MS_CONFIG));
+
+        local.setDeliveryTimeoutMs(30_000);
+        assertEquals(30_000, KafkaSetup.producerProperties(global, local).get(ProducerConfig.DELIVERY_TIMEOUT_MS_CONFIG));
+    }
+
+    @Test
+    public void testTransactionalChannelRejectsThroughputPreset() {
+        var properties = new EventsConfigProperties();
+        properties.getKafka().setBrokers("localhost:9092");
+        properties.getKafka().setLocalSchemaRegistryEndpoint("http://localhost:8081");
+        var audit = new EventsConfigProperties.Event();
+        audit.getKafka().setPreset(ProducerPreset.THROUGHPUT);
+        audit.getKafka().setTransactionIdPrefix("audit-");
+        properties.setChannels(Map.of("audit", audit));
+
+        var kafkaSetup = new KafkaSetup();
+        kafkaSetup.eventsConfigProperties = properties;
+        kafkaSetup.eventMetrics = new EventMetrics();
+        var e = assertThrows(IllegalStateException.class, kafkaSetup::kafkaTemplates);
+        assertTrue(e.getMessage().contains("'audit'"), e.getMessage());
+
+        audit.getKafka().setAcks("all");
+        audit.getKafka().setEnableIdempotence(true);
+        kafkaSetup.kafkaTemplates();
+        assertEquals(1, audit.getKafka().getProducerPool().size());
+    }
+
+    @Test
+    public void testProducerTuningProperties() {
+        EventsConfigProperties.KafkaProperties global = new EventsConfigProperties().getKafka();
+        EventsConfigProperties.KafkaProperties local = new EventsConfigProperties.KafkaProperties();
+        local.setPreset(ProducerPreset.LOW_LATENCY);
+        local.setCompressionType("snappy");
+
+        Map<String, Object> properties = KafkaSetup.producerProperties(global, local);
+
+        assertEquals(0, properties.get(ProducerConfig.LINGER_MS_CONFIG));
+        assertEquals("snappy", properties.get(ProducerConfig.COMPRESSION_TYPE_CONFIG));
+        assertFalse(properties.containsKey(ProducerConfig.BUFFER_MEMORY_CONFIG));
+    }
+
+    @Test
+    public void testProducersAreSharedAndPooled() {
+        var properties = new EventsConfigProperties();
+        properties.getKafka().setBrokers("localhost:9092");
+        properties.getKafka().setLocalSchemaRegistryEndpoint("http://localhost:8081");
+        var pooled = new EventsConfigProperties.Event();
+        pooled.getKafka().setProducerPoolSize(3);
+        properties.setChannels(Map.of("audit", new EventsConfigProperties.Event(), "generic", new EventsConfigProperties.Event(), "business", pooled));
+
+        var kafkaSetup = new KafkaSetup();
+        kafkaSetup.eventsConfigProperties = properties;
+        kafkaSetup.eventMetrics = new EventMetrics();
+        kafkaSetup.kafkaTemplates();
+
+        var audit = properties.getChannels().get("audit").getKafka();
+        var generic = properties.getChannels().get("generic").getKafka();
+        assertSame(audit.getProducerPool(), generic.getProducerPool());
+        assertEquals(1, audit.getProducerPool().size());
+
+        var pool = pooled.getKafka().getProducerPool();
+        assertNotSame(audit.getProducerPool(), pool);
+        assertEquals(3, pool.size());
+        assertSame(pool.select("event-1"), pool.select("event-1"), "key-affine selection is stable");
+        assertEquals(3, Stream.of("a", "b", "c", "d", "e", "f", "g", "h").map(pool::select).distinct().count());
+    }
+}
@@ -0,0 +1,73 @@
+package com.baasflow.commons.events.internal;
+
+import com.baasflow.commons.events.EventType;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestRoutingTable {
+
+    @Test
+    public void testRoutesToChannelWithSameNameByDefault() {
+        var routing = new EventsConfigProperties.RoutingProperties();
+        var table = RoutingTable.create(channels("audit", "business"), routing);
+
+        assertEquals(List.of("audit"), channelNames(table, EventType.audit));
+        assertEquals(List.of("business"), channelNames(table, EventType.business));
+        assertTrue(table.routesFor(EventType.technical).isEmpty());
+        assertTrue(table.routesFor(null).isEmpty());
+        assertFalse(table.isIgnored(EventType.technical));
+    }
+
+    @Test
+    public void testExplicitRoutesFanOutWithPrimaryFirst() {
+        var routing = new EventsConfigProperties.RoutingProperties();
+        routing.setRoutes(Map.of(EventType.audit, List.of("audit", "archive"), EventType.technical, List.of("archive")));
+        var table = RoutingTable.create(channels("audit", "archive"), routing);
+
+        assertEquals(List.of("audit", "archive"), channelNames(table, EventType.audit));
+        assertEquals(List.of("archive"), channelNames(table, EventType.technical));
+        assertSame(table.routesFor(EventType.audit).get(1), table.routesFor(EventType.technical).get(0));
+    }
+
+    @Test
+    public void testIgnoredEventTypes() {
+        var routing = new EventsConfigProperties.RoutingProperties();
+        routing.setIgnoredEventTypes(Set.of(EventType.business, EventType.technical, EventType.unspecified));
+        routing.setFailOnUnrouted(true);
+        var table = RoutingTable.create(channels("audit"), routing);
+
+        assertTrue(table.isIgnored(EventType.business));
+        assertTrue(table.routesFor(EventType.business).isEmpty());
+    }
+
+    @Test
+    public void testInvalidRoutingFailsAtStartup() {
+        var unknownChannel = new EventsConfigProperties.RoutingProperties();
+        unknownChannel.setRoutes(Map.of(EventType.audit, List.of("missing")));
+        assertThrows(IllegalStateException.class, () -> RoutingTable.create(channels("audit"), unknownChannel));
+
+        var strict = new EventsConfigProperties.RoutingProperties();
+        strict.setFailOnUnrouted(true);
+        assertThrows(IllegalStateException.class, () -> RoutingTable.create(channels("audit"), strict));
+    }
+
+    private static Map<String, Route> channels(String... names) {
+        Map<String, Route> channels = new LinkedHashMap<>();
+        for (String name : names) {
+            var properties = new EventsConfigProperties.Event();
+            properties.setTopic(name + "-topic");
+            channels.put(name, new Route(name, properties, EventFilter.ACCEPT_ALL, false, null, route -> null));
+        }
+        return channels;
+    }
+
+    private static List<String> channelNames(RoutingTable table, EventType eventType) {
+        return table.routesFor(eventType).stream().map(Route::getChannel).toList();
+    }
+}
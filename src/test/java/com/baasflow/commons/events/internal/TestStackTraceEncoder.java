@@ -0,0 +1,95 @@
+package com.baasflow.commons.events.internal;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestStackTraceEncoder {
+
+    @Test
+    public void testDefaultsPrintTheFullStackTrace() {
+        Exception e = new IllegalStateException("outer", new RuntimeException("inner"));
+        StringWriter expected = new StringWriter();
+        e.printStackTrace(new PrintWriter(expected));
+
+        var encoded = encoder(new EventsConfigProperties.StackTraceProperties()).encode(e);
+
+        assertEquals(expected.toString(), encoded.text());
+        assertEquals(16, encoded.fingerprint().length());
+        assertEquals(1, encoded.occurrence());
+    }
+
+    @Test
+    public void testFramesAreLimitedAndFiltered() {
+        var properties = new EventsConfigProperties.StackTraceProperties();
+        properties.setMaxFrames(2);
+        properties.setExcludedPackages(Set.of("org.junit"));
+        Exception e = new IllegalStateException("outer", new RuntimeException("inner"));
+
+        String text = encoder(properties).encode(e).text();
+
+        assertTrue(text.startsWith("java.lang.IllegalStateException: outer\n\tat " + getClass().getName()));
+        assertTrue(text.contains("Caused by: java.lang.RuntimeException: inner\n"));
+        assertFalse(text.contains("org.junit"));
+        // the cause was created in the same method, all its frames are in common with the outer exception
+        assertEquals(2, text.lines().filter(line -> line.startsWith("\tat ")).count());
+        assertEquals(2, text.lines().filter(line -> line.matches("\t\\.\\.\\. \\d+ more")).count());
+    }
+
+    @Test
+    public void testFingerprintIgnoresMessages() {
+        StackTraceEncoder encoder = encoder(new EventsConfigProperties.StackTraceProperties());
+
+        String first = encoder.encode(failure("payment 1")).fingerprint();
+        String second = encoder.encode(failure("payment 2")).fingerprint();
+        String other = encoder.encode(new IllegalArgumentException("payment 1")).fingerprint();
+
+        assertEquals(first, second);
+        assertNotEquals(first, other);
+    }
+
+    @Test
+    public void testRepeatedStackTracesAreSentAsReference() {
+        var properties = new EventsConfigProperties.StackTraceProperties();
+        properties.setDedupWindowMs(60_000);
+        StackTraceEncoder encoder = encoder(properties);
+
+        var first = encoder.encode(failure("payment 1"));
+        var second = encoder.encode(failure("payment 2"));
+
+        assertEquals(1, first.occurrence());
+        assertTrue(first.text().contains("\tat "));
+        assertEquals(2, second.occurrence());
+        assertEquals("stack trace " + first.fingerprint() + " (occurrence 2 within 60000 ms): java.lang.IllegalStateException: payment 2", second.text());
+    }
+
+    @Test
+    public void testLeastRecentlySeenFingerprintsAreForgotten() {
+        var properties = new EventsConfigProperties.StackTraceProperties();
+        properties.setDedupWindowMs(60_000);
+        properties.setDedupCacheSize(1);
+        StackTraceEncoder encoder = encoder(properties);
+
+        encoder.encode(failure("payment"));
+        encoder.encode(new IllegalArgumentException("other"));
+
+        assertEquals(1, encoder.encode(failure("payment")).occurrence());
+    }
+
+    private static Exception failure(String message) {
+        return new IllegalStateException(message);
+    }
+
+    private static StackTraceEncoder encoder(EventsConfigProperties.StackTraceProperties properties) {
+        var eventsConfigProperties = new EventsConfigProperties();
+        eventsConfigProperties.setStackTrace(properties);
+        StackTraceEncoder encoder = new StackTraceEncoder();
+        encoder.eventsConfigProperties = eventsConfigProperties;
+        encoder.init();
+        return encoder;
+    }
+}
@@ -0,0 +1,82 @@
+package com.baasflow.commons.events.internal.test;
+
+import com.baasflow.commons.events.Event;
+import com.baasflow.commons.events.EventService;
+import com.baasflow.commons.events.EventType;
+import com.baasflow.commons.events.internal.EventBuilder;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.SendResult;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TestLoadGenerator {
+
+    @Test
+    public void testClosedLoopSendsEventTypeAndPayloadMix() throws InterruptedException {
+        Set<EventType> eventTypes = ConcurrentHashMap.newKeySet();
+        Set<Integer> payloadSizes = ConcurrentHashMap.newKeySet();
+        EventService eventService = eventService(event -> {
+            eventTypes.add(event.getEventType());
+            payloadSizes.add(event.getPayload().length());
+            return CompletableFuture.completedFuture(null);
+        });
+
+        LoadReport report = new LoadGenerator(eventService, LoadGeneratorOptions.builder()
+                .concurrency(2)
+                .duration(Duration.ofMillis(200))
+                .eventTypes(Map.of(EventType.audit, 1, EventType.business, 3))
+                .payloadSizes(List.of(0, 16))
+                .build()).run();
+
+        assertTrue(report.getSent() > 0);
+        assertEquals(report.getSent(), report.getAcknowledged());
+        assertEquals(0, report.getFailed());
+        assertEquals(report.getAcknowledged(), report.getAckLatency().getTotalCount());
+        assertEquals(Set.of(EventType.audit, EventType.business), eventTypes);
+        assertEquals(Set.of(0, 16), payloadSizes);
+    }
+
+    @Test
+    public void testRateLimitedRunCountsFailures() throws InterruptedException {
+        EventService eventService = eventService(event -> CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+
+        LoadReport report = new LoadGenerator(eventService, LoadGeneratorOptions.builder()
+                .ratePerSecond(200)
+                .concurrency(2)
+                .duration(Duration.ofMillis(500))
+                .build()).run();
+
+        assertTrue(report.getSent() > 50 && report.getSent() <= 100, "sent " + report.getSent());
+        assertEquals(0, report.getAcknowledged());
+        assertEquals(report.getSent(), report.getFailed());
+        assertEquals(report.getSent(), report.getSendLatency().getTotalCount());
+    }
+
+    @Test
+    public void testParseEventTypes() {
+        assertEquals(Map.of(EventType.audit, 1, EventType.business, 3), LoadGeneratorOptions.parseEventTypes("audit, business=3"));
+        assertThrows(IllegalArgumentException.class, () -> new LoadGenerator(mock(EventService.class),
+                LoadGeneratorOptions.builder().eventTypes(Map.of(EventType.audit, 0)).build()));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static EventService eventService(Function<Event, CompletableFuture<SendResult<String, Event>>> send) {
+        EventService eventService = mock(EventService.class);
+        when(eventService.sendEventAsync(any(Function.class))).thenAnswer(invocation -> {
+            Function<Event.Builder, Event.Builder> builder = invocation.getArgument(0);
+            return send.apply(builder.apply(EventBuilder.createEventBuilder()).build());
+        });
+        return eventService;
+    }
+}
@@ -0,0 +1,50 @@
+package com.baasflow.commons.events.internal.test;
+
+import com.baasflow.commons.events.EventService;
+import com.baasflow.commons.events.EventType;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Drives the load generator against an embedded broker, run with {@code mvn test -Pload-test} to get a latency report
+ * of the full send path; excluded from the default build.
+ */
+@SpringBootTest(classes = TestApplication.class, properties = {
+        "baasflow.events.kafka.brokers=${spring.embedded.kafka.brokers}",
+        "baasflow.events.kafka.msk=false",
+        "baasflow.events.kafka.local-schema-registry-endpoint=mock://load-test",
+        "baasflow.events.routing.routes.business=generic",
+})
+@EmbeddedKafka(partitions = 1, topics = {"auditlog", "genericlog"})
+@Tag("load")
+class TestLoadGeneratorEmbeddedKafka {
+    private static Logger logger = LoggerFactory.getLogger(TestLoadGeneratorEmbeddedKafka.class);
+
+    @Autowired
+    EventService eventService;
+
+    @Test
+    public void testLoadAgainstEmbeddedBroker() throws InterruptedException {
+        LoadReport report = new LoadGenerator(eventService, LoadGeneratorOptions.builder()
+                .ratePerSecond(500)
+                .concurrency(4)
+                .duration(Duration.ofSeconds(3))
+                .eventTypes(Map.of(EventType.audit, 1, EventType.business, 1))
+                .build()).run();
+
+        logger.info("{}", report);
+        assertEquals(0, report.getFailed());
+        assertEquals(report.getSent(), report.getAcknowledged());
+        assertTrue(report.getThroughput() > 0);
+    }
+}